@@ -3,7 +3,7 @@ import {
   Plus, X, Car, Navigation, Users, DollarSign, Bell, User, LogOut, Menu,
   Calendar, MapPin, Clock, Edit, Trash2, CheckCircle, Star
 } from 'lucide-react';
-import API from '../api/api';
+import API, { getPage } from '../api/api';
 
 const DriverDashboard = () => {
   const [activeTab, setActiveTab] = useState('my-rides');
@@ -14,6 +14,10 @@ const DriverDashboard = () => {
   const [myPostedRides, setMyPostedRides] = useState([]);
   const [completedRides, setCompletedRides] = useState([]);
   const [bookingRequests, setBookingRequests] = useState([]);
+  // Cursors of the next page (X-Next-Cursor), null once the last page is loaded
+  const [ridesCursor, setRidesCursor] = useState(null);
+  const [requestsCursor, setRequestsCursor] = useState(null);
+  const [loadingMore, setLoadingMore] = useState(false);
   const [earningsData, setEarningsData] = useState({});
   const [vehicleInfo, setVehicleInfo] = useState({});
   const [notifications, setNotifications] = useState([]);
@@ -63,22 +67,20 @@ const fetchDriverData = async () => {
 
     // Make all requests in parallel
     const [ridesRes, bookingsRes, earningsRes, vehicleRes, profileRes] = await Promise.all([
-      API.get('/driver/rides', config),
-      API.get('/ride/booking-requests', config), // Ensure endpoint matches backend
+      getPage('/driver/rides', null, config),
+      getPage('/ride/booking-requests', null, config), // Ensure endpoint matches backend
       API.get('/driver/earnings', config),
       API.get('/driver/vehicle', config),
       API.get('/user/profile', config)
     ]);
 
-    const rides = ridesRes.data;
-    const now = new Date();
-
-    const parseDateTime = (ride) => new Date(`${ride.date}T${ride.time || "23:59"}`);
-
-    setMyPostedRides(rides.filter(r => parseDateTime(r) >= now));
-    setCompletedRides(rides.filter(r => parseDateTime(r) < now));
+    const { upcoming, completed } = splitRides(ridesRes.data);
+    setMyPostedRides(upcoming);
+    setCompletedRides(completed);
+    setRidesCursor(ridesRes.nextCursor);
 
     setBookingRequests(bookingsRes.data);
+    setRequestsCursor(bookingsRes.nextCursor);
     setEarningsData(earningsRes.data);
     setVehicleInfo(vehicleRes.data);
     setProfile(profileRes.data);
@@ -108,6 +110,55 @@ const fetchDriverData = async () => {
 
 
 
+  const splitRides = (rides) => {
+    const now = new Date();
+    const parseDateTime = (ride) => new Date(`${ride.date}T${ride.time || "23:59"}`);
+    return {
+      upcoming: rides.filter(r => parseDateTime(r) >= now),
+      completed: rides.filter(r => parseDateTime(r) < now)
+    };
+  };
+
+  // ===== LOAD MORE =====
+  // Only the first page of each list is fetched on load; further pages on demand
+  const loadMoreRides = async () => {
+    setLoadingMore(true);
+    try {
+      const res = await getPage('/driver/rides', ridesCursor);
+      const { upcoming, completed } = splitRides(res.data);
+      setMyPostedRides(prev => [...prev, ...upcoming]);
+      setCompletedRides(prev => [...prev, ...completed]);
+      setRidesCursor(res.nextCursor);
+    } catch (error) {
+      alert(error.response?.data?.message || 'Failed to load more rides');
+    } finally {
+      setLoadingMore(false);
+    }
+  };
+
+  const loadMoreRequests = async () => {
+    setLoadingMore(true);
+    try {
+      const res = await getPage('/ride/booking-requests', requestsCursor);
+      setBookingRequests(prev => [...prev, ...res.data]);
+      setRequestsCursor(res.nextCursor);
+    } catch (error) {
+      alert(error.response?.data?.message || 'Failed to load more booking requests');
+    } finally {
+      setLoadingMore(false);
+    }
+  };
+
+  const LoadMoreButton = ({ onClick }) => (
+    <button
+      onClick={onClick}
+      disabled={loadingMore}
+      className="w-full mt-4 bg-purple-600 bg-opacity-80 text-white py-2 rounded-lg hover:bg-opacity-100 transition font-medium disabled:opacity-50"
+    >
+      {loadingMore ? 'Loading...' : 'Load more'}
+    </button>
+  );
+
   // ===== HANDLERS =====
   const handlePostRide = async (rideData) => {
     try {
@@ -458,6 +509,8 @@ const handleBookingAction = async (bookingId, action) => {
                 )}
               </div>
 
+              {ridesCursor && <LoadMoreButton onClick={loadMoreRides} />}
+
             </div>
           )}
 
@@ -537,6 +590,7 @@ const handleBookingAction = async (bookingId, action) => {
                   })
                 )}
               </div>
+              {requestsCursor && <LoadMoreButton onClick={loadMoreRequests} />}
             </div>
           )}
 
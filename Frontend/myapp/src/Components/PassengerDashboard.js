@@ -16,7 +16,7 @@ import {
   DollarSign,
   Car
 } from 'lucide-react';
-import API from '../api/api'; // axios instance (baseURL + interceptor)
+import API, { getPage } from '../api/api'; // axios instance (baseURL + interceptor)
 import { useNavigate } from 'react-router-dom';
 
 /*
@@ -99,10 +99,13 @@ const [profile, setProfile] = useState(() => {
   const [availableRides, setAvailableRides] = useState([]);
   const [myBookings, setMyBookings] = useState([]);
   const [paymentHistory, setPaymentHistory] = useState([]);
+  // Cursors of the next page (X-Next-Cursor), null once the last page is loaded
+  const [bookingsCursor, setBookingsCursor] = useState(null);
+  const [paymentsCursor, setPaymentsCursor] = useState(null);
 
 
   // UI state
-  const [loading, setLoading] = useState({ profile: false, bookings: false, payments: false, notifications: false, search: false, book: false });
+  const [loading, setLoading] = useState({ profile: false, bookings: false, payments: false, notifications: false, search: false, book: false, moreBookings: false, morePayments: false });
   const [error, setError] = useState(null);
 
   const navigate = useNavigate();
@@ -130,12 +133,14 @@ const [profile, setProfile] = useState(() => {
 
 
 
+  // Loads the first page; loadMoreBookings() appends the next one
   const loadBookings = async () => {
     setLoading(prev => ({ ...prev, bookings: true }));
     setError(null);
     try {
-      const res = await API.get('/booking/my-book'); // expected array of booking objects
-      setMyBookings(res.data || []);
+      const res = await getPage('/booking/my-book'); // expected array of booking objects
+      setMyBookings(res.data);
+      setBookingsCursor(res.nextCursor);
     } catch (err) {
       console.error('fetch bookings error', err);
       setError('Failed to load bookings');
@@ -148,8 +153,9 @@ const [profile, setProfile] = useState(() => {
     setLoading(prev => ({ ...prev, payments: true }));
     setError(null);
     try {
-      const res = await API.get('/payment/my'); // expected array
-      setPaymentHistory(res.data || []);
+      const res = await getPage('/payment/my'); // expected array
+      setPaymentHistory(res.data);
+      setPaymentsCursor(res.nextCursor);
     } catch (err) {
       console.error('fetch payments error', err);
       setError('Failed to load payments');
@@ -158,6 +164,34 @@ const [profile, setProfile] = useState(() => {
     }
   };
 
+  const loadMoreBookings = async () => {
+    setLoading(prev => ({ ...prev, moreBookings: true }));
+    try {
+      const res = await getPage('/booking/my-book', bookingsCursor);
+      setMyBookings(prev => [...prev, ...res.data]);
+      setBookingsCursor(res.nextCursor);
+    } catch (err) {
+      console.error('fetch more bookings error', err);
+      setError('Failed to load more bookings');
+    } finally {
+      setLoading(prev => ({ ...prev, moreBookings: false }));
+    }
+  };
+
+  const loadMorePayments = async () => {
+    setLoading(prev => ({ ...prev, morePayments: true }));
+    try {
+      const res = await getPage('/payment/my', paymentsCursor);
+      setPaymentHistory(prev => [...prev, ...res.data]);
+      setPaymentsCursor(res.nextCursor);
+    } catch (err) {
+      console.error('fetch more payments error', err);
+      setError('Failed to load more payments');
+    } finally {
+      setLoading(prev => ({ ...prev, morePayments: false }));
+    }
+  };
+
 
 
   /* -------------------------
@@ -563,6 +597,11 @@ const handleBooking = async (rideId, seats) => {
                   })}
                 </div>
               )}
+              {!loading.bookings && bookingsCursor && (
+                <button onClick={loadMoreBookings} disabled={loading.moreBookings} className="w-full mt-4 bg-purple-600 bg-opacity-80 text-white py-2 rounded-lg hover:bg-opacity-100 transition disabled:opacity-50">
+                  {loading.moreBookings ? 'Loading...' : 'Load more'}
+                </button>
+              )}
             </section>
           )}
 
@@ -608,6 +647,11 @@ const handleBooking = async (rideId, seats) => {
                   </table>
                 </div>
               )}
+              {!loading.payments && paymentsCursor && (
+                <button onClick={loadMorePayments} disabled={loading.morePayments} className="w-full mt-4 bg-purple-600 bg-opacity-80 text-white py-2 rounded-lg hover:bg-opacity-100 transition disabled:opacity-50">
+                  {loading.morePayments ? 'Loading...' : 'Load more'}
+                </button>
+              )}
             </section>
           )}
 
@@ -14,4 +14,14 @@ API.interceptors.request.use((config) => {
   return config;
 }, (error) => Promise.reject(error));
 
+// List endpoints are paginated: each call returns one page, and the cursor of the
+// next page comes back in the X-Next-Cursor header (absent on the last page).
+// Pass it back to fetch the following page, e.g. from a "Load more" button.
+export const getPage = async (url, cursor = null, config = {}) => {
+  const params = { ...(config.params || {}) };
+  if (cursor) params.cursor = cursor;
+  const res = await API.get(url, { ...config, params });
+  return { data: res.data || [], nextCursor: res.headers['x-next-cursor'] || null };
+};
+
 export default API;
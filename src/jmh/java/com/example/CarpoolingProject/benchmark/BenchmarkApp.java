@@ -0,0 +1,156 @@
+package com.example.CarpoolingProject.benchmark;
+
+import com.example.CarpoolingProject.CarpoolingProjectApplication;
+import com.example.CarpoolingProject.entity.Ride;
+import com.example.CarpoolingProject.service.EarningsService;
+import com.example.CarpoolingProject.service.LocationIndex;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Date;
+import java.sql.Time;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Boots the application once per benchmark JVM on the "bench" profile (embedded H2,
+ * schema from the Flyway migrations) and seeds it with JDBC batches. Volumes can be changed with -Dbench.rides=... etc.
+ *
+ * Ids are assigned by the fresh identity columns in insert order:
+ * users 1..DRIVERS are drivers, the next PASSENGERS users are passengers,
+ * rides are 1..RIDES and HOT_RIDE_ID is an extra ride with practically unlimited seats.
+ */
+public final class BenchmarkApp {
+
+    public static final int DRIVERS = Integer.getInteger("bench.drivers", 500);
+    public static final int PASSENGERS = Integer.getInteger("bench.passengers", 5_000);
+    public static final int RIDES = Integer.getInteger("bench.rides", 100_000);
+    public static final int BOOKINGS = Integer.getInteger("bench.bookings", 300_000);
+
+    // Rides are spread over [today - DAYS, today + DAYS)
+    public static final int DAYS = 30;
+
+    public static final long HOT_RIDE_ID = RIDES + 1L;
+
+    public static final String[] AREAS = {
+            "Andheri", "Powai", "Bandra", "Dadar", "Thane", "Borivali", "Goregaon", "Kurla",
+            "Vashi", "Chembur", "Colaba", "Worli", "Malad", "Mulund", "Ghatkopar", "Juhu"
+    };
+
+    // Corridor 0 is the most popular one
+    public static final String POPULAR_SOURCE = AREAS[0];
+    public static final String POPULAR_DESTINATION = AREAS[1];
+
+    private static final int BATCH = 5_000;
+
+    private static ConfigurableApplicationContext context;
+
+    private BenchmarkApp() {
+    }
+
+    public static synchronized ConfigurableApplicationContext context() {
+        if (context == null)
+            context = start(WebApplicationType.NONE);
+        return context;
+    }
+
+    // The same seeded application behind Tomcat on a random port (see serverPort).
+    // args are extra command-line properties, e.g. "--spring.threads.virtual.enabled=true".
+    public static synchronized ConfigurableApplicationContext webContext(String... args) {
+        if (context == null) {
+            String[] all = new String[args.length + 2];
+            all[0] = "--spring.main.web-application-type=servlet";
+            all[1] = "--server.port=0";
+            System.arraycopy(args, 0, all, 2, args.length);
+            context = start(WebApplicationType.SERVLET, all);
+        }
+        return context;
+    }
+
+    public static int serverPort() {
+        return ((ServletWebServerApplicationContext) context()).getWebServer().getPort();
+    }
+
+    private static ConfigurableApplicationContext start(WebApplicationType type, String... args) {
+        ConfigurableApplicationContext ctx = new SpringApplicationBuilder(CarpoolingProjectApplication.class)
+                .profiles("bench")
+                .web(type)
+                .run(args);
+        seed(ctx.getBean(JdbcTemplate.class));
+        ctx.getBean(EarningsService.class).backfillIfEmpty();
+        ctx.getBean(LocationIndex.class).load();
+        return ctx;
+    }
+
+    public static <T> T bean(Class<T> type) {
+        return context().getBean(type);
+    }
+
+    public static String driverEmail(int i) {
+        return "driver" + i + "@bench.test";
+    }
+
+    public static String passengerEmail(int i) {
+        return "passenger" + i + "@bench.test";
+    }
+
+    // ---------------- SEEDING ----------------
+    private static void seed(JdbcTemplate jdbc) {
+        Random random = new Random(42);
+        LocalDate today = LocalDate.now();
+
+        List<Object[]> users = new ArrayList<>();
+        for (int i = 0; i < DRIVERS; i++) {
+            users.add(new Object[]{"Driver " + i, driverEmail(i), "90000" + i, "x", "DRIVER", "Swift", "MH01" + i, 4});
+        }
+        for (int i = 0; i < PASSENGERS; i++) {
+            users.add(new Object[]{"Passenger " + i, passengerEmail(i), "80000" + i, "x", "PASSENGER", null, null, null});
+        }
+        insert(jdbc, "INSERT INTO users (name, email, phone, password, role, vehicle_model, license_plate, capacity) " +
+                "VALUES (?, ?, ?, ?, ?, ?, ?, ?)", users);
+
+        List<Object[]> rides = new ArrayList<>();
+        for (int i = 0; i < RIDES; i++) {
+            // Skewed towards the first areas, like real commute corridors
+            int src = (int) (AREAS.length * Math.pow(random.nextDouble(), 3));
+            int dst = (src + 1 + (int) ((AREAS.length - 1) * Math.pow(random.nextDouble(), 3))) % AREAS.length;
+            LocalDate date = today.plusDays(random.nextInt(2 * DAYS) - DAYS);
+            LocalTime time = LocalTime.of(6 + random.nextInt(14), random.nextInt(4) * 15);
+            long driverId = 1 + random.nextInt(DRIVERS);
+
+            rides.add(new Object[]{AREAS[src], AREAS[dst], Ride.locationKey(AREAS[src]), Ride.locationKey(AREAS[dst]),
+                    Date.valueOf(date), Time.valueOf(time),
+                    0L, 4L, 50.0 + random.nextInt(300), 3.5 + random.nextInt(15) / 10.0, driverId});
+        }
+        rides.add(new Object[]{POPULAR_SOURCE, POPULAR_DESTINATION,
+                Ride.locationKey(POPULAR_SOURCE), Ride.locationKey(POPULAR_DESTINATION),
+                Date.valueOf(today), Time.valueOf(LocalTime.of(9, 0)),
+                0L, 1_000_000_000L, 100.0, 4.5, 1L});
+        insert(jdbc, "INSERT INTO rides (source, destination, source_key, destination_key, date, time, " +
+                "booked_seats, available_seats, price, rating, driver_id) " +
+                "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)", rides);
+        // Rides the application saves get ids from id_generators (see Ride.id): start after these
+        jdbc.update("UPDATE id_generators SET next_val = (SELECT MAX(id) FROM rides) + 50 WHERE name = 'rides'");
+
+        String[] statuses = {"ACCEPTED", "ACCEPTED", "ACCEPTED", "PENDING", "REJECTED"};
+        List<Object[]> bookings = new ArrayList<>();
+        for (int i = 0; i < BOOKINGS; i++) {
+            long rideId = 1 + random.nextInt(RIDES);
+            long passengerId = DRIVERS + 1 + random.nextInt(PASSENGERS);
+            bookings.add(new Object[]{rideId, passengerId, 1L + random.nextInt(2), statuses[random.nextInt(statuses.length)]});
+        }
+        insert(jdbc, "INSERT INTO bookings (ride_id, passenger_id, seats_booked, status) VALUES (?, ?, ?, ?)", bookings);
+    }
+
+    private static void insert(JdbcTemplate jdbc, String sql, List<Object[]> rows) {
+        for (int from = 0; from < rows.size(); from += BATCH) {
+            jdbc.batchUpdate(sql, rows.subList(from, Math.min(from + BATCH, rows.size())));
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.example.CarpoolingProject.benchmark;
+
+import com.example.CarpoolingProject.dto.BookingRequestDTO;
+import com.example.CarpoolingProject.dto.BookingResponseDTO;
+import com.example.CarpoolingProject.service.BookingService;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// Every thread books one seat at a time on the same hot ride, so all writes contend on one row
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(8)
+@Fork(1)
+public class BookingBenchmark {
+
+    private BookingService bookingService;
+
+    @Setup
+    public void setUp() {
+        bookingService = BenchmarkApp.bean(BookingService.class);
+    }
+
+    @Benchmark
+    public BookingResponseDTO bookHotRide() {
+        BookingRequestDTO dto = new BookingRequestDTO();
+        dto.setRideId(BenchmarkApp.HOT_RIDE_ID);
+        dto.setSeats(1);
+
+        int passenger = ThreadLocalRandom.current().nextInt(BenchmarkApp.PASSENGERS);
+        return bookingService.bookRide(dto, BenchmarkApp.passengerEmail(passenger));
+    }
+}
@@ -0,0 +1,38 @@
+package com.example.CarpoolingProject.benchmark;
+
+import com.example.CarpoolingProject.dto.CursorPage;
+import com.example.CarpoolingProject.dto.DriverDashboardDTO;
+import com.example.CarpoolingProject.dto.PassengerDashboardDTO;
+import com.example.CarpoolingProject.service.DashboardService;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DashboardBenchmark {
+
+    private DashboardService dashboardService;
+
+    @Setup
+    public void setUp() {
+        dashboardService = BenchmarkApp.bean(DashboardService.class);
+    }
+
+    @Benchmark
+    public CursorPage<PassengerDashboardDTO> passengerUpcoming() {
+        int passenger = ThreadLocalRandom.current().nextInt(BenchmarkApp.PASSENGERS);
+        return dashboardService.getPassengerDashboard(BenchmarkApp.passengerEmail(passenger), true, null, 20);
+    }
+
+    @Benchmark
+    public CursorPage<DriverDashboardDTO> driverPast() {
+        int driver = ThreadLocalRandom.current().nextInt(BenchmarkApp.DRIVERS);
+        return dashboardService.getDriverDashboard(BenchmarkApp.driverEmail(driver), false, null, 20);
+    }
+}
@@ -0,0 +1,37 @@
+package com.example.CarpoolingProject.benchmark;
+
+import com.example.CarpoolingProject.dto.EarningsSummaryDTO;
+import com.example.CarpoolingProject.entity.EarningsPeriod;
+import com.example.CarpoolingProject.service.DriverService;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EarningsBenchmark {
+
+    private DriverService driverService;
+
+    @Setup
+    public void setUp() {
+        driverService = BenchmarkApp.bean(DriverService.class);
+    }
+
+    @Benchmark
+    public Double calculateEarnings() {
+        int driver = ThreadLocalRandom.current().nextInt(BenchmarkApp.DRIVERS);
+        return driverService.calculateEarnings(BenchmarkApp.driverEmail(driver));
+    }
+
+    @Benchmark
+    public EarningsSummaryDTO dailySeries() {
+        int driver = ThreadLocalRandom.current().nextInt(BenchmarkApp.DRIVERS);
+        return driverService.getEarningsSummary(BenchmarkApp.driverEmail(driver), EarningsPeriod.DAY, null, null);
+    }
+}
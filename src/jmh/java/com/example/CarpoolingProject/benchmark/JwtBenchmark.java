@@ -0,0 +1,45 @@
+package com.example.CarpoolingProject.benchmark;
+
+import com.example.CarpoolingProject.config.JwtUtil;
+import io.jsonwebtoken.Claims;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.concurrent.TimeUnit;
+
+// Pure CPU: no application context needed
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtBenchmark {
+
+    private JwtUtil jwtUtil;
+    private String token;
+    private UserDetails user;
+
+    @Setup
+    public void setUp() {
+        jwtUtil = new JwtUtil();
+        token = jwtUtil.generateToken(BenchmarkApp.passengerEmail(1));
+        user = User.withUsername(BenchmarkApp.passengerEmail(1)).password("x").roles("PASSENGER").build();
+    }
+
+    @Benchmark
+    public Claims parse() {
+        return jwtUtil.extractAllClaims(token);
+    }
+
+    @Benchmark
+    public Boolean parseAndValidate() {
+        return jwtUtil.validate(jwtUtil.extractAllClaims(token), user);
+    }
+
+    @Benchmark
+    public String generate() {
+        return jwtUtil.generateToken(BenchmarkApp.passengerEmail(1));
+    }
+}
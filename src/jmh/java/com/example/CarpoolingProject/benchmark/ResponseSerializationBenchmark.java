@@ -0,0 +1,80 @@
+package com.example.CarpoolingProject.benchmark;
+
+import com.example.CarpoolingProject.dto.BookingResponseDTO;
+import com.example.CarpoolingProject.dto.RideResponseDTO;
+import com.example.CarpoolingProject.service.BookingService;
+import com.example.CarpoolingProject.service.RideService;
+import com.example.CarpoolingProject.util.FieldSelector;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JSON serialization of response DTOs, full vs the default lean views, with the
+ * application's ObjectMapper. Scores are per result (RESULTS rows per invocation);
+ * bytes per result for each view are printed at setup.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ResponseSerializationBenchmark {
+
+    private static final int RESULTS = 50;
+
+    // full = ?fields=all, lean = the endpoint's default view
+    @Param({"full", "lean"})
+    public String view;
+
+    private List<RideResponseDTO> rides;
+    private List<BookingResponseDTO> bookings;
+    private ObjectWriter rideWriter;
+    private ObjectWriter bookingWriter;
+
+    @Setup
+    public void setUp() throws Exception {
+        ObjectMapper mapper = BenchmarkApp.bean(ObjectMapper.class);
+
+        rides = repeat(BenchmarkApp.bean(RideService.class)
+                .search(BenchmarkApp.POPULAR_SOURCE, BenchmarkApp.POPULAR_DESTINATION, LocalDate.now()));
+        bookings = repeat(BenchmarkApp.bean(BookingService.class)
+                .getBookingsByPassenger(BenchmarkApp.passengerEmail(0), null, RESULTS).getItems());
+
+        boolean full = "full".equals(view);
+        rideWriter = mapper.writer(FieldSelector.provider(full ? FieldSelector.ALL : RideResponseDTO.SEARCH_VIEW));
+        bookingWriter = mapper.writer(FieldSelector.provider(full ? FieldSelector.ALL : BookingResponseDTO.PASSENGER_VIEW));
+
+        System.out.printf("%n%s view: %d bytes per ride search result, %d bytes per booking%n", view,
+                rideWriter.writeValueAsBytes(rides).length / RESULTS,
+                bookingWriter.writeValueAsBytes(bookings).length / RESULTS);
+    }
+
+    // Fixed number of rows so every score divides by the same RESULTS
+    private static <T> List<T> repeat(List<T> rows) {
+        if (rows.isEmpty())
+            throw new RuntimeException("No seeded rows to serialize");
+        List<T> out = new ArrayList<>(RESULTS);
+        for (int i = 0; i < RESULTS; i++)
+            out.add(rows.get(i % rows.size()));
+        return out;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(RESULTS)
+    public byte[] rideSearchResults() throws Exception {
+        return rideWriter.writeValueAsBytes(rides);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(RESULTS)
+    public byte[] passengerBookings() throws Exception {
+        return bookingWriter.writeValueAsBytes(bookings);
+    }
+}
@@ -0,0 +1,64 @@
+package com.example.CarpoolingProject.benchmark;
+
+import com.example.CarpoolingProject.dto.LocationSuggestionDTO;
+import com.example.CarpoolingProject.dto.RideResponseDTO;
+import com.example.CarpoolingProject.dto.RideSearchDTO;
+import com.example.CarpoolingProject.dto.RideSort;
+import com.example.CarpoolingProject.service.LocationIndex;
+import com.example.CarpoolingProject.service.RideService;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RideSearchBenchmark {
+
+    private RideService rideService;
+    private LocationIndex locationIndex;
+    private RideSearchDTO morningWindow;
+
+    @Setup
+    public void setUp() {
+        rideService = BenchmarkApp.bean(RideService.class);
+        locationIndex = BenchmarkApp.bean(LocationIndex.class);
+
+        // Tomorrow 07:30-09:00 on the popular corridor, cheapest 20 with two free seats
+        LocalDate tomorrow = LocalDate.now().plusDays(1);
+        morningWindow = new RideSearchDTO();
+        morningWindow.setSource(BenchmarkApp.POPULAR_SOURCE);
+        morningWindow.setDestination(BenchmarkApp.POPULAR_DESTINATION);
+        morningWindow.setDepartFrom(tomorrow.atTime(7, 30));
+        morningWindow.setDepartTo(tomorrow.atTime(9, 0));
+        morningWindow.setSeatsRequested(2);
+        morningWindow.setSort(RideSort.PRICE);
+    }
+
+    @Benchmark
+    public List<RideResponseDTO> popularCorridorToday() {
+        return rideService.search(BenchmarkApp.POPULAR_SOURCE, BenchmarkApp.POPULAR_DESTINATION, LocalDate.now());
+    }
+
+    @Benchmark
+    public List<RideResponseDTO> rareCorridorTomorrow() {
+        String[] areas = BenchmarkApp.AREAS;
+        return rideService.search(areas[areas.length - 1], areas[areas.length - 2], LocalDate.now().plusDays(1));
+    }
+
+    @Benchmark
+    public List<RideResponseDTO> popularCorridorMorningWindow() {
+        return rideService.searchFiltered(morningWindow);
+    }
+
+    // One keystroke of the location autocomplete
+    @Benchmark
+    public List<LocationSuggestionDTO> locationSuggest() {
+        return locationIndex.suggest("ba", LocationIndex.MAX_SUGGESTIONS);
+    }
+}
@@ -0,0 +1,125 @@
+package com.example.CarpoolingProject.benchmark;
+
+import com.example.CarpoolingProject.config.JwtUtil;
+import org.openjdk.jmh.annotations.*;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Platform vs virtual request threads for the whole application, over HTTP.
+ *
+ * Each fork boots the seeded application behind Tomcat with spring.threads.virtual.enabled
+ * set to virtualThreads, all forks on the same fixed heap. An operation is a burst of
+ * `requests` calls, at most `clients` in flight (more than the 200 Tomcat threads of
+ * platform mode): 80% exact-match searches over random corridors and days and 20% bookings of
+ * one seat on the hot ride. Any non-2xx answer fails the run.
+ *
+ * Run: ./mvnw -P jmh -DskipTests verify -Djmh.args="ThreadMode"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(value = 1, jvmArgsAppend = {"-Xms512m", "-Xmx512m"})
+public class ThreadModeBenchmark {
+
+    @Param({"false", "true"})
+    public boolean virtualThreads;
+
+    @Param({"2000"})
+    public int requests;
+
+    @Param({"400"})
+    public int clients;
+
+    private final Random random = new Random(42);
+    private ExecutorService callers;
+    private HttpClient http;
+    private String baseUrl;
+    private String[] passengerTokens;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        BenchmarkApp.webContext("--spring.threads.virtual.enabled=" + virtualThreads);
+        baseUrl = "http://localhost:" + BenchmarkApp.serverPort();
+
+        JwtUtil jwt = BenchmarkApp.bean(JwtUtil.class);
+        passengerTokens = new String[BenchmarkApp.PASSENGERS];
+        for (int i = 0; i < passengerTokens.length; i++) {
+            passengerTokens[i] = jwt.generateToken(BenchmarkApp.passengerEmail(i));
+        }
+
+        // The load generator itself never runs out of threads, whichever mode the server is in
+        callers = Executors.newVirtualThreadPerTaskExecutor();
+        http = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .executor(callers)
+                .build();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        callers.shutdownNow();
+        BenchmarkApp.context().close();
+    }
+
+    @Benchmark
+    public int burst() throws Exception {
+        Semaphore inFlight = new Semaphore(clients);
+        AtomicInteger ok = new AtomicInteger();
+        List<CompletableFuture<Void>> calls = new ArrayList<>(requests);
+
+        for (int i = 0; i < requests; i++) {
+            HttpRequest request = nextRequest();
+            inFlight.acquire();
+            calls.add(http.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                    .thenAccept(response -> {
+                        if (response.statusCode() / 100 == 2)
+                            ok.incrementAndGet();
+                    })
+                    .whenComplete((v, ex) -> inFlight.release()));
+        }
+        CompletableFuture.allOf(calls.toArray(CompletableFuture[]::new)).join();
+
+        if (ok.get() != requests)
+            throw new IllegalStateException((requests - ok.get()) + " of " + requests + " requests failed");
+        return ok.get();
+    }
+
+    private HttpRequest nextRequest() {
+        if (random.nextInt(100) < 80) {
+            String[] areas = BenchmarkApp.AREAS;
+            int src = random.nextInt(areas.length);
+            int dst = (src + 1 + random.nextInt(areas.length - 1)) % areas.length;
+            LocalDate date = LocalDate.now().plusDays(random.nextInt(2 * BenchmarkApp.DAYS) - BenchmarkApp.DAYS);
+            String body = "{\"source\":\"" + areas[src] + "\",\"destination\":\"" + areas[dst] +
+                    "\",\"date\":\"" + date + "\"}";
+            return HttpRequest.newBuilder(URI.create(baseUrl + "/ride/search"))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(body))
+                    .build();
+        }
+
+        String token = passengerTokens[random.nextInt(passengerTokens.length)];
+        return HttpRequest.newBuilder(URI.create(baseUrl + "/booking/book"))
+                .header("Authorization", "Bearer " + token)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(
+                        "{\"rideId\":" + BenchmarkApp.HOT_RIDE_ID + ",\"seats\":1}"))
+                .build();
+    }
+}
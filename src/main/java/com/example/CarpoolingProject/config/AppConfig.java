@@ -1,15 +1,48 @@
 package com.example.CarpoolingProject.config;
 
+import com.example.CarpoolingProject.util.FieldSelector;
+import org.springframework.boot.autoconfigure.jackson.Jackson2ObjectMapperBuilderCustomizer;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
+import java.util.concurrent.TimeUnit;
+
 @Configuration
 public class AppConfig {
 
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(AppMetrics metrics) {
+        BCryptPasswordEncoder bcrypt = new BCryptPasswordEncoder();
+
+        // BCrypt is deliberately slow; time every password check made during login
+        return new PasswordEncoder() {
+            @Override
+            public String encode(CharSequence rawPassword) {
+                return bcrypt.encode(rawPassword);
+            }
+
+            @Override
+            public boolean matches(CharSequence rawPassword, String encodedPassword) {
+                long start = System.nanoTime();
+                try {
+                    return bcrypt.matches(rawPassword, encodedPassword);
+                } finally {
+                    metrics.passwordCheck.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                }
+            }
+
+            @Override
+            public boolean upgradeEncoding(String encodedPassword) {
+                return bcrypt.upgradeEncoding(encodedPassword);
+            }
+        };
+    }
+
+    // Response DTOs carry @JsonFilter for ?fields=; without a selection they serialize in full
+    @Bean
+    public Jackson2ObjectMapperBuilderCustomizer fieldSelectorDefaults() {
+        return builder -> builder.filters(FieldSelector.SERIALIZE_ALL);
     }
 }
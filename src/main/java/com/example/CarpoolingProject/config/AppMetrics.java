@@ -0,0 +1,102 @@
+package com.example.CarpoolingProject.config;
+
+import com.example.CarpoolingProject.repository.EmailOutboxRepository;
+import com.example.CarpoolingProject.service.BookingEventHub;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * All hot-path meters, registered once at startup. Callers only touch the
+ * pre-built Timer/Counter objects, so recording costs no registry lookups or
+ * tag allocation, just a clock read and a few atomic adds.
+ *
+ * Exposed at /actuator/metrics and /actuator/prometheus (management port).
+ * Hikari pool gauges (hikaricp.connections.*) and http.server.requests come
+ * from Spring Boot's own auto-configuration, as do the Hibernate statistics
+ * meters: hibernate.second.level.cache.requests and hibernate.query.cache.requests
+ * (tagged result=hit|miss) give the User cache hit ratios.
+ */
+@Component
+public class AppMetrics {
+
+    public final Timer bookRide;
+    public final Timer acceptBooking;
+    public final Timer rideSearch;
+    public final Timer rideSearchFiltered;
+    public final Timer jwtValidation;
+    public final Timer loadUser;
+    public final Timer passwordCheck;
+    public final Timer mailSend;
+
+    public final Counter oversellRejected;
+    public final Counter invalidToken;
+    public final Counter searchCacheHit;
+    public final Counter searchCacheMiss;
+    public final Counter coalescedSearch;
+    public final Counter coalescedRidesByDriver;
+    public final Counter coalescedBookingsByPassenger;
+    public final Counter holdsExpired;
+
+    public AppMetrics(MeterRegistry registry, EmailOutboxRepository outboxRepo, BookingEventHub bookingEvents) {
+        bookRide = timer(registry, "carpool.booking.book", "BookingService.bookRide");
+        acceptBooking = timer(registry, "carpool.booking.accept", "BookingService.acceptBooking");
+        rideSearch = timer(registry, "carpool.ride.search", "RideService.search");
+        rideSearchFiltered = timer(registry, "carpool.ride.search.filtered", "RideService.searchFiltered");
+        jwtValidation = timer(registry, "carpool.auth.jwt.validate", "JWT parse + validate on a principal cache miss");
+        loadUser = timer(registry, "carpool.auth.load-user", "UserService.loadUserByUsername");
+        passwordCheck = timer(registry, "carpool.auth.password-check", "BCrypt password match");
+        mailSend = timer(registry, "carpool.mail.send", "EmailService.sendEmail (SMTP round trip)");
+
+        oversellRejected = Counter.builder("carpool.booking.oversell.rejected")
+                .description("Bookings refused because the seats were already taken")
+                .register(registry);
+        invalidToken = Counter.builder("carpool.auth.jwt.invalid")
+                .description("Requests carrying an expired, malformed or mismatched JWT")
+                .register(registry);
+        searchCacheHit = Counter.builder("carpool.ride.search.cache")
+                .tag("result", "hit")
+                .register(registry);
+        searchCacheMiss = Counter.builder("carpool.ride.search.cache")
+                .tag("result", "miss")
+                .register(registry);
+        coalescedSearch = coalesced(registry, "ride.search");
+        coalescedRidesByDriver = coalesced(registry, "ride.by-driver");
+        coalescedBookingsByPassenger = coalesced(registry, "booking.by-passenger");
+        holdsExpired = Counter.builder("carpool.booking.hold.expired")
+                .description("PENDING bookings whose seat hold ran out before the driver answered")
+                .register(registry);
+
+        // Evaluated on scrape only, never on the request path
+        Gauge.builder("carpool.mail.backlog", outboxRepo,
+                        repo -> repo.countByStatusIn(List.of("PENDING", "SENDING")))
+                .description("Outbox messages waiting to be sent")
+                .register(registry);
+        Gauge.builder("carpool.booking.events.connections", bookingEvents, BookingEventHub::connectionCount)
+                .description("Open booking event streams on this node")
+                .register(registry);
+    }
+
+    // Callers that shared an identical in-flight call instead of querying themselves
+    private static Counter coalesced(MeterRegistry registry, String operation) {
+        return Counter.builder("carpool.coalesced")
+                .description("Calls answered by an identical in-flight call")
+                .tag("operation", operation)
+                .register(registry);
+    }
+
+    private static Timer timer(MeterRegistry registry, String name, String description) {
+        return Timer.builder(name)
+                .description(description)
+                .publishPercentileHistogram()
+                // JWT checks take tens of microseconds, SMTP can take seconds
+                .minimumExpectedValue(Duration.ofNanos(50_000))
+                .maximumExpectedValue(Duration.ofSeconds(30))
+                .register(registry);
+    }
+}
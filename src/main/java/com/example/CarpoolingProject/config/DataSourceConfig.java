@@ -0,0 +1,62 @@
+package com.example.CarpoolingProject.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.Map;
+
+/**
+ * Read/write split, only active when app.datasource.replica.jdbc-url is set.
+ *
+ * Work inside @Transactional(readOnly = true) reads from the replica pool; everything
+ * else, including Flyway and requests pinned by {@link ReadYourWrites}, uses the primary
+ * (spring.datasource.*). The router sits behind a LazyConnectionDataSourceProxy, so the
+ * pool is chosen at the first statement, after the transaction's read-only flag is set.
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.datasource.replica.jdbc-url")
+public class DataSourceConfig {
+
+    private static final String PRIMARY = "primary";
+    private static final String REPLICA = "replica";
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    // jdbc-url, username, password, driver-class-name and any other Hikari setting
+    @Bean
+    @ConfigurationProperties("app.datasource.replica")
+    public HikariDataSource replicaDataSource() {
+        return new HikariDataSource();
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(@Qualifier("primaryDataSource") DataSource primary,
+                                 @Qualifier("replicaDataSource") DataSource replica) {
+        AbstractRoutingDataSource router = new AbstractRoutingDataSource() {
+            @Override
+            protected Object determineCurrentLookupKey() {
+                return TransactionSynchronizationManager.isCurrentTransactionReadOnly()
+                        && !ReadYourWrites.isPinnedToPrimary() ? REPLICA : PRIMARY;
+            }
+        };
+        router.setTargetDataSources(Map.<Object, Object>of(PRIMARY, primary, REPLICA, replica));
+        router.setDefaultTargetDataSource(primary);
+        router.afterPropertiesSet();
+        return new LazyConnectionDataSourceProxy(router);
+    }
+}
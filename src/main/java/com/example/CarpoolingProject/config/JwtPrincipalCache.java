@@ -0,0 +1,107 @@
+package com.example.CarpoolingProject.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Date;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Verified JWT principals, keyed by a SHA-256 hash of the token.
+ *
+ * An entry lives until the token's own exp, so a cache hit skips both the signature
+ * check and the user lookup. Entries of a user are dropped explicitly when their
+ * password or role changes (see {@link #evictUserAfterCommit(String)}).
+ */
+@Component
+public class JwtPrincipalCache {
+
+    private static final class Entry {
+        private final UserDetails user;
+        private final long expiresAtMillis;
+
+        private Entry(UserDetails user, long expiresAtMillis) {
+            this.user = user;
+            this.expiresAtMillis = expiresAtMillis;
+        }
+    }
+
+    @Value("${jwt.cache.max-entries:100000}")
+    private int maxEntries;
+
+    private final ConcurrentHashMap<String, Entry> byToken = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Set<String>> tokensByEmail = new ConcurrentHashMap<>();
+
+    public String hash(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    public UserDetails get(String tokenHash) {
+        Entry entry = byToken.get(tokenHash);
+        if (entry == null)
+            return null;
+
+        if (entry.expiresAtMillis <= System.currentTimeMillis()) {
+            byToken.remove(tokenHash, entry);
+            return null;
+        }
+        return entry.user;
+    }
+
+    public void put(String tokenHash, UserDetails user, Date expiresAt) {
+        if (byToken.size() >= maxEntries) {
+            purgeExpired();
+            if (byToken.size() >= maxEntries)
+                return; // full of live tokens: fall back to parsing for this one
+        }
+
+        // Index by email first, so evictUser never misses a token that is already visible
+        tokensByEmail.computeIfAbsent(user.getUsername(), k -> ConcurrentHashMap.newKeySet()).add(tokenHash);
+        byToken.put(tokenHash, new Entry(user, expiresAt.getTime()));
+    }
+
+    // Called when a user's password or role changes. Runs once the change is committed (right away
+    // without a transaction): evicting earlier would let a concurrent request cache the old
+    // principal again before the new password is visible.
+    public void evictUserAfterCommit(String email) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    evictUser(email);
+                }
+            });
+        } else {
+            evictUser(email);
+        }
+    }
+
+    public void evictUser(String email) {
+        Set<String> hashes = tokensByEmail.remove(email);
+        if (hashes != null) {
+            hashes.forEach(byToken::remove);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${jwt.cache.purge-ms:60000}")
+    public void purgeExpired() {
+        long now = System.currentTimeMillis();
+        byToken.entrySet().removeIf(e -> e.getValue().expiresAtMillis <= now);
+        tokensByEmail.values().forEach(hashes -> hashes.removeIf(h -> !byToken.containsKey(h)));
+        tokensByEmail.values().removeIf(Set::isEmpty);
+    }
+}
@@ -1,6 +1,7 @@
 package com.example.CarpoolingProject.config;
 
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.security.Keys;
@@ -19,6 +20,11 @@ public class JwtUtil {
 
     private final SecretKey SECRET_KEY = Keys.hmacShaKeyFor(SECRET.getBytes());
 
+    // Immutable and thread-safe, so one parser is shared by all requests
+    private final JwtParser parser = Jwts.parserBuilder()
+            .setSigningKey(SECRET_KEY)
+            .build();
+
     public String extractEmail(String token) {
         return extractClaim(token, Claims::getSubject);
     }
@@ -32,21 +38,22 @@ public class JwtUtil {
         return claimsResolver.apply(claims);
     }
 
-    private Claims extractAllClaims(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(SECRET_KEY)
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
+    // Verifies the signature (and exp) once; callers reuse the returned claims
+    public Claims extractAllClaims(String token) {
+        return parser.parseClaimsJws(token).getBody();
     }
 
-    private Boolean isTokenExpired(String token) {
-        return extractExpiration(token).before(new Date());
+    private Boolean isTokenExpired(Claims claims) {
+        return claims.getExpiration().before(new Date());
     }
 
     public Boolean validate(String token, UserDetails userDetails) {
-        final String email = extractEmail(token);
-        return (email.equals(userDetails.getUsername()) && !isTokenExpired(token));
+        return validate(extractAllClaims(token), userDetails);
+    }
+
+    public Boolean validate(Claims claims, UserDetails userDetails) {
+        final String email = claims.getSubject();
+        return (email.equals(userDetails.getUsername()) && !isTokenExpired(claims));
     }
 
     public String generateToken(String email) {
@@ -0,0 +1,122 @@
+package com.example.CarpoolingProject.config;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Supplier;
+
+/**
+ * Read-your-writes on top of the replica routing (see DataSourceConfig). Users whose
+ * bookings or rides changed in the last window are remembered, and their requests
+ * read from the primary until the replica has had time to catch up.
+ *
+ * Registered as a request interceptor (see WebConfig): it runs after the JWT filter,
+ * so the caller is known, and pins the request thread for the whole request.
+ *
+ * Each mark also bumps the user's write generation. Coalesced per-user reads put it in their
+ * flight key, so a read that starts after a commit never joins one that started before it.
+ */
+@Component
+public class ReadYourWrites implements HandlerInterceptor {
+
+    private static final ThreadLocal<Boolean> PINNED = new ThreadLocal<>();
+
+    private static final int STRIPES = 1024;
+
+    @Value("${app.datasource.read-your-writes-ms:5000}")
+    private long windowMillis;
+
+    // email -> until when their reads stay on the primary (epoch millis)
+    private final ConcurrentHashMap<String, Long> recentWriters = new ConcurrentHashMap<>();
+
+    // Write generations, by email hash: bounded, and a bump only costs other users of the
+    // stripe one extra query
+    private final AtomicLongArray generations = new AtomicLongArray(STRIPES);
+
+    // True while the current request must not read from the replica
+    public static boolean isPinnedToPrimary() {
+        return Boolean.TRUE.equals(PINNED.get());
+    }
+
+    // Runs body with this thread's reads on the primary, e.g. right after it wrote rows it is
+    // about to read back (see RideSearchCache loads and RideService filtered search)
+    public static <T> T onPrimary(Supplier<T> body) {
+        Boolean previous = PINNED.get();
+        PINNED.set(Boolean.TRUE);
+        try {
+            return body.get();
+        } finally {
+            if (previous == null)
+                PINNED.remove();
+            else
+                PINNED.set(previous);
+        }
+    }
+
+    // ---------------- MARK ----------------
+    // Starts the window once the current transaction commits (right away without one)
+    public void markAfterCommit(String... emails) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    mark(emails);
+                }
+            });
+        } else {
+            mark(emails);
+        }
+    }
+
+    public void mark(String... emails) {
+        long until = System.currentTimeMillis() + windowMillis;
+        for (String email : emails) {
+            if (email != null) {
+                generations.incrementAndGet(stripe(email));
+                recentWriters.put(email, until);
+            }
+        }
+    }
+
+    // Changes whenever a write of this user commits (see markAfterCommit)
+    public long generation(String email) {
+        return generations.get(stripe(email));
+    }
+
+    private static int stripe(String email) {
+        return (email.hashCode() & 0x7fffffff) % STRIPES;
+    }
+
+    // ---------------- PIN ----------------
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        if (auth != null) {
+            Long until = recentWriters.get(auth.getName());
+            if (until != null && until > System.currentTimeMillis())
+                PINNED.set(Boolean.TRUE);
+        }
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        PINNED.remove();
+    }
+
+    @Scheduled(fixedDelayString = "${app.datasource.read-your-writes-purge-ms:60000}")
+    public void purgeExpired() {
+        long now = System.currentTimeMillis();
+        recentWriters.values().removeIf(until -> until <= now);
+    }
+}
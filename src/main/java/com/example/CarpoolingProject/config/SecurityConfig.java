@@ -1,6 +1,8 @@
 package com.example.CarpoolingProject.config;
 
+import com.example.CarpoolingProject.dto.CursorPage;
 import com.example.CarpoolingProject.service.UserService;
+import jakarta.servlet.DispatcherType;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -37,6 +39,7 @@ public class SecurityConfig {
         config.setAllowedOrigins(List.of("http://localhost:3000"));
         config.setAllowedMethods(Arrays.asList("GET", "POST", "PUT", "DELETE", "OPTIONS"));
         config.setAllowedHeaders(List.of("*"));
+        config.setExposedHeaders(List.of(CursorPage.NEXT_CURSOR_HEADER));
         config.setAllowCredentials(true);
 
         UrlBasedCorsConfigurationSource source = new UrlBasedCorsConfigurationSource();
@@ -54,6 +57,9 @@ public class SecurityConfig {
                 .cors(cors -> cors.configurationSource(corsConfigurationSource()))
                 .authorizeHttpRequests(auth -> auth
 
+                        // Completion of an already authorized async request (SSE streams)
+                        .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
+
                         // PUBLIC ROUTES
                         .requestMatchers(
                                 "/auth/register",
@@ -61,11 +67,15 @@ public class SecurityConfig {
                                 "/auth/send-otp",
                                 "/auth/verify-otp",
                                 "/ride/search",
+                                "/ride/locations/suggest",
                                 "/ride/all",
                                 "/user/forgot-password",
                                 "/user/reset-password"
                         ).permitAll()
 
+                        // Actuator, only served on the internal management port
+                        .requestMatchers("/actuator/**").permitAll()
+
                         // Allow all browser preflight OPTIONS requests
                         .requestMatchers(org.springframework.http.HttpMethod.OPTIONS, "/**").permitAll()
 
@@ -0,0 +1,90 @@
+package com.example.CarpoolingProject.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordedStackTrace;
+import jdk.jfr.consumer.RecordingStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Reports virtual threads that block while pinned to their carrier (inside synchronized code or
+ * a native frame). A pinned thread holds one of the few carrier threads for the whole wait, so a
+ * few of them in a hot path bring back the thread-pool ceiling that virtual threads removed.
+ *
+ * Streams the JDK's own jdk.VirtualThreadPinned JFR events in-process, only for pins longer than
+ * vthreads.pinning.threshold-ms, counts them in carpool.vthreads.pinned and logs where they came
+ * from. Only active with spring.threads.virtual.enabled=true.
+ */
+@Component
+@ConditionalOnProperty(name = "spring.threads.virtual.enabled", havingValue = "true")
+public class VirtualThreadPinningMonitor implements SmartLifecycle {
+
+    private static final Logger log = LoggerFactory.getLogger(VirtualThreadPinningMonitor.class);
+
+    private static final String EVENT = "jdk.VirtualThreadPinned";
+    private static final int LOGGED_FRAMES = 5;
+
+    private final Counter pinned;
+    private final Duration threshold;
+    private volatile RecordingStream stream;
+
+    public VirtualThreadPinningMonitor(MeterRegistry registry,
+                                       @Value("${vthreads.pinning.threshold-ms:20}") long thresholdMs) {
+        this.pinned = Counter.builder("carpool.vthreads.pinned")
+                .description("Virtual threads that blocked while pinned to their carrier for longer than the threshold")
+                .register(registry);
+        this.threshold = Duration.ofMillis(thresholdMs);
+    }
+
+    @Override
+    public void start() {
+        RecordingStream rs = new RecordingStream();
+        rs.enable(EVENT).withThreshold(threshold).withStackTrace();
+        rs.onEvent(EVENT, this::onPinned);
+        rs.startAsync();
+        stream = rs;
+        log.info("Watching for virtual threads pinned longer than {} ms", threshold.toMillis());
+    }
+
+    @Override
+    public void stop() {
+        RecordingStream rs = stream;
+        stream = null;
+        if (rs != null)
+            rs.close();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return stream != null;
+    }
+
+    private void onPinned(RecordedEvent event) {
+        pinned.increment();
+        log.warn("Virtual thread pinned for {} ms:{}", event.getDuration().toMillis(), topFrames(event.getStackTrace()));
+    }
+
+    private static String topFrames(RecordedStackTrace trace) {
+        if (trace == null)
+            return " (no stack trace)";
+        StringBuilder sb = new StringBuilder();
+        List<RecordedFrame> frames = trace.getFrames();
+        for (int i = 0; i < Math.min(LOGGED_FRAMES, frames.size()); i++) {
+            RecordedFrame f = frames.get(i);
+            sb.append("\n\tat ").append(f.getMethod().getType().getName())
+                    .append('.').append(f.getMethod().getName())
+                    .append(':').append(f.getLineNumber());
+        }
+        return sb.toString();
+    }
+}
@@ -2,16 +2,16 @@ package com.example.CarpoolingProject.controller;
 
 import com.example.CarpoolingProject.dto.LoginDTO;
 import com.example.CarpoolingProject.dto.RegisterDTO;
+import com.example.CarpoolingProject.dto.UserProfileDTO;
 import com.example.CarpoolingProject.entity.User;
 import com.example.CarpoolingProject.repository.UserRepository;
+import com.example.CarpoolingProject.service.OtpService;
 import com.example.CarpoolingProject.service.UserService;
 import com.example.CarpoolingProject.config.JwtUtil;
 
 import jakarta.servlet.http.HttpSession;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
-import org.springframework.mail.SimpleMailMessage;
-import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.crypto.password.PasswordEncoder;
@@ -19,7 +19,6 @@ import org.springframework.web.bind.annotation.*;
 
 import java.util.HashMap;
 import java.util.Map;
-import java.util.Random;
 
 @RestController
 @RequestMapping("/auth")
@@ -35,7 +34,7 @@ public class AuthController {
     private JwtUtil jwtUtil;
 
     @Autowired
-    private JavaMailSender mailSender;
+    private OtpService otpService;
 
     @Autowired
     private AuthenticationManager authenticationManager;
@@ -43,9 +42,6 @@ public class AuthController {
     @Autowired
     private PasswordEncoder passwordEncoder;
 
-    // Temporary in-memory OTP store
-    private Map<String, String> otpStore = new HashMap<>();
-
     // ---------------- REGISTER ----------------
     @PostMapping("/register")
     public Map<String, Object> register(@RequestBody RegisterDTO dto, HttpSession session) {
@@ -63,7 +59,7 @@ public class AuthController {
         Map<String, Object> response = new HashMap<>();
         response.put("message", "Registration successful");
         response.put("token", token);
-        response.put("user", user);
+        response.put("user", UserProfileDTO.from(user));
 
         return response;
     }
@@ -87,7 +83,7 @@ public class AuthController {
             Map<String, Object> response = new HashMap<>();
             response.put("token", token);
             response.put("message", "Login successful");
-            response.put("user", user);
+            response.put("user", UserProfileDTO.from(user));
 
             return ResponseEntity.ok(response);
         } catch (Exception e) {
@@ -108,21 +104,8 @@ public class AuthController {
         User user = userRepository.findByEmail(normalizedEmail)
                 .orElseThrow(() -> new RuntimeException("User not found. Please register."));
 
-        // Generate 6-digit OTP
-        String otp = String.valueOf(100000 + new Random().nextInt(900000));
-        otpStore.put(normalizedEmail, otp);
-
-        // Send OTP email
-        SimpleMailMessage message = new SimpleMailMessage();
-        message.setTo(normalizedEmail);
-        message.setSubject("Your OTP for SmartRide App");
-        message.setText("Your OTP is: " + otp + "\nIt is valid for 10 minutes.");
-
-        try {
-            mailSender.send(message);
-        } catch (Exception e) {
-            throw new RuntimeException("Failed to send OTP: " + e.getMessage());
-        }
+        // Generate 6-digit OTP and queue its email (rate-limited per address)
+        otpService.sendOtp(normalizedEmail, OtpService.LOGIN, "Your OTP for SmartRide App");
 
         Map<String, String> response = new HashMap<>();
         response.put("message", "OTP sent successfully");
@@ -141,13 +124,10 @@ public class AuthController {
 
         String normalizedEmail = email.toLowerCase();
 
-        String savedOtp = otpStore.get(normalizedEmail);
-        if (savedOtp == null || !savedOtp.equals(otp)) {
+        if (!otpService.verifyOtp(normalizedEmail, otp, OtpService.LOGIN)) {
             throw new RuntimeException("Invalid or expired OTP");
         }
 
-        otpStore.remove(normalizedEmail);
-
         User user = userRepository.findByEmail(normalizedEmail)
                 .orElseThrow(() -> new RuntimeException("User not found. Please register."));
 
@@ -157,7 +137,7 @@ public class AuthController {
         Map<String, Object> response = new HashMap<>();
         response.put("token", token);
         response.put("message", "OTP verified. Login successful.");
-        response.put("user", user);
+        response.put("user", UserProfileDTO.from(user));
 
         return response;
     }
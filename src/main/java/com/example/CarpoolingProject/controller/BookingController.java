@@ -1,14 +1,18 @@
 package com.example.CarpoolingProject.controller;
 
 import com.example.CarpoolingProject.dto.BookingRequestDTO;
-import com.example.CarpoolingProject.entity.Booking;
-import com.example.CarpoolingProject.config.JwtUtil;
+import com.example.CarpoolingProject.dto.BookingResponseDTO;
+import com.example.CarpoolingProject.service.BookingEventHub;
 import com.example.CarpoolingProject.service.BookingService;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.json.MappingJacksonValue;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.bind.annotation.*;
-
-import java.util.List;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 @RestController
 @RequestMapping("/booking")
@@ -19,66 +23,54 @@ public class BookingController {
     private BookingService service;
 
     @Autowired
-    private JwtUtil jwtUtil;
+    private BookingEventHub events;
 
     // Book a ride
     @PostMapping("/book")
-    public Booking book(@RequestBody BookingRequestDTO dto,
-                        @RequestHeader("Authorization") String authHeader) {
-
-        if (authHeader == null || !authHeader.startsWith("Bearer")) {
-            throw new RuntimeException("Invalid Authorization header");
-        }
-
-        String token = authHeader.replace("Bearer", "").trim();
-        String email = jwtUtil.extractEmail(token);
-
-        return service.bookRide(dto, email);
+    public BookingResponseDTO book(@RequestBody BookingRequestDTO dto,
+                        @AuthenticationPrincipal UserDetails principal) {
+        return service.bookRide(dto, principal.getUsername());
     }
 
-    // Get all bookings for the authenticated passenger
+    // Bookings of the authenticated passenger, newest ride first.
+    // Paginated: pass the X-Next-Cursor header of a response as ?cursor= to get the next page.
+    // Lean view by default; ?fields=a,b.c picks other fields, ?fields=all returns everything
     @GetMapping("/my-book")
-    public List<Booking> getMyBookings(@RequestHeader("Authorization") String authHeader) {
-        if (authHeader == null || !authHeader.startsWith("Bearer")) {
-            throw new RuntimeException("Invalid Authorization header");
-        }
-
-        String token = authHeader.replace("Bearer", "").trim();
-        String email = jwtUtil.extractEmail(token);
+    public ResponseEntity<MappingJacksonValue> getMyBookings(@AuthenticationPrincipal UserDetails principal,
+                                                             @RequestParam(required = false) String cursor,
+                                                             @RequestParam(defaultValue = "50") int size,
+                                                             @RequestParam(required = false) String fields) {
+        return service.getBookingsByPassenger(principal.getUsername(), cursor, size)
+                .toResponse(fields, BookingResponseDTO.PASSENGER_VIEW);
+    }
 
-        return service.getBookingsByPassenger(email);
+    // Live booking changes for the authenticated user (as passenger and as driver), as Server-Sent Events.
+    // Replaces polling /booking/my-book and /ride/booking-requests; after a reconnect the
+    // Last-Event-ID header resumes the stream, or a "resync" event asks for one full reload.
+    @GetMapping(path = "/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter events(@AuthenticationPrincipal UserDetails principal,
+                             @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+        return events.subscribe(principal.getUsername(), lastEventId);
     }
 
     // Cancel a booking
     @DeleteMapping("/cancel/{bookingId}")
     public String cancelBooking(@PathVariable Long bookingId,
-                                @RequestHeader("Authorization") String authHeader) {
-        if (authHeader == null || !authHeader.startsWith("Bearer")) {
-            throw new RuntimeException("Invalid Authorization header");
-        }
-
-        String token = authHeader.replace("Bearer", "").trim();
-        String email = jwtUtil.extractEmail(token);
-
-        service.cancelBooking(bookingId, email);
+                                @AuthenticationPrincipal UserDetails principal) {
+        service.cancelBooking(bookingId, principal.getUsername());
         return "Booking cancelled successfully";
     }
 
     // ===== New: Driver accept/reject booking =====
     @PostMapping("/bookings/{bookingId}/{action}")
-    public Booking handleBookingAction(
+    public BookingResponseDTO handleBookingAction(
             @PathVariable Long bookingId,
             @PathVariable String action,
-            @RequestHeader("Authorization") String authHeader) {
-
-        if (authHeader == null || !authHeader.startsWith("Bearer")) {
-            throw new RuntimeException("Invalid Authorization header");
-        }
+            @AuthenticationPrincipal UserDetails principal) {
 
-        String token = authHeader.replace("Bearer", "").trim();
-        String email = jwtUtil.extractEmail(token);
+        String email = principal.getUsername();
 
-        Booking updatedBooking;
+        BookingResponseDTO updatedBooking;
         if ("accept".equalsIgnoreCase(action)) {
             updatedBooking = service.acceptBooking(bookingId, email);
         } else if ("reject".equalsIgnoreCase(action)) {
@@ -1,13 +1,13 @@
 package com.example.CarpoolingProject.controller;
 
-import com.example.CarpoolingProject.entity.Booking;
-import com.example.CarpoolingProject.entity.Ride;
-import com.example.CarpoolingProject.service.BookingService;
-import com.example.CarpoolingProject.service.RideService;
-import com.example.CarpoolingProject.service.UserService;
-import com.example.CarpoolingProject.config.JwtUtil;
+import com.example.CarpoolingProject.dto.DriverDashboardDTO;
+import com.example.CarpoolingProject.dto.PassengerDashboardDTO;
+import com.example.CarpoolingProject.service.DashboardService;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
@@ -17,37 +17,34 @@ import java.util.List;
 public class DashboardController {
 
     @Autowired
-    private RideService rideService;
-
-    @Autowired
-    private BookingService bookingService;
-
-    @Autowired
-    private UserService userService;
-
-    @Autowired
-    private JwtUtil jwtUtil;
+    private DashboardService dashboardService;
 
     // ---------------- PASSENGER DASHBOARD ----------------
+    // when = upcoming | past; next page via ?cursor= from the X-Next-Cursor header
     @GetMapping("/passenger")
-    public List<Booking> passengerDashboard(@RequestHeader("Authorization") String authHeader) {
-        String email = extractEmail(authHeader);
-        return bookingService.getBookingsByPassenger(email); // ✅ instance method
+    public ResponseEntity<List<PassengerDashboardDTO>> passengerDashboard(@AuthenticationPrincipal UserDetails principal,
+                                                                          @RequestParam(defaultValue = "upcoming") String when,
+                                                                          @RequestParam(required = false) String cursor,
+                                                                          @RequestParam(defaultValue = "20") int size) {
+        return dashboardService.getPassengerDashboard(principal.getUsername(), isUpcoming(when), cursor, size)
+                .toResponse();
     }
 
     // ---------------- DRIVER DASHBOARD ----------------
+    // when = upcoming | past; next page via ?cursor= from the X-Next-Cursor header
     @GetMapping("/driver")
-    public List<Ride> driverDashboard(@RequestHeader("Authorization") String authHeader) {
-        String email = extractEmail(authHeader);
-        return rideService.getRidesByDriver(email); // ✅ instance method
+    public ResponseEntity<List<DriverDashboardDTO>> driverDashboard(@AuthenticationPrincipal UserDetails principal,
+                                                                    @RequestParam(defaultValue = "upcoming") String when,
+                                                                    @RequestParam(required = false) String cursor,
+                                                                    @RequestParam(defaultValue = "20") int size) {
+        return dashboardService.getDriverDashboard(principal.getUsername(), isUpcoming(when), cursor, size)
+                .toResponse();
     }
 
     // ---------------- HELPER ----------------
-    private String extractEmail(String authHeader) {
-        if (authHeader == null || !authHeader.startsWith("Bearer ")) {
-            throw new RuntimeException("Invalid Authorization header");
-        }
-        String token = authHeader.substring(7); // Remove "Bearer "
-        return jwtUtil.extractEmail(token);
+    private boolean isUpcoming(String when) {
+        if ("upcoming".equalsIgnoreCase(when)) return true;
+        if ("past".equalsIgnoreCase(when)) return false;
+        throw new RuntimeException("Invalid dashboard filter: " + when);
     }
 }
@@ -1,16 +1,24 @@
 package com.example.CarpoolingProject.controller;
 
+import com.example.CarpoolingProject.dto.EarningsSummaryDTO;
 import com.example.CarpoolingProject.dto.RideDTO;
+import com.example.CarpoolingProject.dto.RideResponseDTO;
+import com.example.CarpoolingProject.dto.RideTemplateDTO;
 import com.example.CarpoolingProject.dto.VehicleDTO;
-import com.example.CarpoolingProject.entity.Ride;
+import com.example.CarpoolingProject.entity.EarningsPeriod;
 import com.example.CarpoolingProject.entity.User;
 import com.example.CarpoolingProject.service.DriverService;
-import com.example.CarpoolingProject.config.JwtUtil;
+import com.example.CarpoolingProject.service.RideTemplateService;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.json.MappingJacksonValue;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.bind.annotation.*;
 
-import jakarta.servlet.http.HttpServletRequest;
+import java.time.LocalDate;
 import java.util.List;
 
 @RestController
@@ -22,22 +30,12 @@ public class DriverController {
     private DriverService driverService;
 
     @Autowired
-    private JwtUtil jwtUtil;
-
-    // ---------------- JWT EXTRACTOR ----------------
-    private String extractToken(HttpServletRequest request) {
-        String header = request.getHeader("Authorization");
-        if (header != null && header.startsWith("Bearer ")) {
-            return header.substring(7);
-        }
-        throw new RuntimeException("Missing or invalid Authorization header");
-    }
+    private RideTemplateService rideTemplateService;
 
     // ---------------- GET DRIVER VEHICLE ----------------
     @GetMapping("/vehicle")
-    public VehicleDTO getVehicle(HttpServletRequest request) {
-        String token = extractToken(request);
-        String email = jwtUtil.extractEmail(token);
+    public VehicleDTO getVehicle(@AuthenticationPrincipal UserDetails principal) {
+        String email = principal.getUsername();
         User user = driverService.getDriverByEmail(email);
 
         return new VehicleDTO(
@@ -50,9 +48,8 @@ public class DriverController {
 
     // ---------------- ADD / UPDATE VEHICLE ----------------
     @PutMapping("/vehicle")
-    public VehicleDTO updateVehicle(HttpServletRequest request, @RequestBody VehicleDTO dto) {
-        String token = extractToken(request);
-        String email = jwtUtil.extractEmail(token);
+    public VehicleDTO updateVehicle(@AuthenticationPrincipal UserDetails principal, @RequestBody VehicleDTO dto) {
+        String email = principal.getUsername();
 
         User updatedUser = driverService.updateVehicle(
                 email,
@@ -71,25 +68,60 @@ public class DriverController {
 
     // ---------------- DRIVER POSTS A NEW RIDE ----------------
     @PostMapping("/ride")
-    public Ride postRide(HttpServletRequest request, @RequestBody RideDTO dto) {
-        String token = extractToken(request);
-        String email = jwtUtil.extractEmail(token);
+    public RideResponseDTO postRide(@AuthenticationPrincipal UserDetails principal, @RequestBody RideDTO dto) {
+        String email = principal.getUsername();
         return driverService.postRide(email, dto);
     }
 
+    // ---------------- RECURRING RIDES ----------------
+    // daysOfWeek = ["MONDAY", ...]; rides are generated from the template (see RideTemplateService)
+    @PostMapping("/ride-templates")
+    public RideTemplateDTO createRideTemplate(@AuthenticationPrincipal UserDetails principal,
+                                              @RequestBody RideTemplateDTO dto) {
+        return rideTemplateService.create(principal.getUsername(), dto);
+    }
+
+    @GetMapping("/ride-templates")
+    public List<RideTemplateDTO> getRideTemplates(@AuthenticationPrincipal UserDetails principal) {
+        return rideTemplateService.getTemplates(principal.getUsername());
+    }
+
+    // Stops generating new rides; rides already generated are kept
+    @DeleteMapping("/ride-templates/{id}")
+    public RideTemplateDTO deactivateRideTemplate(@AuthenticationPrincipal UserDetails principal,
+                                                  @PathVariable Long id) {
+        return rideTemplateService.deactivate(id, principal.getUsername());
+    }
+
     // ---------------- LIST RIDES CREATED BY DRIVER ----------------
+    // Newest first, paginated: pass the X-Next-Cursor header of a response as ?cursor=
+    // Lean view by default; ?fields=a,b.c picks other fields, ?fields=all returns everything
     @GetMapping("/rides")
-    public List<Ride> getRides(HttpServletRequest request) {
-        String token = extractToken(request);
-        String email = jwtUtil.extractEmail(token);
-        return driverService.getRidesByDriver(email);
+    public ResponseEntity<MappingJacksonValue> getRides(@AuthenticationPrincipal UserDetails principal,
+                                                        @RequestParam(required = false) String cursor,
+                                                        @RequestParam(defaultValue = "50") int size,
+                                                        @RequestParam(required = false) String fields) {
+        String email = principal.getUsername();
+        return driverService.getRidesByDriver(email, cursor, size).toResponse(fields, RideResponseDTO.DRIVER_VIEW);
     }
 
     // ---------------- DRIVER EARNINGS ----------------
     @GetMapping("/earnings")
-    public Double getEarnings(HttpServletRequest request) {
-        String token = extractToken(request);
-        String email = jwtUtil.extractEmail(token);
+    public Double getEarnings(@AuthenticationPrincipal UserDetails principal) {
+        String email = principal.getUsername();
         return driverService.calculateEarnings(email);
     }
+
+    // ---------------- DRIVER EARNINGS SUMMARY ----------------
+    // period = DAY | WEEK | MONTH, from/to = yyyy-MM-dd (optional)
+    @GetMapping("/earnings/summary")
+    public EarningsSummaryDTO getEarningsSummary(@AuthenticationPrincipal UserDetails principal,
+                                                 @RequestParam(defaultValue = "DAY") EarningsPeriod period,
+                                                 @RequestParam(required = false)
+                                                 @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                                 @RequestParam(required = false)
+                                                 @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        String email = principal.getUsername();
+        return driverService.getEarningsSummary(email, period, from, to);
+    }
 }
@@ -1,41 +1,38 @@
 package com.example.CarpoolingProject.controller;
 
-import com.example.CarpoolingProject.entity.Booking;
-import com.example.CarpoolingProject.entity.User;
-import com.example.CarpoolingProject.repository.BookingRepository;
-import com.example.CarpoolingProject.repository.UserRepository;
-import com.example.CarpoolingProject.config.JwtUtil;
+import com.example.CarpoolingProject.dto.BookingResponseDTO;
+import com.example.CarpoolingProject.service.BookingService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.json.MappingJacksonValue;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.bind.annotation.*;
 
-import java.util.List;
-
 @RestController
 @RequestMapping("/passenger")
 public class PassengerController {
 
     @Autowired
-    private BookingRepository bookingRepo;
-
-    @Autowired
-    private UserRepository userRepo;
-
-    @Autowired
-    private JwtUtil jwtUtil;
+    private BookingService bookingService;
 
+    // Both newest ride first, paginated: pass the X-Next-Cursor header of a response as ?cursor=
+    // Lean view by default; ?fields=a,b.c picks other fields, ?fields=all returns everything
     @GetMapping("/history")
-    public List<Booking> getRideHistory(@RequestHeader("Authorization") String token) {
-        String email = jwtUtil.extractEmail(token);
-        User passenger = userRepo.findByEmail(email)
-                .orElseThrow(() -> new RuntimeException("Passenger not found"));
-        return bookingRepo.findByPassenger(passenger);
+    public ResponseEntity<MappingJacksonValue> getRideHistory(@AuthenticationPrincipal UserDetails principal,
+                                                              @RequestParam(required = false) String cursor,
+                                                              @RequestParam(defaultValue = "50") int size,
+                                                              @RequestParam(required = false) String fields) {
+        return bookingService.getBookingsByPassenger(principal.getUsername(), cursor, size)
+                .toResponse(fields, BookingResponseDTO.PASSENGER_VIEW);
     }
 
     @GetMapping("/dashboard")
-    public List<Booking> getPassengerBookings(@RequestHeader("Authorization") String token) {
-        String email = jwtUtil.extractEmail(token);
-        User passenger = userRepo.findByEmail(email)
-                .orElseThrow(() -> new RuntimeException("Passenger not found"));
-        return bookingRepo.findByPassenger(passenger);
+    public ResponseEntity<MappingJacksonValue> getPassengerBookings(@AuthenticationPrincipal UserDetails principal,
+                                                                    @RequestParam(required = false) String cursor,
+                                                                    @RequestParam(defaultValue = "50") int size,
+                                                                    @RequestParam(required = false) String fields) {
+        return bookingService.getBookingsByPassenger(principal.getUsername(), cursor, size)
+                .toResponse(fields, BookingResponseDTO.PASSENGER_VIEW);
     }
 }
@@ -1,10 +1,12 @@
 package com.example.CarpoolingProject.controller;
 
 import com.example.CarpoolingProject.entity.Payment;
-import com.example.CarpoolingProject.config.JwtUtil;
 import com.example.CarpoolingProject.service.PaymentService;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
@@ -17,19 +19,11 @@ public class PaymentController {
     @Autowired
     private PaymentService service;
 
-    @Autowired
-    private JwtUtil jwtUtil;
-
+    // Newest first, paginated: pass the X-Next-Cursor header of a response as ?cursor=
     @GetMapping("/my")
-    public List<Payment> getMyPayments(@RequestHeader("Authorization") String authHeader) {
-
-        if (authHeader == null || !authHeader.startsWith("Bearer")) {
-            throw new RuntimeException("Invalid Authorization header");
-        }
-
-        String token = authHeader.replace("Bearer", "").trim();
-        String email = jwtUtil.extractEmail(token);
-
-        return service.getPaymentsByEmail(email);
+    public ResponseEntity<List<Payment>> getMyPayments(@AuthenticationPrincipal UserDetails principal,
+                                                       @RequestParam(required = false) String cursor,
+                                                       @RequestParam(defaultValue = "50") int size) {
+        return service.getPaymentsByEmail(principal.getUsername(), cursor, size).toResponse();
     }
 }
@@ -1,17 +1,26 @@
 package com.example.CarpoolingProject.controller;
 
+import com.example.CarpoolingProject.dto.BookingResponseDTO;
+import com.example.CarpoolingProject.dto.LocationSuggestionDTO;
 import com.example.CarpoolingProject.dto.RideRequestDTO;
+import com.example.CarpoolingProject.dto.RideResponseDTO;
 import com.example.CarpoolingProject.dto.RideSearchDTO;
-import com.example.CarpoolingProject.entity.Ride;
-import com.example.CarpoolingProject.entity.Booking;
 import com.example.CarpoolingProject.service.RideService;
 import com.example.CarpoolingProject.service.BookingService;
-import com.example.CarpoolingProject.config.JwtUtil;
+import com.example.CarpoolingProject.service.LocationIndex;
+import com.example.CarpoolingProject.service.RideLegInventory;
+import com.example.CarpoolingProject.util.FieldSelector;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.json.MappingJacksonValue;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/ride")
@@ -25,51 +34,86 @@ public class RideController {
     private BookingService bookingService;
 
     @Autowired
-    private JwtUtil jwtUtil;
+    private RideLegInventory legInventory;
+
+    @Autowired
+    private LocationIndex locationIndex;
 
     // ---------------- POST RIDE ----------------
     @PostMapping("/post")
-    public Ride postRide(@RequestBody RideRequestDTO dto,
-                         @RequestHeader("Authorization") String authHeader) {
-
-        if (authHeader == null || !authHeader.startsWith("Bearer ")) {
-            throw new RuntimeException("Invalid Authorization header");
-        }
-
-        String token = authHeader.substring(7);
-        String email = jwtUtil.extractEmail(token);
-
-        return rideService.postRide(dto, email);
+    public RideResponseDTO postRide(@RequestBody RideRequestDTO dto,
+                         @AuthenticationPrincipal UserDetails principal) {
+        return rideService.postRide(dto, principal.getUsername());
     }
 
     // ---------------- SEARCH RIDES ----------------
+    // Public route (see SecurityConfig), so no token is parsed here.
+    // With all four coordinates set this is a radius search. With a departure window, price cap,
+    // sort or limit it is a filtered search; otherwise an exact name match on one date.
+    // Results use the compact card view; ?fields=a,b.c picks other fields, ?fields=all returns everything
     @PostMapping("/search")
-    public List<Ride> search(@RequestBody RideSearchDTO dto,
-                             @RequestHeader("Authorization") String authHeader) {
-
-        if (authHeader == null || !authHeader.startsWith("Bearer ")) {
-            throw new RuntimeException("Invalid Authorization header");
+    public MappingJacksonValue search(@RequestBody RideSearchDTO dto,
+                                      @RequestParam(required = false) String fields) {
+        List<RideResponseDTO> rides;
+        if (dto.getSourceLat() != null && dto.getSourceLng() != null
+                && dto.getDestinationLat() != null && dto.getDestinationLng() != null) {
+            double radiusKm = dto.getRadiusKm() != null ? dto.getRadiusKm() : 2.0;
+            rides = rideService.searchNearby(dto.getDate(),
+                    dto.getSourceLat(), dto.getSourceLng(),
+                    dto.getDestinationLat(), dto.getDestinationLng(), radiusKm);
+        } else if (dto.isFiltered()) {
+            rides = rideService.searchFiltered(dto);
+        } else {
+            rides = rideService.search(dto.getSource(), dto.getDestination(), dto.getDate());
+            // The cached list holds every ride of the day; narrow it here instead of per-seat cache keys
+            if (dto.getSeatsRequested() != null) {
+                long seats = dto.getSeatsRequested();
+                rides = rides.stream()
+                        .filter(r -> r.getAvailableSeats() != null && r.getAvailableSeats() >= seats)
+                        .toList();
+            }
         }
+        return FieldSelector.select(rides, fields, RideResponseDTO.SEARCH_VIEW);
+    }
 
-        jwtUtil.extractEmail(authHeader.substring(7));
-
-        return rideService.search(dto.getSource(), dto.getDestination(), dto.getDate());
+    // ---------------- LOCATION AUTOCOMPLETE ----------------
+    // Public, served from memory (no database access): known places starting with q, most rides first
+    @GetMapping("/locations/suggest")
+    public List<LocationSuggestionDTO> suggestLocations(@RequestParam(defaultValue = "") String q,
+                                                        @RequestParam(defaultValue = "10") int limit) {
+        if (limit <= 0 || limit > LocationIndex.MAX_SUGGESTIONS)
+            throw new RuntimeException("Limit must be between 1 and " + LocationIndex.MAX_SUGGESTIONS);
+        return locationIndex.suggest(q, limit);
     }
 
     // ---------------- DRIVER → VIEW BOOKING REQUESTS ----------------
+    // Paginated: pass the X-Next-Cursor header of a response as ?cursor= to get the next page
     @GetMapping("/booking-requests")
-    public List<Booking> getBookingRequestsForDriver(
-            @RequestHeader("Authorization") String authHeader) {
-
-        if (authHeader == null || !authHeader.startsWith("Bearer ")) {
-            throw new RuntimeException("Invalid Authorization header");
-        }
+    public ResponseEntity<MappingJacksonValue> getBookingRequestsForDriver(@AuthenticationPrincipal UserDetails principal,
+                                                                           @RequestParam(required = false) String cursor,
+                                                                           @RequestParam(defaultValue = "50") int size,
+                                                                           @RequestParam(required = false) String fields) {
+        return bookingService.getBookingRequestsForDriver(principal.getUsername(), cursor, size)
+                .toResponse(fields, BookingResponseDTO.DRIVER_VIEW);
+    }
 
-        String token = authHeader.substring(7);
-        String driverEmail = jwtUtil.extractEmail(token);
+    // ---------------- MULTI-STOP RIDES ----------------
+    // Stop names in route order; booking fromStop/toStop are indexes into this list
+    @GetMapping("/{rideId}/stops")
+    public List<String> getStops(@PathVariable Long rideId) {
+        return legInventory.stops(rideId);
+    }
 
-        return bookingService.getBookingRequestsForDriver(driverEmail);
+    // Seats free between two stops (whole route when omitted)
+    @GetMapping("/{rideId}/availability")
+    public Map<String, Long> getAvailability(@PathVariable Long rideId,
+                                             @RequestParam(required = false) Integer fromStop,
+                                             @RequestParam(required = false) Integer toStop) {
+        Map<String, Long> response = new HashMap<>();
+        response.put("availableSeats", legInventory.availableSeats(rideId, fromStop, toStop));
+        return response;
     }
+
     // ---------------- UPDATE RIDE SEATS AFTER BOOKING ----------------
 
 }
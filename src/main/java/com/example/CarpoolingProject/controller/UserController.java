@@ -4,13 +4,12 @@ import com.example.CarpoolingProject.dto.ForgotPasswordDTO;
 import com.example.CarpoolingProject.dto.ResetPasswordDTO;
 import com.example.CarpoolingProject.entity.User;
 import com.example.CarpoolingProject.service.UserService;
-import com.example.CarpoolingProject.config.JwtUtil;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.bind.annotation.*;
 
-import jakarta.servlet.http.HttpServletRequest;
-
 @RestController
 @RequestMapping("/user")
 public class UserController {
@@ -18,18 +17,6 @@ public class UserController {
     @Autowired
     private UserService userService;
 
-    @Autowired
-    private JwtUtil jwtUtil;
-
-    // ---------------- JWT EXTRACTOR ----------------
-    private String extractToken(HttpServletRequest request) {
-        String header = request.getHeader("Authorization");
-        if (header != null && header.startsWith("Bearer ")) {
-            return header.substring(7);
-        }
-        throw new RuntimeException("Missing or invalid Authorization header");
-    }
-
     // ---------------- SEND OTP ----------------
     @PostMapping("/forgot-password")
     public String forgotPassword(@RequestBody ForgotPasswordDTO dto) {
@@ -44,10 +31,8 @@ public class UserController {
 
     // ---------------- GET USER PROFILE ----------------
     @GetMapping("/profile")
-    public User getProfile(HttpServletRequest request) {
-        String token = extractToken(request);
-        String email = jwtUtil.extractEmail(token);
-        return userService.findByEmail(email); // use findByEmail
+    public User getProfile(@AuthenticationPrincipal UserDetails principal) {
+        return userService.findByEmail(principal.getUsername()); // use findByEmail
     }
 
 }
@@ -0,0 +1,17 @@
+package com.example.CarpoolingProject.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Pushed on /booking/events when a booking the user is part of changes; the SSE event name is the type
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookingEventDTO {
+    private String type;        // created, accepted, rejected, cancelled, expired
+    private Long bookingId;
+    private Long rideId;
+    private String status;      // booking status after the change (null once cancelled)
+    private Long seats;
+}
@@ -6,4 +6,8 @@ import lombok.Data;
 public class BookingRequestDTO {
     private Long rideId;
     private Integer seats; // DTO from front-end can remain Integer
+
+    // Multi-stop rides: board at stop fromStop, leave at stop toStop (indexes, optional)
+    private Integer fromStop;
+    private Integer toStop;
 }
@@ -0,0 +1,47 @@
+package com.example.CarpoolingProject.dto;
+
+import com.example.CarpoolingProject.entity.Booking;
+import com.example.CarpoolingProject.util.FieldSelector;
+import com.fasterxml.jackson.annotation.JsonFilter;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+// A booking as returned by the API, with its ride (and driver) and passenger
+@Data
+@JsonFilter(FieldSelector.FILTER)
+public class BookingResponseDTO {
+
+    // Default view of the passenger's bookings: the ride card, without coordinates or seat counters
+    public static final String PASSENGER_VIEW =
+            "id,seatsBooked,status,holdExpiresAt,ride.id,ride.source,ride.destination,ride.date,ride.time," +
+            "ride.price,ride.rating,ride.driver.name";
+
+    // Default view of the driver's pending requests: who wants which ride
+    public static final String DRIVER_VIEW =
+            "id,seatsBooked,status,holdExpiresAt,fromStop,toStop,ride.id,ride.source,ride.destination,ride.date,ride.time," +
+            "passenger.id,passenger.name,passenger.phone";
+
+    private Long id;
+    private Long seatsBooked;
+    private String status;
+    private LocalDateTime holdExpiresAt;
+    private Integer fromStop;
+    private Integer toStop;
+    private RideResponseDTO ride;
+    private UserSummaryDTO passenger;
+
+    // Requires booking.ride, ride.driver and booking.passenger to be loaded
+    public static BookingResponseDTO from(Booking booking) {
+        BookingResponseDTO dto = new BookingResponseDTO();
+        dto.setId(booking.getId());
+        dto.setSeatsBooked(booking.getSeatsBooked());
+        dto.setStatus(booking.getStatus());
+        dto.setHoldExpiresAt(booking.getHoldExpiresAt());
+        dto.setFromStop(booking.getFromStop());
+        dto.setToStop(booking.getToStop());
+        dto.setRide(RideResponseDTO.from(booking.getRide()));
+        dto.setPassenger(UserSummaryDTO.from(booking.getPassenger()));
+        return dto;
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.CarpoolingProject.dto;
+
+import com.example.CarpoolingProject.util.Cursor;
+import com.example.CarpoolingProject.util.FieldSelector;
+import lombok.Data;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.json.MappingJacksonValue;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+// One page of a keyset-paginated list; nextCursor is null on the last page
+@Data
+public class CursorPage<T> {
+
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    public static final int MAX_SIZE = 100;
+
+    private final List<T> items;
+    private final String nextCursor;
+
+    public static int checkSize(int size) {
+        if (size <= 0)
+            throw new RuntimeException("Invalid page size");
+        return Math.min(size, MAX_SIZE);
+    }
+
+    // rows were fetched with size + 1, so an extra row means there is another page
+    public static <T> CursorPage<T> of(List<T> rows, int size, Function<T, Cursor> positionOf) {
+        if (rows.size() <= size)
+            return new CursorPage<>(rows, null);
+
+        List<T> items = rows.subList(0, size);
+        return new CursorPage<>(items, positionOf.apply(items.get(size - 1)).encode());
+    }
+
+    // Puts rows loaded by "id IN (...)" back into the order of the id page
+    public static <T> List<T> inOrder(List<Long> ids, List<T> rows, Function<T, Long> idOf) {
+        Map<Long, T> byId = new HashMap<>();
+        rows.forEach(row -> byId.put(idOf.apply(row), row));
+
+        List<T> ordered = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            T row = byId.get(id);
+            if (row != null)
+                ordered.add(row);
+        }
+        return ordered;
+    }
+
+    // Body stays a plain JSON array, as the frontend expects; the cursor goes in a header
+    public ResponseEntity<List<T>> toResponse() {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (nextCursor != null)
+            response.header(NEXT_CURSOR_HEADER, nextCursor);
+        return response.body(items);
+    }
+
+    // Same, with the items cut down to the requested fields (or the endpoint's default view)
+    public ResponseEntity<MappingJacksonValue> toResponse(String fields, String defaultView) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (nextCursor != null)
+            response.header(NEXT_CURSOR_HEADER, nextCursor);
+        return response.body(FieldSelector.select(items, fields, defaultView));
+    }
+}
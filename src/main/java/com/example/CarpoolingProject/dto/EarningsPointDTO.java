@@ -0,0 +1,15 @@
+package com.example.CarpoolingProject.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.time.LocalDate;
+
+@Data
+@AllArgsConstructor
+public class EarningsPointDTO {
+    private LocalDate bucketStart;
+    private double amount;
+    private long seats;
+    private long bookings;
+}
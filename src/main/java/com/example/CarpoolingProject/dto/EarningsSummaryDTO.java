@@ -0,0 +1,22 @@
+package com.example.CarpoolingProject.dto;
+
+import com.example.CarpoolingProject.entity.EarningsPeriod;
+import lombok.Data;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Data
+public class EarningsSummaryDTO {
+    private EarningsPeriod period;
+    private LocalDate from;
+    private LocalDate to;
+
+    // All-time totals for the driver (accepted bookings only)
+    private double totalEarnings;
+    private long totalSeats;
+    private long totalBookings;
+
+    // One point per non-empty bucket in [from, to]
+    private List<EarningsPointDTO> series;
+}
@@ -0,0 +1,14 @@
+package com.example.CarpoolingProject.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// One autocomplete entry: a place name and how many rides start or end there
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LocationSuggestionDTO {
+    private String name;
+    private long rides;
+}
@@ -1,18 +1,40 @@
 package com.example.CarpoolingProject.dto;
 
 import lombok.Data;
+import lombok.NoArgsConstructor;
 import java.time.LocalDate;
 import java.time.LocalTime;
 
 @Data
+@NoArgsConstructor
 public class PassengerDashboardDTO {
+    private Long bookingId;
     private String source;
     private String destination;
     private LocalDate date;
     private LocalTime time;
     private int seatsBooked;
     private double price;
+    private String status;
     private String driverName;
     private String driverContact;
     private String vehicleModel;// <-- add this
+
+    // Used by the JPQL constructor expression in BookingRepository
+    public PassengerDashboardDTO(Long bookingId, String source, String destination,
+                                 LocalDate date, LocalTime time, Long seatsBooked, Double price,
+                                 String status, String driverName, String driverContact,
+                                 String vehicleModel) {
+        this.bookingId = bookingId;
+        this.source = source;
+        this.destination = destination;
+        this.date = date;
+        this.time = time;
+        this.seatsBooked = seatsBooked != null ? seatsBooked.intValue() : 0;
+        this.price = price != null ? price : 0.0;
+        this.status = status;
+        this.driverName = driverName;
+        this.driverContact = driverContact;
+        this.vehicleModel = vehicleModel != null ? vehicleModel : "N/A";
+    }
 }
@@ -0,0 +1,29 @@
+package com.example.CarpoolingProject.dto;
+
+import com.example.CarpoolingProject.entity.Booking;
+import com.example.CarpoolingProject.util.FieldSelector;
+import com.fasterxml.jackson.annotation.JsonFilter;
+import lombok.Data;
+
+// A booking as listed under one of the driver's rides
+@Data
+@JsonFilter(FieldSelector.FILTER)
+public class RideBookingDTO {
+    private Long id;
+    private Long seatsBooked;
+    private String status;
+    private Integer fromStop;
+    private Integer toStop;
+    private UserSummaryDTO passenger;
+
+    public static RideBookingDTO from(Booking booking) {
+        RideBookingDTO dto = new RideBookingDTO();
+        dto.setId(booking.getId());
+        dto.setSeatsBooked(booking.getSeatsBooked());
+        dto.setStatus(booking.getStatus());
+        dto.setFromStop(booking.getFromStop());
+        dto.setToStop(booking.getToStop());
+        dto.setPassenger(UserSummaryDTO.from(booking.getPassenger()));
+        return dto;
+    }
+}
@@ -3,14 +3,22 @@ package com.example.CarpoolingProject.dto;
 import lombok.Data;
 import java.time.LocalDate;
 import java.time.LocalTime;
+import java.util.List;
 
 @Data
 public class RideDTO {
     private String source;
     private String destination;
+    private Double sourceLat;
+    private Double sourceLng;
+    private Double destinationLat;
+    private Double destinationLng;
     private LocalDate date;
     private LocalTime time;
     private Integer availableSeats;  // use Integer instead of int
     private Double price;
     private String vehicleModel;
+
+    // Intermediate stops between source and destination, in order (optional)
+    private List<String> stops;
 }
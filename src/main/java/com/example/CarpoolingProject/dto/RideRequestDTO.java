@@ -3,13 +3,21 @@ package com.example.CarpoolingProject.dto;
 import lombok.Data;
 import java.time.LocalDate;
 import java.time.LocalTime;
+import java.util.List;
 
 @Data
 public class RideRequestDTO {
     private String source;
     private String destination;
+    private Double sourceLat;
+    private Double sourceLng;
+    private Double destinationLat;
+    private Double destinationLng;
     private LocalDate date;
     private LocalTime time;
     private Long availableSeats;  // changed to Long
     private Double price;
+
+    // Intermediate stops between source and destination, in order (optional)
+    private List<String> stops;
 }
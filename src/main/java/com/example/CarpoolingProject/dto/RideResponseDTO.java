@@ -0,0 +1,140 @@
+package com.example.CarpoolingProject.dto;
+
+import com.example.CarpoolingProject.entity.Ride;
+import com.example.CarpoolingProject.util.FieldSelector;
+import com.fasterxml.jackson.annotation.JsonFilter;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+
+/**
+ * A ride as returned by the API. Same JSON shape the entity used to have, but built
+ * from data the query already fetched, so serializing it never touches the database.
+ * bookings is only filled in for the driver's own rides.
+ *
+ * A multi-stop ride found by its intermediate stops carries fromStop/toStop, the stop indexes to
+ * book with, and availableSeats is then the seats free on those legs only.
+ */
+@Data
+@NoArgsConstructor
+@JsonFilter(FieldSelector.FILTER)
+public class RideResponseDTO {
+
+    // Default view of search results: what a result card shows
+    public static final String SEARCH_VIEW =
+            "id,source,destination,date,time,price,availableSeats,fromStop,toStop,rating,vehicleModel,driver.id,driver.name";
+
+    // Default view of the driver's own rides: no driver block (it is the caller) or coordinates
+    public static final String DRIVER_VIEW =
+            "id,source,destination,date,time,price,availableSeats,bookedSeats,seatCapacity,rating,bookings";
+
+    private Long id;
+    private String source;
+    private String destination;
+    private Double sourceLat;
+    private Double sourceLng;
+    private Double destinationLat;
+    private Double destinationLng;
+    private LocalDate date;
+    private LocalTime time;
+    private Long bookedSeats;
+    private Long availableSeats;
+    private Double price;
+    private Double rating;
+    private Long seatCapacity;
+    private Integer legCount;
+    private String vehicleModel;
+    private UserSummaryDTO driver;
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private List<RideBookingDTO> bookings;
+
+    // Stop indexes of the rider's part of a multi-stop ride (search matches on stops only)
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Integer fromStop;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Integer toStop;
+
+    // Leg inventory version the row was read at, to check cached seat trees against
+    @JsonIgnore
+    private Long legVersion;
+
+    // JPQL constructor projection (see RideRepository.findForSearch)
+    public RideResponseDTO(Long id, String source, String destination,
+                           Double sourceLat, Double sourceLng, Double destinationLat, Double destinationLng,
+                           LocalDate date, LocalTime time, Long bookedSeats, Long availableSeats,
+                           Double price, Double rating, Long seatCapacity, Integer legCount,
+                           Long driverId, String driverName, String driverEmail, String driverPhone,
+                           String vehicleModel) {
+        this.id = id;
+        this.source = source;
+        this.destination = destination;
+        this.sourceLat = sourceLat;
+        this.sourceLng = sourceLng;
+        this.destinationLat = destinationLat;
+        this.destinationLng = destinationLng;
+        this.date = date;
+        this.time = time;
+        this.bookedSeats = bookedSeats;
+        this.availableSeats = availableSeats;
+        this.price = price;
+        this.rating = rating;
+        this.seatCapacity = seatCapacity;
+        this.legCount = legCount;
+        this.vehicleModel = vehicleModel;
+        if (driverId != null)
+            this.driver = new UserSummaryDTO(driverId, driverName, driverEmail, driverPhone);
+    }
+
+    // JPQL constructor projection of a match on legs [fromLeg, toLeg] (see RideLegRepository.findSegments)
+    public RideResponseDTO(Long id, String source, String destination,
+                           Double sourceLat, Double sourceLng, Double destinationLat, Double destinationLng,
+                           LocalDate date, LocalTime time, Long bookedSeats, Long availableSeats,
+                           Double price, Double rating, Long seatCapacity, Integer legCount,
+                           Long driverId, String driverName, String driverEmail, String driverPhone,
+                           String vehicleModel, Long legVersion, Integer fromLeg, Integer toLeg) {
+        this(id, source, destination, sourceLat, sourceLng, destinationLat, destinationLng,
+                date, time, bookedSeats, availableSeats, price, rating, seatCapacity, legCount,
+                driverId, driverName, driverEmail, driverPhone, vehicleModel);
+        this.legVersion = legVersion != null ? legVersion : 0L;
+        this.fromStop = fromLeg;
+        this.toStop = toLeg + 1;
+    }
+
+    // Requires ride.driver to be loaded
+    public static RideResponseDTO from(Ride ride) {
+        RideResponseDTO dto = new RideResponseDTO();
+        dto.setId(ride.getId());
+        dto.setSource(ride.getSource());
+        dto.setDestination(ride.getDestination());
+        dto.setSourceLat(ride.getSourceLat());
+        dto.setSourceLng(ride.getSourceLng());
+        dto.setDestinationLat(ride.getDestinationLat());
+        dto.setDestinationLng(ride.getDestinationLng());
+        dto.setDate(ride.getDate());
+        dto.setTime(ride.getTime());
+        dto.setBookedSeats(ride.getBookedSeats());
+        dto.setAvailableSeats(ride.getAvailableSeats());
+        dto.setPrice(ride.getPrice());
+        dto.setRating(ride.getRating());
+        dto.setSeatCapacity(ride.getSeatCapacity());
+        dto.setLegCount(ride.getLegCount());
+        if (ride.getDriver() != null) {
+            dto.setVehicleModel(ride.getDriver().getVehicleModel());
+            dto.setDriver(UserSummaryDTO.from(ride.getDriver()));
+        }
+        return dto;
+    }
+
+    // Requires ride.driver and ride.bookings (with their passengers) to be loaded
+    public static RideResponseDTO withBookings(Ride ride) {
+        RideResponseDTO dto = from(ride);
+        dto.setBookings(ride.getBookings().stream().map(RideBookingDTO::from).toList());
+        return dto;
+    }
+}
@@ -3,6 +3,7 @@ package com.example.CarpoolingProject.dto;
 import lombok.Data;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 
 @Data
 public class RideSearchDTO {
@@ -10,4 +11,24 @@ public class RideSearchDTO {
     private String destination;
     private LocalDate date;
     private Integer seatsRequested;
+
+    // Filtered search: any of these switches from the cached exact-date search to a database
+    // query. The window may span adjacent dates (e.g. 22:00 to 01:00 the next day); without
+    // one the whole of `date` is searched.
+    private LocalDateTime departFrom;
+    private LocalDateTime departTo;
+    private Double maxPrice;
+    private RideSort sort;      // DEPARTURE (default), PRICE, RATING
+    private Integer limit;      // best N results, default 20
+
+    // Radius search: set all four coordinates (radiusKm defaults to 2)
+    private Double sourceLat;
+    private Double sourceLng;
+    private Double destinationLat;
+    private Double destinationLng;
+    private Double radiusKm;
+
+    public boolean isFiltered() {
+        return departFrom != null || departTo != null || maxPrice != null || sort != null || limit != null;
+    }
 }
@@ -0,0 +1,8 @@
+package com.example.CarpoolingProject.dto;
+
+// Order of filtered search results; ties always fall back to departure time
+public enum RideSort {
+    DEPARTURE,
+    PRICE,
+    RATING
+}
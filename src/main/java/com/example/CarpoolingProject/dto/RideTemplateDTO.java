@@ -0,0 +1,50 @@
+package com.example.CarpoolingProject.dto;
+
+import com.example.CarpoolingProject.entity.RideTemplate;
+import lombok.Data;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.Set;
+
+// Recurring ride, as posted by the driver and as returned
+@Data
+public class RideTemplateDTO {
+    private Long id;
+    private String source;
+    private String destination;
+    private Double sourceLat;
+    private Double sourceLng;
+    private Double destinationLat;
+    private Double destinationLng;
+    private Set<DayOfWeek> daysOfWeek;   // e.g. ["MONDAY", "TUESDAY"]
+    private LocalTime time;
+    private Integer availableSeats;
+    private Double price;
+    private LocalDate startDate;         // optional, defaults to today
+    private LocalDate endDate;           // optional, open-ended when null
+
+    // Read-only
+    private boolean active;
+    private LocalDate materializedUntil;
+
+    public static RideTemplateDTO from(RideTemplate t) {
+        RideTemplateDTO dto = new RideTemplateDTO();
+        dto.setId(t.getId());
+        dto.setSource(t.getSource());
+        dto.setDestination(t.getDestination());
+        dto.setSourceLat(t.getSourceLat());
+        dto.setSourceLng(t.getSourceLng());
+        dto.setDestinationLat(t.getDestinationLat());
+        dto.setDestinationLng(t.getDestinationLng());
+        dto.setDaysOfWeek(t.days());
+        dto.setTime(t.getTime());
+        dto.setAvailableSeats(t.getSeats().intValue());
+        dto.setPrice(t.getPrice());
+        dto.setStartDate(t.getStartDate());
+        dto.setEndDate(t.getEndDate());
+        dto.setActive(t.isActive());
+        dto.setMaterializedUntil(t.getMaterializedUntil());
+        return dto;
+    }
+}
@@ -0,0 +1,31 @@
+package com.example.CarpoolingProject.dto;
+
+import com.example.CarpoolingProject.entity.Role;
+import com.example.CarpoolingProject.entity.User;
+import lombok.Data;
+
+// The signed-in user as returned by register / login / verify-otp (never the password hash)
+@Data
+public class UserProfileDTO {
+    private Long id;
+    private String name;
+    private String email;
+    private String phone;
+    private Role role;
+    private String vehicleModel;
+    private String licensePlate;
+    private Integer capacity;
+
+    public static UserProfileDTO from(User user) {
+        UserProfileDTO dto = new UserProfileDTO();
+        dto.setId(user.getId());
+        dto.setName(user.getName());
+        dto.setEmail(user.getEmail());
+        dto.setPhone(user.getPhone());
+        dto.setRole(user.getRole());
+        dto.setVehicleModel(user.getVehicleModel());
+        dto.setLicensePlate(user.getLicensePlate());
+        dto.setCapacity(user.getCapacity());
+        return dto;
+    }
+}
@@ -0,0 +1,32 @@
+package com.example.CarpoolingProject.dto;
+
+import com.example.CarpoolingProject.entity.User;
+import com.example.CarpoolingProject.util.FieldSelector;
+import com.fasterxml.jackson.annotation.JsonFilter;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Public part of a user shown next to rides and bookings (never the password hash)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonFilter(FieldSelector.FILTER)
+public class UserSummaryDTO {
+    private Long id;
+    private String name;
+    private String email;
+    private String phone;
+
+    public static UserSummaryDTO from(User user) {
+        if (user == null)
+            return null;
+
+        UserSummaryDTO dto = new UserSummaryDTO();
+        dto.setId(user.getId());
+        dto.setName(user.getName());
+        dto.setEmail(user.getEmail());
+        dto.setPhone(user.getPhone());
+        return dto;
+    }
+}
@@ -2,27 +2,47 @@ package com.example.CarpoolingProject.entity;
 
 import jakarta.persistence.*;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
+
+import java.time.LocalDateTime;
 
 @Data
 @Entity
-@Table(name = "bookings")
+@Table(name = "bookings", indexes = {
+        @Index(name = "idx_booking_passenger", columnList = "passenger_id"),
+        @Index(name = "idx_booking_ride_status", columnList = "ride_id, status"),
+        @Index(name = "idx_booking_status_hold", columnList = "status, hold_expires_at")
+})
 public class Booking {
 
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
-    @ManyToOne(fetch = FetchType.EAGER)
+    // Lazy: each query fetch-joins what its use case needs (see BookingRepository)
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "ride_id")
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
     private Ride ride;
 
-    @ManyToOne(fetch = FetchType.EAGER)
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "passenger_id")
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
     private User passenger;
 
     @Column(nullable = false)
     private Long seatsBooked;  // changed from Integer → Long
 
+    // Stop indexes for a partial trip on a multi-stop ride (null = whole ride)
+    private Integer fromStop;
+    private Integer toStop;
+
     @Column(nullable = false)
     private String status = "PENDING"; // default
+
+    // PENDING bookings hold their seats until then; unanswered holds become EXPIRED (see BookingHoldService)
+    private LocalDateTime holdExpiresAt;
 }
@@ -0,0 +1,41 @@
+package com.example.CarpoolingProject.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+// A booking change as other nodes see it (see BookingEventHub)
+@Data
+@Entity
+@Table(name = "booking_events",
+        indexes = @Index(name = "idx_booking_event_created", columnList = "created_at, id"))
+public class BookingEvent {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // Node that made the change and already pushed it to its own streams
+    @Column(nullable = false, length = 64)
+    private String nodeId;
+
+    @Column(nullable = false)
+    private Long bookingId;
+
+    @Column(nullable = false)
+    private Long rideId;
+
+    @Column(nullable = false, length = 20)
+    private String type;
+
+    @Column(length = 20)
+    private String status;
+
+    private Long seats;
+    private Long passengerId;
+    private Long driverId;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+}
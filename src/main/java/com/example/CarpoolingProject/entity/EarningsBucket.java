@@ -0,0 +1,38 @@
+package com.example.CarpoolingProject.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDate;
+
+@Data
+@Entity
+@Table(name = "driver_earnings_buckets",
+        uniqueConstraints = @UniqueConstraint(name = "uk_earnings_driver_bucket",
+                columnNames = {"driver_id", "granularity", "bucket_start"}))
+public class EarningsBucket {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "driver_id", nullable = false)
+    private Long driverId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 10)
+    private EarningsPeriod granularity;
+
+    // First day of the day/week (Monday)/month; LocalDate.EPOCH for TOTAL
+    @Column(name = "bucket_start", nullable = false)
+    private LocalDate bucketStart;
+
+    @Column(nullable = false)
+    private Double amount = 0.0;
+
+    @Column(nullable = false)
+    private Long seats = 0L;
+
+    @Column(nullable = false)
+    private Long bookings = 0L;
+}
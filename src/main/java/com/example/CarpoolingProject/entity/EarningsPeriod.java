@@ -0,0 +1,6 @@
+package com.example.CarpoolingProject.entity;
+
+// Rollup granularity of an earnings bucket; TOTAL is the single all-time row per driver
+public enum EarningsPeriod {
+    DAY, WEEK, MONTH, TOTAL
+}
@@ -0,0 +1,47 @@
+package com.example.CarpoolingProject.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+@Data
+@Entity
+@Table(name = "email_outbox",
+        indexes = @Index(name = "idx_outbox_lane_status_due", columnList = "lane, status, next_attempt_at"))
+public class EmailOutbox {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private String recipient;
+
+    @Column(nullable = false)
+    private String subject;
+
+    @Column(nullable = false, length = 2000)
+    private String body;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private MailLane lane;
+
+    // PENDING, SENDING, SENT, FAILED
+    @Column(nullable = false)
+    private String status = "PENDING";
+
+    @Column(nullable = false)
+    private Integer attempts = 0;
+
+    // When a PENDING message may be sent, or when a SENDING lease runs out
+    @Column(nullable = false)
+    private LocalDateTime nextAttemptAt;
+
+    private LocalDateTime createdAt;
+    private LocalDateTime sentAt;
+
+    @Column(length = 500)
+    private String lastError;
+}
@@ -0,0 +1,6 @@
+package com.example.CarpoolingProject.entity;
+
+// Outbox lanes are drained by separate workers, so OTP mail never waits behind booking mail
+public enum MailLane {
+    OTP, BOOKING
+}
@@ -6,7 +6,11 @@ import lombok.Data;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "otps")
+@Table(name = "otps", indexes = {
+        @Index(name = "idx_otp_email_purpose", columnList = "email, purpose, used"),
+        @Index(name = "idx_otp_email_created", columnList = "email, created_at"),
+        @Index(name = "idx_otp_expires", columnList = "expires_at")
+})
 @Data
 public class Otp {
 
@@ -17,9 +21,14 @@ public class Otp {
     private String email;
     private String code;
 
-    // "REGISTER" or "LOGIN"
+    // "REGISTER", "LOGIN" or "RESET_PASSWORD"
     private String purpose;
 
+    private LocalDateTime createdAt;
     private LocalDateTime expiresAt;
     private boolean used = false;
+
+    // Wrong codes tried against this one (see OtpService.verifyOtp)
+    @Column(nullable = false)
+    private int failedAttempts = 0;
 }
@@ -6,6 +6,9 @@ import java.time.LocalDate;
 
 @Data
 @Entity
+@Table(indexes = {
+        @Index(name = "idx_payment_user_date", columnList = "user_email, date")
+})
 public class Payment {
 
     @Id
@@ -1,25 +1,45 @@
 package com.example.CarpoolingProject.entity;
 
-import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import jakarta.persistence.*;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
 import java.time.LocalDate;
 import java.time.LocalTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Locale;
 
 @Data
 @Entity
-@Table(name = "rides")
+@Table(name = "rides", indexes = {
+        @Index(name = "idx_ride_driver_date_time", columnList = "driver_id, date, time"),
+        @Index(name = "idx_ride_route_key_date_time", columnList = "source_key, destination_key, date, time")
+}, uniqueConstraints = @UniqueConstraint(name = "uk_ride_template_date", columnNames = {"template_id", "date"}))
 public class Ride {
 
+    // Ids come from a row in id_generators, 50 at a time, instead of IDENTITY: Hibernate knows
+    // the id before the insert, so recurring-ride occurrences go out as JDBC batches.
+    // Any raw SQL insert into rides must move id_generators.next_val past its ids.
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "ride_ids")
+    @TableGenerator(name = "ride_ids", table = "id_generators", pkColumnName = "name",
+            valueColumnName = "next_val", pkColumnValue = "rides", allocationSize = 50)
     private Long id;
 
     private String source;
     private String destination;
 
+    // Normalized copies of source/destination that route search compares against (see locationKey)
+    private String sourceKey;
+    private String destinationKey;
+
+    // Pickup / drop-off coordinates (optional, used by radius search)
+    private Double sourceLat;
+    private Double sourceLng;
+    private Double destinationLat;
+    private Double destinationLng;
+
     private LocalDate date;
     private LocalTime time;
 
@@ -32,12 +52,37 @@ public class Ride {
     private Double price;
     private Double rating;
 
-    @ManyToOne
+    // Multi-stop rides only (null otherwise): seats are tracked per leg in ride_legs,
+    // and availableSeats is what is still free for the full route
+    private Long seatCapacity;
+    private Integer legCount;
+    private Long legVersion = 0L;
+
+    // Recurring ride this occurrence was generated from (null for one-off rides)
+    private Long templateId;
+
+    // Lazy: each query fetch-joins what its use case needs (see RideRepository).
+    // Excluded from toString/equals/hashCode so logging or hashing a ride never loads them.
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "driver_id")
-    @JsonIgnoreProperties({"password", "vehicleModel", "licensePlate", "capacity"})
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
     private User driver;
 
-    @OneToMany(mappedBy = "ride", cascade = CascadeType.ALL, orphanRemoval = true)
-    @JsonIgnoreProperties({"ride"})
+    @OneToMany(mappedBy = "ride")
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
     private List<Booking> bookings = new ArrayList<>();
+
+    // Filled on every write, whichever service or import creates the ride
+    @PrePersist
+    @PreUpdate
+    void fillLocationKeys() {
+        sourceKey = locationKey(source);
+        destinationKey = locationKey(destination);
+    }
+
+    public static String locationKey(String place) {
+        return place == null ? null : place.trim().toLowerCase(Locale.ROOT);
+    }
 }
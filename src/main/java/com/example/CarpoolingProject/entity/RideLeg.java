@@ -0,0 +1,39 @@
+package com.example.CarpoolingProject.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+// One leg (stop i -> stop i+1) of a multi-stop ride and the seats reserved on it
+@Data
+@Entity
+@Table(name = "ride_legs",
+        uniqueConstraints = @UniqueConstraint(name = "uk_ride_leg", columnNames = {"ride_id", "leg_index"}))
+public class RideLeg {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "ride_id", nullable = false)
+    private Long rideId;
+
+    @Column(name = "leg_index", nullable = false)
+    private Integer legIndex;
+
+    private String fromStop;
+    private String toStop;
+
+    // Normalized copies that route search compares against (see Ride.locationKey)
+    private String fromStopKey;
+    private String toStopKey;
+
+    @Column(nullable = false)
+    private Long reservedSeats = 0L;
+
+    @PrePersist
+    @PreUpdate
+    void fillStopKeys() {
+        fromStopKey = Ride.locationKey(fromStop);
+        toStopKey = Ride.locationKey(toStop);
+    }
+}
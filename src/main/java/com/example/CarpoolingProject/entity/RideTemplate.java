@@ -0,0 +1,116 @@
+package com.example.CarpoolingProject.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.Set;
+
+// A ride a driver repeats on fixed weekdays; concrete Ride rows are generated from it (see RideTemplateService)
+@Data
+@Entity
+@Table(name = "ride_templates", indexes = {
+        @Index(name = "idx_ride_template_route", columnList = "source_key, destination_key"),
+        @Index(name = "idx_ride_template_horizon", columnList = "active, materialized_until")
+})
+public class RideTemplate {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    private String source;
+    private String destination;
+
+    // Same normalization as Ride.sourceKey / destinationKey
+    private String sourceKey;
+    private String destinationKey;
+
+    private Double sourceLat;
+    private Double sourceLng;
+    private Double destinationLat;
+    private Double destinationLng;
+
+    // Bit (d.getValue() - 1) is set for every DayOfWeek d the ride runs on
+    @Column(nullable = false)
+    private Integer daysOfWeek;
+
+    @Column(nullable = false)
+    private LocalTime time;
+
+    @Column(nullable = false)
+    private Long seats;
+
+    private Double price;
+
+    // First and last (optional) day of service
+    @Column(nullable = false)
+    private LocalDate startDate;
+    private LocalDate endDate;
+
+    // Inactive templates generate nothing more; rides already generated stay
+    @Column(nullable = false)
+    private boolean active = true;
+
+    // Rides exist for every service day up to here (the rolling horizon)
+    private LocalDate materializedUntil;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "driver_id", nullable = false)
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private User driver;
+
+    @PrePersist
+    @PreUpdate
+    void fillLocationKeys() {
+        sourceKey = Ride.locationKey(source);
+        destinationKey = Ride.locationKey(destination);
+    }
+
+    public static int daysMask(Collection<DayOfWeek> days) {
+        int mask = 0;
+        for (DayOfWeek d : days)
+            mask |= 1 << (d.getValue() - 1);
+        return mask;
+    }
+
+    public Set<DayOfWeek> days() {
+        Set<DayOfWeek> days = EnumSet.noneOf(DayOfWeek.class);
+        for (DayOfWeek d : DayOfWeek.values()) {
+            if ((daysOfWeek & (1 << (d.getValue() - 1))) != 0)
+                days.add(d);
+        }
+        return days;
+    }
+
+    public boolean runsOn(LocalDate date) {
+        return !date.isBefore(startDate)
+                && (endDate == null || !date.isAfter(endDate))
+                && (daysOfWeek & (1 << (date.getDayOfWeek().getValue() - 1))) != 0;
+    }
+
+    // The concrete ride of one service day
+    public Ride occurrence(LocalDate date) {
+        Ride ride = new Ride();
+        ride.setTemplateId(id);
+        ride.setDriver(driver);
+        ride.setSource(source);
+        ride.setDestination(destination);
+        ride.setSourceLat(sourceLat);
+        ride.setSourceLng(sourceLng);
+        ride.setDestinationLat(destinationLat);
+        ride.setDestinationLng(destinationLng);
+        ride.setDate(date);
+        ride.setTime(time);
+        ride.setAvailableSeats(seats);
+        ride.setBookedSeats(0L);
+        ride.setPrice(price);
+        return ride;
+    }
+}
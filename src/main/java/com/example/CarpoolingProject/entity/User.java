@@ -2,10 +2,16 @@ package com.example.CarpoolingProject.entity;
 
 import jakarta.persistence.*;
 import lombok.Data;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 @Data
 @Entity
-@Table(name = "users")
+// Read on nearly every request (JWT principal, service lookups by email); see application.conf
+// for the region size. READ_WRITE: a save updates the cached entry when its transaction commits.
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "users")
+@Table(name = "users", uniqueConstraints = @UniqueConstraint(name = "uk_users_email", columnNames = "email"))
 public class User {
 
     @Id
@@ -0,0 +1,31 @@
+package com.example.CarpoolingProject.repository;
+
+import com.example.CarpoolingProject.entity.BookingEvent;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface BookingEventRepository extends JpaRepository<BookingEvent, Long> {
+
+    // Events of other nodes after the (createdAt, id) cursor, oldest first
+    @Query("SELECT e FROM BookingEvent e WHERE e.nodeId <> :nodeId " +
+            "AND (e.createdAt > :at OR (e.createdAt = :at AND e.id > :id)) " +
+            "ORDER BY e.createdAt ASC, e.id ASC")
+    List<BookingEvent> findFromOtherNodes(@Param("nodeId") String nodeId,
+                                          @Param("at") LocalDateTime at,
+                                          @Param("id") Long id,
+                                          Pageable page);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM BookingEvent e WHERE e.createdAt < :cutoff")
+    int deleteCreatedBefore(@Param("cutoff") LocalDateTime cutoff);
+}
@@ -1,10 +1,22 @@
 package com.example.CarpoolingProject.repository;
 
+import com.example.CarpoolingProject.dto.DriverDashboardDTO;
+import com.example.CarpoolingProject.dto.PassengerDashboardDTO;
 import com.example.CarpoolingProject.entity.Booking;
 import com.example.CarpoolingProject.entity.User;
+import org.springframework.data.domain.Pageable;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface BookingRepository extends JpaRepository<Booking, Long> {
@@ -17,4 +29,138 @@ public interface BookingRepository extends JpaRepository<Booking, Long> {
 
     // Passenger bookings
     List<Booking> findByPassenger(User passenger);
+
+    // One booking with ride, driver and passenger, for the accept/reject/cancel paths
+    @Query("SELECT b FROM Booking b JOIN FETCH b.ride r LEFT JOIN FETCH r.driver JOIN FETCH b.passenger " +
+            "WHERE b.id = :bookingId")
+    Optional<Booking> findByIdWithRide(@Param("bookingId") Long bookingId);
+
+    // ---------------- KEYSET PAGES ----------------
+    // Ordered by (ride date, ride time, booking id) and starting strictly after the cursor
+    // (d, t, id), so a page never depends on how many rows came before it.
+    // Newest-first lists start from Cursor.LATEST.
+    // Ride, driver and passenger come in the same query (to-one joins, so LIMIT still applies).
+
+    @Query("SELECT b FROM Booking b JOIN FETCH b.ride r LEFT JOIN FETCH r.driver JOIN FETCH b.passenger p " +
+            "WHERE p.id = :passengerId " +
+            "AND (r.date < :d OR (r.date = :d AND (r.time < :t OR (r.time = :t AND b.id < :id)))) " +
+            "ORDER BY r.date DESC, r.time DESC, b.id DESC")
+    List<Booking> findPassengerPage(@Param("passengerId") Long passengerId,
+                                    @Param("d") LocalDate d,
+                                    @Param("t") LocalTime t,
+                                    @Param("id") Long id,
+                                    Pageable page);
+
+    @Query("SELECT b FROM Booking b JOIN FETCH b.ride r JOIN FETCH r.driver d JOIN FETCH b.passenger " +
+            "WHERE d.id = :driverId AND b.status = :status " +
+            "AND (r.date < :d OR (r.date = :d AND (r.time < :t OR (r.time = :t AND b.id < :id)))) " +
+            "ORDER BY r.date DESC, r.time DESC, b.id DESC")
+    List<Booking> findDriverRequestsPage(@Param("driverId") Long driverId,
+                                         @Param("status") String status,
+                                         @Param("d") LocalDate d,
+                                         @Param("t") LocalTime t,
+                                         @Param("id") Long id,
+                                         Pageable page);
+
+    // Move a booking from one status to another; returns 0 if it was no longer in "from"
+    @Modifying(clearAutomatically = true, flushAutomatically = true)
+    @Query("UPDATE Booking b SET b.status = :to WHERE b.id = :bookingId AND b.status = :from")
+    int updateStatus(@Param("bookingId") Long bookingId,
+                     @Param("from") String from,
+                     @Param("to") String to);
+
+    // Delete a booking only if it is still in the given status; returns 0 otherwise
+    @Modifying(clearAutomatically = true, flushAutomatically = true)
+    @Query("DELETE FROM Booking b WHERE b.id = :bookingId AND b.status = :status")
+    int deleteByIdAndStatus(@Param("bookingId") Long bookingId, @Param("status") String status);
+
+    // ---------------- SEAT HOLDS ----------------
+    // [id, holdExpiresAt] of PENDING bookings, one keyset page at a time ordered by (holdExpiresAt, id).
+    // Only read when BookingHoldService rebuilds its wheel; served by idx_booking_status_hold.
+    @Query("SELECT b.id, b.holdExpiresAt FROM Booking b WHERE b.status = 'PENDING' " +
+            "AND (b.holdExpiresAt > :at OR (b.holdExpiresAt = :at AND b.id > :id)) " +
+            "ORDER BY b.holdExpiresAt ASC, b.id ASC")
+    List<Object[]> findHoldPage(@Param("at") LocalDateTime at,
+                                @Param("id") Long id,
+                                Pageable page);
+
+    // Which of these bookings are still unanswered holds past their deadline, with their rides.
+    // The row locks make a concurrent accept/reject/cancel wait and then find the booking EXPIRED.
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT b FROM Booking b JOIN FETCH b.ride " +
+            "WHERE b.id IN :ids AND b.status = 'PENDING' AND b.holdExpiresAt <= :now")
+    List<Booking> lockExpiredHolds(@Param("ids") List<Long> ids, @Param("now") LocalDateTime now);
+
+    @Modifying(clearAutomatically = true, flushAutomatically = true)
+    @Query("UPDATE Booking b SET b.status = 'EXPIRED' WHERE b.id IN :ids AND b.status = 'PENDING'")
+    int markExpired(@Param("ids") List<Long> ids);
+
+    // ---------------- DASHBOARD PROJECTIONS ----------------
+    // Built straight from a join, so no Booking/Ride/User entities are loaded.
+    // Upcoming pages go oldest-first, past pages newest-first; b.id keeps the order stable.
+    // Keyset paginated like the lists above: each page starts strictly after (d, t, id).
+
+    @Query("SELECT new com.example.CarpoolingProject.dto.PassengerDashboardDTO(" +
+            "b.id, r.source, r.destination, r.date, r.time, b.seatsBooked, r.price, b.status, " +
+            "d.name, d.phone, d.vehicleModel) " +
+            "FROM Booking b JOIN b.passenger p JOIN b.ride r LEFT JOIN r.driver d " +
+            "WHERE p.email = :email AND r.date >= :today " +
+            "AND (r.date > :d OR (r.date = :d AND (r.time > :t OR (r.time = :t AND b.id > :id)))) " +
+            "ORDER BY r.date ASC, r.time ASC, b.id ASC")
+    List<PassengerDashboardDTO> findUpcomingForPassenger(@Param("email") String email,
+                                                         @Param("today") LocalDate today,
+                                                         @Param("d") LocalDate d,
+                                                         @Param("t") LocalTime t,
+                                                         @Param("id") Long id,
+                                                         Pageable page);
+
+    @Query("SELECT new com.example.CarpoolingProject.dto.PassengerDashboardDTO(" +
+            "b.id, r.source, r.destination, r.date, r.time, b.seatsBooked, r.price, b.status, " +
+            "d.name, d.phone, d.vehicleModel) " +
+            "FROM Booking b JOIN b.passenger p JOIN b.ride r LEFT JOIN r.driver d " +
+            "WHERE p.email = :email AND r.date < :today " +
+            "AND (r.date < :d OR (r.date = :d AND (r.time < :t OR (r.time = :t AND b.id < :id)))) " +
+            "ORDER BY r.date DESC, r.time DESC, b.id DESC")
+    List<PassengerDashboardDTO> findPastForPassenger(@Param("email") String email,
+                                                     @Param("today") LocalDate today,
+                                                     @Param("d") LocalDate d,
+                                                     @Param("t") LocalTime t,
+                                                     @Param("id") Long id,
+                                                     Pageable page);
+
+    @Query("SELECT new com.example.CarpoolingProject.dto.DriverDashboardDTO(" +
+            "b.id, r.source, r.destination, r.date, r.time, b.seatsBooked, r.price, b.status, " +
+            "p.name, p.phone, d.vehicleModel) " +
+            "FROM Booking b JOIN b.ride r JOIN r.driver d JOIN b.passenger p " +
+            "WHERE d.email = :email AND r.date >= :today " +
+            "AND (r.date > :d OR (r.date = :d AND (r.time > :t OR (r.time = :t AND b.id > :id)))) " +
+            "ORDER BY r.date ASC, r.time ASC, b.id ASC")
+    List<DriverDashboardDTO> findUpcomingForDriver(@Param("email") String email,
+                                                   @Param("today") LocalDate today,
+                                                   @Param("d") LocalDate d,
+                                                   @Param("t") LocalTime t,
+                                                   @Param("id") Long id,
+                                                   Pageable page);
+
+    @Query("SELECT new com.example.CarpoolingProject.dto.DriverDashboardDTO(" +
+            "b.id, r.source, r.destination, r.date, r.time, b.seatsBooked, r.price, b.status, " +
+            "p.name, p.phone, d.vehicleModel) " +
+            "FROM Booking b JOIN b.ride r JOIN r.driver d JOIN b.passenger p " +
+            "WHERE d.email = :email AND r.date < :today " +
+            "AND (r.date < :d OR (r.date = :d AND (r.time < :t OR (r.time = :t AND b.id < :id)))) " +
+            "ORDER BY r.date DESC, r.time DESC, b.id DESC")
+    List<DriverDashboardDTO> findPastForDriver(@Param("email") String email,
+                                               @Param("today") LocalDate today,
+                                               @Param("d") LocalDate d,
+                                               @Param("t") LocalTime t,
+                                               @Param("id") Long id,
+                                               Pageable page);
+
+    // ---------------- EARNINGS BACKFILL ----------------
+    // [driverId, rideDate, amount, seats, bookings] for every accepted booking, grouped per driver and day
+    @Query("SELECT r.driver.id, r.date, SUM(b.seatsBooked * r.price), SUM(b.seatsBooked), COUNT(b) " +
+            "FROM Booking b JOIN b.ride r " +
+            "WHERE b.status = 'ACCEPTED' " +
+            "GROUP BY r.driver.id, r.date")
+    List<Object[]> sumAcceptedByDriverAndDate();
 }
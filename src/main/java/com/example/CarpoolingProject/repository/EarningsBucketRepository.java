@@ -0,0 +1,38 @@
+package com.example.CarpoolingProject.repository;
+
+import com.example.CarpoolingProject.entity.EarningsBucket;
+import com.example.CarpoolingProject.entity.EarningsPeriod;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface EarningsBucketRepository extends JpaRepository<EarningsBucket, Long> {
+
+    // Atomic upsert: creates the bucket or adds the deltas to it in one statement
+    @Modifying
+    @Query(nativeQuery = true, value =
+            "INSERT INTO driver_earnings_buckets (driver_id, granularity, bucket_start, amount, seats, bookings) " +
+            "VALUES (:driverId, :granularity, :bucketStart, :amount, :seats, :bookings) " +
+            "ON DUPLICATE KEY UPDATE amount = amount + VALUES(amount), " +
+            "seats = seats + VALUES(seats), bookings = bookings + VALUES(bookings)")
+    int add(@Param("driverId") Long driverId,
+            @Param("granularity") String granularity,
+            @Param("bucketStart") LocalDate bucketStart,
+            @Param("amount") Double amount,
+            @Param("seats") Long seats,
+            @Param("bookings") Long bookings);
+
+    Optional<EarningsBucket> findByDriverIdAndGranularityAndBucketStart(Long driverId,
+                                                                        EarningsPeriod granularity,
+                                                                        LocalDate bucketStart);
+
+    List<EarningsBucket> findByDriverIdAndGranularityAndBucketStartBetweenOrderByBucketStartAsc(
+            Long driverId, EarningsPeriod granularity, LocalDate from, LocalDate to);
+}
@@ -0,0 +1,37 @@
+package com.example.CarpoolingProject.repository;
+
+import com.example.CarpoolingProject.entity.EmailOutbox;
+import com.example.CarpoolingProject.entity.MailLane;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface EmailOutboxRepository extends JpaRepository<EmailOutbox, Long> {
+
+    // Next batch of a lane that is due: new/retrying messages, or SENDING ones whose lease ran out
+    @Query("SELECT m FROM EmailOutbox m WHERE m.lane = :lane " +
+            "AND m.status IN ('PENDING', 'SENDING') AND m.nextAttemptAt <= :now " +
+            "ORDER BY m.id")
+    List<EmailOutbox> findDue(@Param("lane") MailLane lane,
+                              @Param("now") LocalDateTime now,
+                              Pageable page);
+
+    // Take a lease on one message; returns 0 if another worker (or node) got it first
+    @Transactional
+    @Modifying
+    @Query("UPDATE EmailOutbox m SET m.status = 'SENDING', m.nextAttemptAt = :leaseUntil " +
+            "WHERE m.id = :id AND m.status IN ('PENDING', 'SENDING') AND m.nextAttemptAt <= :now")
+    int claim(@Param("id") Long id,
+              @Param("now") LocalDateTime now,
+              @Param("leaseUntil") LocalDateTime leaseUntil);
+
+    long countByStatusIn(List<String> statuses);
+}
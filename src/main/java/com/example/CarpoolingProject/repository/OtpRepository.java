@@ -2,10 +2,46 @@ package com.example.CarpoolingProject.repository;
 
 import com.example.CarpoolingProject.entity.Otp;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
 import java.util.Optional;
 
 public interface OtpRepository extends JpaRepository<Otp, Long> {
     Optional<Otp> findTopByEmailAndPurposeAndUsedFalseOrderByExpiresAtDesc(String email, String purpose);
     Optional<Otp> findByEmailAndCodeAndPurposeAndUsedFalse(String email, String code, String purpose);
+
+    // Rate limiting: how many codes were issued to this address recently (any node)
+    long countByEmailAndCreatedAtAfter(String email, LocalDateTime since);
+
+    // Single use across nodes: only one verifier can flip used from false to true
+    @Modifying
+    @Query("UPDATE Otp o SET o.used = true WHERE o.id = :id AND o.used = false")
+    int markUsed(@Param("id") Long id);
+
+    // Counts a wrong guess and uses the code up on the last allowed one. Commits on its own, so
+    // a caller that fails its transaction after a wrong code cannot undo the count.
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    @Modifying
+    @Query("UPDATE Otp o SET o.used = CASE WHEN o.failedAttempts + 1 >= :maxAttempts THEN true ELSE false END, " +
+            "o.failedAttempts = o.failedAttempts + 1 WHERE o.id = :id AND o.used = false")
+    int recordFailure(@Param("id") Long id, @Param("maxAttempts") int maxAttempts);
+
+    // A new code replaces any older unused one for the same purpose
+    @Modifying
+    @Query("UPDATE Otp o SET o.used = true WHERE o.email = :email AND o.purpose = :purpose AND o.used = false")
+    int invalidateActive(@Param("email") String email, @Param("purpose") String purpose);
+
+    // Batched purge, so cleaning a large backlog never holds long locks. Expired codes are kept
+    // until they also left the rate-limit window, since countByEmailAndCreatedAtAfter counts them.
+    @Transactional
+    @Modifying
+    @Query(nativeQuery = true, value = "DELETE FROM otps WHERE expires_at < :now AND created_at < :createdBefore LIMIT :batchSize")
+    int deleteExpired(@Param("now") LocalDateTime now,
+                      @Param("createdBefore") LocalDateTime createdBefore,
+                      @Param("batchSize") int batchSize);
 }
@@ -1,9 +1,23 @@
 package com.example.CarpoolingProject.repository;
 
 import com.example.CarpoolingProject.entity.Payment;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDate;
 import java.util.List;
 
 public interface PaymentRepository extends JpaRepository<Payment, Long> {
     List<Payment> findByUserEmail(String email);
+
+    // One keyset page, newest first, strictly after (d, id); served by idx_payment_user_date
+    @Query("SELECT p FROM Payment p WHERE p.userEmail = :email " +
+            "AND (p.date < :d OR (p.date = :d AND p.id < :id)) " +
+            "ORDER BY p.date DESC, p.id DESC")
+    List<Payment> findPage(@Param("email") String email,
+                           @Param("d") LocalDate d,
+                           @Param("id") Long id,
+                           Pageable page);
 }
@@ -0,0 +1,81 @@
+package com.example.CarpoolingProject.repository;
+
+import com.example.CarpoolingProject.dto.RideResponseDTO;
+import com.example.CarpoolingProject.entity.RideLeg;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface RideLegRepository extends JpaRepository<RideLeg, Long> {
+
+    List<RideLeg> findByRideIdOrderByLegIndexAsc(Long rideId);
+
+    // Legs of several rides at once, to build their seat trees together
+    List<RideLeg> findByRideIdInOrderByRideIdAscLegIndexAsc(Collection<Long> rideIds);
+
+    // ---------------- SEARCH BY STOPS ----------------
+    // Multi-stop rides on :date with a leg leaving :sourceKey and the same or a later leg reaching
+    // :destinationKey. Whole-route matches are left out: RideRepository.findForSearch has them.
+    // Driven by idx_ride_leg_from_key; the ride and the second leg are primary / unique key lookups.
+    @Transactional(readOnly = true)
+    @Query("SELECT new com.example.CarpoolingProject.dto.RideResponseDTO(" +
+            "r.id, r.source, r.destination, r.sourceLat, r.sourceLng, r.destinationLat, r.destinationLng, " +
+            "r.date, r.time, r.bookedSeats, r.availableSeats, r.price, r.rating, r.seatCapacity, r.legCount, " +
+            "d.id, d.name, d.email, d.phone, d.vehicleModel, r.legVersion, f.legIndex, t.legIndex) " +
+            "FROM Ride r JOIN RideLeg f ON f.rideId = r.id " +
+            "JOIN RideLeg t ON t.rideId = r.id AND t.legIndex >= f.legIndex " +
+            "LEFT JOIN r.driver d " +
+            "WHERE f.fromStopKey = :sourceKey AND t.toStopKey = :destinationKey AND r.date = :date " +
+            "AND NOT (f.legIndex = 0 AND t.legIndex = r.legCount - 1)")
+    List<RideResponseDTO> findSegments(@Param("sourceKey") String sourceKey,
+                                       @Param("destinationKey") String destinationKey,
+                                       @Param("date") LocalDate date);
+
+    // Same for the filtered search (see RideRepository.findInWindow). Seats are checked on the
+    // rider's legs only, so the LIMIT of the Pageable applies to rides that can take them.
+    // Ride is the root so the Pageable's sort properties (date, time, price...) resolve on it.
+    @Transactional(readOnly = true)
+    @Query("SELECT new com.example.CarpoolingProject.dto.RideResponseDTO(" +
+            "r.id, r.source, r.destination, r.sourceLat, r.sourceLng, r.destinationLat, r.destinationLng, " +
+            "r.date, r.time, r.bookedSeats, r.availableSeats, r.price, r.rating, r.seatCapacity, r.legCount, " +
+            "d.id, d.name, d.email, d.phone, d.vehicleModel, r.legVersion, f.legIndex, t.legIndex) " +
+            "FROM Ride r JOIN RideLeg f ON f.rideId = r.id " +
+            "JOIN RideLeg t ON t.rideId = r.id AND t.legIndex >= f.legIndex " +
+            "LEFT JOIN r.driver d " +
+            "WHERE f.fromStopKey = :sourceKey AND t.toStopKey = :destinationKey " +
+            "AND NOT (f.legIndex = 0 AND t.legIndex = r.legCount - 1) " +
+            "AND r.date BETWEEN :fromDate AND :toDate " +
+            "AND (r.date > :fromDate OR r.time >= :fromTime) " +
+            "AND (r.date < :toDate OR r.time <= :toTime) " +
+            "AND (:maxPrice IS NULL OR r.price <= :maxPrice) " +
+            "AND r.seatCapacity - (SELECT MAX(l.reservedSeats) FROM RideLeg l " +
+            "    WHERE l.rideId = r.id AND l.legIndex BETWEEN f.legIndex AND t.legIndex) >= :seats")
+    List<RideResponseDTO> findSegmentsInWindow(@Param("sourceKey") String sourceKey,
+                                               @Param("destinationKey") String destinationKey,
+                                               @Param("fromDate") LocalDate fromDate,
+                                               @Param("fromTime") LocalTime fromTime,
+                                               @Param("toDate") LocalDate toDate,
+                                               @Param("toTime") LocalTime toTime,
+                                               @Param("seats") Long seats,
+                                               @Param("maxPrice") Double maxPrice,
+                                               Pageable page);
+
+    // Adds (or with a negative value, removes) seats on legs [from, to)
+    @Modifying
+    @Query("UPDATE RideLeg l SET l.reservedSeats = l.reservedSeats + :seats " +
+            "WHERE l.rideId = :rideId AND l.legIndex >= :from AND l.legIndex < :to")
+    int addSeats(@Param("rideId") Long rideId,
+                 @Param("from") int from,
+                 @Param("to") int to,
+                 @Param("seats") Long seats);
+}
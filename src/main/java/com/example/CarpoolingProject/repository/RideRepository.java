@@ -1,14 +1,161 @@
 package com.example.CarpoolingProject.repository;
 
+import com.example.CarpoolingProject.dto.RideResponseDTO;
 import com.example.CarpoolingProject.entity.Ride;
 import com.example.CarpoolingProject.entity.User;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 import java.time.LocalDate;
+import java.time.LocalTime;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface RideRepository extends JpaRepository<Ride, Long> {
-    List<Ride> findBySourceIgnoreCaseAndDestinationIgnoreCaseAndDate(String source, String destination, LocalDate date);
     List<Ride> findByDriver(User driver);
+
+    // Exact-date search, read with the driver's columns straight into response DTOs.
+    // Keys are Ride.locationKey values; plain equality so idx_ride_route_key_date_time is used.
+    // Read-only here rather than on RideService.search, so cache hits open no transaction.
+    @Transactional(readOnly = true)
+    @Query("SELECT new com.example.CarpoolingProject.dto.RideResponseDTO(" +
+            "r.id, r.source, r.destination, r.sourceLat, r.sourceLng, r.destinationLat, r.destinationLng, " +
+            "r.date, r.time, r.bookedSeats, r.availableSeats, r.price, r.rating, r.seatCapacity, r.legCount, " +
+            "d.id, d.name, d.email, d.phone, d.vehicleModel) " +
+            "FROM Ride r LEFT JOIN r.driver d " +
+            "WHERE r.sourceKey = :sourceKey AND r.destinationKey = :destinationKey AND r.date = :date")
+    List<RideResponseDTO> findForSearch(@Param("sourceKey") String sourceKey,
+                             @Param("destinationKey") String destinationKey,
+                             @Param("date") LocalDate date);
+
+    // Filtered search: departures in [(fromDate, fromTime), (toDate, toTime)] with enough seats and
+    // an optional price cap. The route + date range is a range scan of idx_ride_route_key_date_time;
+    // order and LIMIT come from the Pageable, so only the top rows are returned.
+    @Transactional(readOnly = true)
+    @Query("SELECT new com.example.CarpoolingProject.dto.RideResponseDTO(" +
+            "r.id, r.source, r.destination, r.sourceLat, r.sourceLng, r.destinationLat, r.destinationLng, " +
+            "r.date, r.time, r.bookedSeats, r.availableSeats, r.price, r.rating, r.seatCapacity, r.legCount, " +
+            "d.id, d.name, d.email, d.phone, d.vehicleModel) " +
+            "FROM Ride r LEFT JOIN r.driver d " +
+            "WHERE r.sourceKey = :sourceKey AND r.destinationKey = :destinationKey " +
+            "AND r.date BETWEEN :fromDate AND :toDate " +
+            "AND (r.date > :fromDate OR r.time >= :fromTime) " +
+            "AND (r.date < :toDate OR r.time <= :toTime) " +
+            "AND r.availableSeats >= :seats " +
+            "AND (:maxPrice IS NULL OR r.price <= :maxPrice)")
+    List<RideResponseDTO> findInWindow(@Param("sourceKey") String sourceKey,
+                                       @Param("destinationKey") String destinationKey,
+                                       @Param("fromDate") LocalDate fromDate,
+                                       @Param("fromTime") LocalTime fromTime,
+                                       @Param("toDate") LocalDate toDate,
+                                       @Param("toTime") LocalTime toTime,
+                                       @Param("seats") Long seats,
+                                       @Param("maxPrice") Double maxPrice,
+                                       Pageable page);
+
+    // Rides with their driver, in one query
+    @Query("SELECT r FROM Ride r LEFT JOIN FETCH r.driver WHERE r.id IN :ids")
+    List<Ride> findByIdInWithDriver(@Param("ids") List<Long> ids);
+
+    // Rides with their driver, bookings and passengers, in one query
+    @Query("SELECT r FROM Ride r JOIN FETCH r.driver " +
+            "LEFT JOIN FETCH r.bookings b LEFT JOIN FETCH b.passenger " +
+            "WHERE r.id IN :ids")
+    List<Ride> findByIdInWithBookings(@Param("ids") List<Long> ids);
+
+    // One keyset page of a driver's ride ids, newest first, strictly after (d, t, id).
+    // Served by idx_ride_driver_date_time (+ the implicit primary key).
+    @Query("SELECT r.id FROM Ride r WHERE r.driver.id = :driverId " +
+            "AND (r.date < :d OR (r.date = :d AND (r.time < :t OR (r.time = :t AND r.id < :id)))) " +
+            "ORDER BY r.date DESC, r.time DESC, r.id DESC")
+    List<Long> findDriverPage(@Param("driverId") Long driverId,
+                              @Param("d") LocalDate d,
+                              @Param("t") LocalTime t,
+                              @Param("id") Long id,
+                              Pageable page);
+
+    // [sourceKey, destinationKey, date] of the corridors with the most rides in [from, to]
+    @Query("SELECT r.sourceKey, r.destinationKey, r.date FROM Ride r " +
+            "WHERE r.date BETWEEN :from AND :to " +
+            "GROUP BY r.sourceKey, r.destinationKey, r.date ORDER BY COUNT(r) DESC")
+    List<Object[]> findBusiestCorridors(@Param("from") LocalDate from,
+                                        @Param("to") LocalDate to,
+                                        Pageable page);
+
+    // [key, a spelling, ride count] per source / destination place, for the location index
+    @Query("SELECT r.sourceKey, MIN(r.source), COUNT(r) FROM Ride r " +
+            "WHERE r.sourceKey IS NOT NULL GROUP BY r.sourceKey")
+    List<Object[]> countBySourceKey();
+
+    @Query("SELECT r.destinationKey, MIN(r.destination), COUNT(r) FROM Ride r " +
+            "WHERE r.destinationKey IS NOT NULL GROUP BY r.destinationKey")
+    List<Object[]> countByDestinationKey();
+
+    // [id, date, sourceLat, sourceLng, destinationLat, destinationLng] of rides the geo index should hold
+    @Query("SELECT r.id, r.date, r.sourceLat, r.sourceLng, r.destinationLat, r.destinationLng " +
+            "FROM Ride r WHERE r.date >= :today " +
+            "AND r.sourceLat IS NOT NULL AND r.sourceLng IS NOT NULL " +
+            "AND r.destinationLat IS NOT NULL AND r.destinationLng IS NOT NULL")
+    List<Object[]> findActiveCoordinates(@Param("today") LocalDate today);
+
+    // [templateId, date] of the recurring-ride occurrences that already exist in [from, to]
+    @Query("SELECT r.templateId, r.date FROM Ride r " +
+            "WHERE r.templateId IN :templateIds AND r.date BETWEEN :from AND :to")
+    List<Object[]> findTemplateDates(@Param("templateIds") List<Long> templateIds,
+                                     @Param("from") LocalDate from,
+                                     @Param("to") LocalDate to);
+
+    // Row lock for multi-stop rides: leg updates of one ride are serialized on it
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT r FROM Ride r WHERE r.id = :rideId")
+    Optional<Ride> findByIdForUpdate(@Param("rideId") Long rideId);
+
+    // ---------------- ATOMIC SEAT UPDATES ----------------
+    // Each method is a single conditional UPDATE, so concurrent bookings on the
+    // same ride are serialized by the row lock instead of overwriting each other.
+    // They return the number of rows touched: 0 means the condition failed.
+
+    // Take seats out of availableSeats only if enough are left (single-leg rides only)
+    @Modifying(clearAutomatically = true, flushAutomatically = true)
+    @Query("UPDATE Ride r SET r.availableSeats = r.availableSeats - :seats " +
+            "WHERE r.id = :rideId AND r.availableSeats >= :seats AND r.legCount IS NULL")
+    int reserveSeats(@Param("rideId") Long rideId, @Param("seats") Long seats);
+
+    // Give seats back to availableSeats (reject / cancel of a pending booking)
+    @Modifying(clearAutomatically = true, flushAutomatically = true)
+    @Query("UPDATE Ride r SET r.availableSeats = r.availableSeats + :seats WHERE r.id = :rideId")
+    int releaseSeats(@Param("rideId") Long rideId, @Param("seats") Long seats);
+
+    // Move already reserved seats into bookedSeats (accept)
+    @Modifying(clearAutomatically = true, flushAutomatically = true)
+    @Query("UPDATE Ride r SET r.bookedSeats = r.bookedSeats + :seats WHERE r.id = :rideId")
+    int confirmSeats(@Param("rideId") Long rideId, @Param("seats") Long seats);
+
+    // Give back seats of an accepted booking (cancel after accept)
+    @Modifying(clearAutomatically = true, flushAutomatically = true)
+    @Query("UPDATE Ride r SET r.availableSeats = r.availableSeats + :seats, " +
+            "r.bookedSeats = r.bookedSeats - :seats " +
+            "WHERE r.id = :rideId AND r.bookedSeats >= :seats")
+    int releaseConfirmedSeats(@Param("rideId") Long rideId, @Param("seats") Long seats);
+
+    // Take back the confirmed count of an accepted booking on a multi-stop ride
+    // (its leg seats are released through RideLegInventory)
+    @Modifying(clearAutomatically = true, flushAutomatically = true)
+    @Query("UPDATE Ride r SET r.bookedSeats = r.bookedSeats - :seats " +
+            "WHERE r.id = :rideId AND r.bookedSeats >= :seats")
+    int unconfirmSeats(@Param("rideId") Long rideId, @Param("seats") Long seats);
+
+    // Reserve and confirm in one step, only if enough seats are left
+    @Modifying(clearAutomatically = true, flushAutomatically = true)
+    @Query("UPDATE Ride r SET r.availableSeats = r.availableSeats - :seats, " +
+            "r.bookedSeats = r.bookedSeats + :seats " +
+            "WHERE r.id = :rideId AND r.availableSeats >= :seats AND r.legCount IS NULL")
+    int bookSeats(@Param("rideId") Long rideId, @Param("seats") Long seats);
 }
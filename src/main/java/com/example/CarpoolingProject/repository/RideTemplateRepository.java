@@ -0,0 +1,44 @@
+package com.example.CarpoolingProject.repository;
+
+import com.example.CarpoolingProject.entity.RideTemplate;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface RideTemplateRepository extends JpaRepository<RideTemplate, Long> {
+
+    @Query("SELECT t FROM RideTemplate t WHERE t.driver.id = :driverId ORDER BY t.id")
+    List<RideTemplate> findByDriverId(@Param("driverId") Long driverId);
+
+    // Active templates of a route with service days in [from, to]; served by idx_ride_template_route
+    @Query("SELECT t FROM RideTemplate t " +
+            "WHERE t.sourceKey = :sourceKey AND t.destinationKey = :destinationKey AND t.active = true " +
+            "AND t.startDate <= :to AND (t.endDate IS NULL OR t.endDate >= :from)")
+    List<RideTemplate> findForRoute(@Param("sourceKey") String sourceKey,
+                                    @Param("destinationKey") String destinationKey,
+                                    @Param("from") LocalDate from,
+                                    @Param("to") LocalDate to);
+
+    // One page of ids of active templates not yet generated up to :until, after :id.
+    // Keyset on id so a long run never rescans finished templates.
+    @Query("SELECT t.id FROM RideTemplate t " +
+            "WHERE t.active = true AND (t.materializedUntil IS NULL OR t.materializedUntil < :until) " +
+            "AND (t.endDate IS NULL OR t.endDate >= :today) AND t.id > :id ORDER BY t.id")
+    List<Long> findBehindHorizon(@Param("until") LocalDate until,
+                                 @Param("today") LocalDate today,
+                                 @Param("id") Long id,
+                                 Pageable page);
+
+    // Row locks: generating rides of one template is serialized on it, across nodes
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT t FROM RideTemplate t WHERE t.id IN :ids AND t.active = true")
+    List<RideTemplate> lockActive(@Param("ids") List<Long> ids);
+}
@@ -1,12 +1,19 @@
 package com.example.CarpoolingProject.repository;
 
 import com.example.CarpoolingProject.entity.User;
+import jakarta.persistence.QueryHint;
 import org.springframework.data.jpa.repository.JpaRepository;
-import java.util.Optional;   // ← ADD THIS
+import org.springframework.data.jpa.repository.QueryHints;
+import java.util.Optional;
 
 public interface UserRepository extends JpaRepository<User, Long> {
 
+    // Both lookups go through Hibernate's query cache: a hit costs no SQL (findByEmail then reads
+    // the User itself from the entity cache). Any committed insert/update/delete on users through
+    // Hibernate, bulk JPQL included, invalidates the cached results.
+    @QueryHints(@QueryHint(name = "org.hibernate.cacheable", value = "true"))
     boolean existsByEmail(String email);
 
+    @QueryHints(@QueryHint(name = "org.hibernate.cacheable", value = "true"))
     Optional<User> findByEmail(String email);
 }
@@ -0,0 +1,388 @@
+package com.example.CarpoolingProject.service;
+
+import com.example.CarpoolingProject.dto.BookingEventDTO;
+import com.example.CarpoolingProject.entity.Booking;
+import com.example.CarpoolingProject.entity.BookingEvent;
+import com.example.CarpoolingProject.entity.User;
+import com.example.CarpoolingProject.repository.BookingEventRepository;
+import com.example.CarpoolingProject.repository.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Server-Sent Events for booking changes, so apps no longer poll /booking/my-book and
+ * /ride/booking-requests. Each event goes to the passenger and the driver of the booking,
+ * on every stream they have open on this node.
+ *
+ * Open streams are async requests, so an idle one holds a socket but no thread. A comment
+ * line is sent every heartbeat to keep proxies from closing it. Each user also keeps the
+ * last events of the replay window. A client that reconnects with Last-Event-ID gets what
+ * it missed. If that is no longer known (older than the window, or the node restarted),
+ * it gets a "resync" event and should reload its lists once.
+ *
+ * The node that made the change pushes the event to its own streams after commit. It also
+ * writes the event to booking_events in the same transaction; every other node polls that
+ * table and pushes the rows it did not write to the streams it has open, so a user's stream
+ * may be on any node. A poll re-reads poll-overlap-ms before the previous one, for commits
+ * that landed late and for clock skew; a transaction slower than that loses its event on the
+ * other nodes, and clients recover with the usual resync.
+ *
+ * Writes to the streams run on a few sender threads, never on the committing request thread
+ * or a scheduler thread, so a slow client cannot hold up a booking or the heartbeat. One
+ * stream always uses the same sender, so its events stay in order.
+ */
+@Component
+public class BookingEventHub implements SmartLifecycle {
+
+    private static final Logger log = LoggerFactory.getLogger(BookingEventHub.class);
+
+    public static final String RESYNC = "resync";
+
+    private static final class Event {
+        private final long seq;
+        private final long atMillis;
+        private final BookingEventDTO body;
+
+        private Event(long seq, long atMillis, BookingEventDTO body) {
+            this.seq = seq;
+            this.atMillis = atMillis;
+            this.body = body;
+        }
+    }
+
+    // Everything one user has open or may still ask to replay
+    private static final class Channel {
+        private final Set<SseEmitter> emitters = ConcurrentHashMap.newKeySet();
+        private final ArrayDeque<Event> recent = new ArrayDeque<>();   // guarded by itself
+        private long droppedUpTo;                                       // guarded by recent
+        private volatile long lastActiveMillis = System.currentTimeMillis();
+
+        // Nothing before the channel existed can be replayed
+        private Channel(long createdAtSeq) {
+            this.droppedUpTo = createdAtSeq;
+        }
+    }
+
+    @Autowired
+    private UserRepository userRepo;
+
+    @Autowired
+    private BookingEventRepository eventRepo;
+
+    @Value("${booking.events.timeout-minutes:30}")
+    private long timeoutMinutes;
+
+    @Value("${booking.events.replay-size:50}")
+    private int replaySize;
+
+    @Value("${booking.events.replay-minutes:5}")
+    private long replayMinutes;
+
+    @Value("${booking.events.poll-overlap-ms:5000}")
+    private long pollOverlapMillis;
+
+    @Value("${booking.events.poll-batch-size:500}")
+    private int pollBatchSize;
+
+    @Value("${booking.events.send-threads:4}")
+    private int sendThreads;
+
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreads;
+
+    private final String nodeId = UUID.randomUUID().toString();
+
+    // Event ids are "<epoch>-<seq>": a restart changes the epoch, so stale ids are recognized
+    private final long epoch = System.currentTimeMillis();
+    private final AtomicLong seq = new AtomicLong();
+    private final ConcurrentHashMap<Long, Channel> channels = new ConcurrentHashMap<>();
+    private final AtomicLong connections = new AtomicLong();
+
+    // Other nodes' events already pushed here -> their createdAt (epoch millis), for the overlap
+    private final ConcurrentHashMap<Long, Long> relayed = new ConcurrentHashMap<>();
+    private volatile LocalDateTime polledFrom = LocalDateTime.now();
+
+    private volatile ExecutorService[] senders;
+
+    // ---------------- SUBSCRIBE ----------------
+    public SseEmitter subscribe(String email, String lastEventId) {
+        User user = userRepo.findByEmail(email)
+                .orElseThrow(() -> new RuntimeException("User not found"));
+
+        SseEmitter emitter = new SseEmitter(timeoutMinutes * 60_000);
+        Channel channel = channels.computeIfAbsent(user.getId(), id -> new Channel(seq.get()));
+        channel.lastActiveMillis = System.currentTimeMillis();
+
+        channel.emitters.add(emitter);
+        connections.incrementAndGet();
+        Runnable remove = () -> {
+            if (channel.emitters.remove(emitter))
+                connections.decrementAndGet();
+        };
+        emitter.onCompletion(remove);
+        emitter.onTimeout(remove);
+        emitter.onError(e -> remove.run());
+
+        if (lastEventId != null && !lastEventId.isBlank())
+            replay(channel, emitter, lastEventId.trim());
+        return emitter;
+    }
+
+    private void replay(Channel channel, SseEmitter emitter, String lastEventId) {
+        long after = seqOf(lastEventId);
+
+        List<Event> missed = new ArrayList<>();
+        boolean complete;
+        synchronized (channel.recent) {
+            complete = after >= 0 && after >= channel.droppedUpTo;
+            if (complete) {
+                for (Event e : channel.recent) {
+                    if (e.seq > after)
+                        missed.add(e);
+                }
+            }
+        }
+
+        if (!complete) {
+            send(channel, emitter, SseEmitter.event().name(RESYNC).id(idOf(seq.get())).data(""));
+            return;
+        }
+        for (Event e : missed) {
+            send(channel, emitter, toSse(e));
+        }
+    }
+
+    // -1 if the id is malformed or from another epoch (the node restarted)
+    private long seqOf(String eventId) {
+        int dash = eventId.indexOf('-');
+        try {
+            if (dash < 0 || Long.parseLong(eventId.substring(0, dash)) != epoch)
+                return -1;
+            return Long.parseLong(eventId.substring(dash + 1));
+        } catch (NumberFormatException ex) {
+            return -1;
+        }
+    }
+
+    private String idOf(long s) {
+        return epoch + "-" + s;
+    }
+
+    // ---------------- PUBLISH ----------------
+    // Sends to the booking's passenger and driver once the current transaction commits, and
+    // records the event for the other nodes in that transaction.
+    // Requires booking.ride to be loaded; passenger and driver are only read by id.
+    public void publishAfterCommit(Booking booking, String type, String status) {
+        BookingEventDTO body = new BookingEventDTO(type, booking.getId(), booking.getRide().getId(),
+                status, booking.getSeatsBooked());
+        Long passengerId = booking.getPassenger().getId();
+        Long driverId = booking.getRide().getDriver() != null ? booking.getRide().getDriver().getId() : null;
+
+        eventRepo.save(record(body, passengerId, driverId));
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    publish(body, true, passengerId, driverId);
+                }
+            });
+        } else {
+            publish(body, true, passengerId, driverId);
+        }
+    }
+
+    private BookingEvent record(BookingEventDTO body, Long passengerId, Long driverId) {
+        BookingEvent e = new BookingEvent();
+        e.setNodeId(nodeId);
+        e.setBookingId(body.getBookingId());
+        e.setRideId(body.getRideId());
+        e.setType(body.getType());
+        e.setStatus(body.getStatus());
+        e.setSeats(body.getSeats());
+        e.setPassengerId(passengerId);
+        e.setDriverId(driverId);
+        e.setCreatedAt(LocalDateTime.now());
+        return e;
+    }
+
+    // Local changes open a channel for replay; other nodes' events only go to users with one here
+    private void publish(BookingEventDTO body, boolean local, Long... userIds) {
+        long now = System.currentTimeMillis();
+        for (Long userId : userIds) {
+            if (userId == null)
+                continue;
+            Channel channel = local
+                    ? channels.computeIfAbsent(userId, id -> new Channel(seq.get()))
+                    : channels.get(userId);
+            if (channel == null)
+                continue;
+            // Each copy gets its own id, so the two parties' ids never interleave in one channel's replay
+            Event event = new Event(seq.incrementAndGet(), now, body);
+            channel.lastActiveMillis = now;
+
+            synchronized (channel.recent) {
+                channel.recent.addLast(event);
+                if (channel.recent.size() > replaySize)
+                    channel.droppedUpTo = channel.recent.removeFirst().seq;
+            }
+            for (SseEmitter emitter : channel.emitters) {
+                send(channel, emitter, toSse(event));
+            }
+        }
+    }
+
+    private SseEmitter.SseEventBuilder toSse(Event e) {
+        return SseEmitter.event()
+                .id(idOf(e.seq))
+                .name(e.body.getType())
+                .data(e.body, MediaType.APPLICATION_JSON);
+    }
+
+    // Queued on the stream's sender; dropped once the hub is stopping
+    private void send(Channel channel, SseEmitter emitter, SseEmitter.SseEventBuilder event) {
+        ExecutorService[] lanes = senders;
+        if (lanes == null)
+            return;
+        try {
+            lanes[Math.floorMod(System.identityHashCode(emitter), lanes.length)]
+                    .execute(() -> write(channel, emitter, event));
+        } catch (RejectedExecutionException ex) {
+            // Shutting down
+        }
+    }
+
+    // A failed write means the client is gone: drop the stream instead of retrying
+    private void write(Channel channel, SseEmitter emitter, SseEmitter.SseEventBuilder event) {
+        try {
+            emitter.send(event);
+        } catch (Exception ex) {
+            if (channel.emitters.remove(emitter))
+                connections.decrementAndGet();
+            emitter.complete();
+        }
+    }
+
+    // ---------------- OTHER NODES ----------------
+    @Scheduled(fixedDelayString = "${booking.events.poll-ms:1000}")
+    public void pollOtherNodes() {
+        LocalDateTime startedAt = LocalDateTime.now();
+        LocalDateTime at = polledFrom.minusNanos(pollOverlapMillis * 1_000_000);
+        Long id = 0L;
+
+        List<BookingEvent> page;
+        do {
+            page = eventRepo.findFromOtherNodes(nodeId, at, id, PageRequest.of(0, pollBatchSize));
+            for (BookingEvent e : page) {
+                at = e.getCreatedAt();
+                id = e.getId();
+                if (relayed.putIfAbsent(e.getId(), toMillis(at)) == null) {
+                    BookingEventDTO body = new BookingEventDTO(e.getType(), e.getBookingId(), e.getRideId(),
+                            e.getStatus(), e.getSeats());
+                    publish(body, false, e.getPassengerId(), e.getDriverId());
+                }
+            }
+        } while (page.size() == pollBatchSize);
+
+        // The next poll starts overlap before this one: older entries cannot come back
+        polledFrom = startedAt;
+        long forgetBefore = toMillis(startedAt) - pollOverlapMillis;
+        relayed.values().removeIf(createdAt -> createdAt < forgetBefore);
+    }
+
+    private static long toMillis(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    // ---------------- HEARTBEAT / HOUSEKEEPING ----------------
+    @Scheduled(fixedRateString = "${booking.events.heartbeat-ms:20000}")
+    public void heartbeat() {
+        for (Channel channel : channels.values()) {
+            for (SseEmitter emitter : channel.emitters) {
+                send(channel, emitter, SseEmitter.event().comment("ping"));
+            }
+        }
+    }
+
+    // Users with no open stream and nothing left to replay, and rows every node has polled
+    @Scheduled(fixedDelayString = "${booking.events.purge-ms:60000}")
+    public void purgeIdleChannels() {
+        long cutoff = System.currentTimeMillis() - replayMinutes * 60_000;
+        channels.values().removeIf(c -> {
+            synchronized (c.recent) {
+                while (!c.recent.isEmpty() && c.recent.peekFirst().atMillis < cutoff)
+                    c.droppedUpTo = c.recent.removeFirst().seq;
+            }
+            return c.emitters.isEmpty() && c.lastActiveMillis < cutoff;
+        });
+        eventRepo.deleteCreatedBefore(LocalDateTime.now().minusMinutes(replayMinutes));
+    }
+
+    // ---------------- SENDERS ----------------
+    @Override
+    public synchronized void start() {
+        ExecutorService[] lanes = new ExecutorService[Math.max(sendThreads, 1)];
+        for (int i = 0; i < lanes.length; i++) {
+            String name = "sse-send-" + i;
+            ThreadFactory factory = virtualThreads
+                    ? Thread.ofVirtual().name(name).factory()
+                    : r -> new Thread(r, name);
+            lanes[i] = Executors.newSingleThreadExecutor(factory);
+        }
+        senders = lanes;
+    }
+
+    // Open streams are closed by the container; pending writes are dropped
+    @Override
+    public synchronized void stop() {
+        ExecutorService[] lanes = senders;
+        senders = null;
+        if (lanes == null)
+            return;
+        for (ExecutorService lane : lanes) {
+            lane.shutdownNow();
+        }
+        for (ExecutorService lane : lanes) {
+            try {
+                if (!lane.awaitTermination(5, TimeUnit.SECONDS))
+                    log.warn("SSE sender still writing after 5s");
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    @Override
+    public synchronized boolean isRunning() {
+        return senders != null;
+    }
+
+    public long connectionCount() {
+        return connections.get();
+    }
+}
@@ -0,0 +1,230 @@
+package com.example.CarpoolingProject.service;
+
+import com.example.CarpoolingProject.config.AppMetrics;
+import com.example.CarpoolingProject.entity.Booking;
+import com.example.CarpoolingProject.entity.Ride;
+import com.example.CarpoolingProject.repository.BookingRepository;
+import com.example.CarpoolingProject.repository.RideRepository;
+import com.example.CarpoolingProject.util.TimingWheel;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Time limit on PENDING bookings. A pending booking holds its seats until holdExpiresAt;
+ * if the driver has not accepted or rejected it by then, it becomes EXPIRED and the seats
+ * go back to the ride.
+ *
+ * Deadlines live in memory, keyed by booking id, and a timing wheel finds the due ones, so
+ * a tick costs the holds that fall due in it rather than a query over all pending bookings.
+ * Due holds are expired in batches, one transaction each. The wheel is rebuilt from the
+ * bookings table at startup.
+ *
+ * A new hold is tracked right away by the instance that took it. The others pick it up with
+ * a periodic catch-up scan of the holds whose deadline is past the latest one they have seen
+ * (minus an overlap for slow commits and clock skew), so a hold still expires when the node
+ * that took it is gone. The expiring transaction re-checks status and deadline under a row
+ * lock, so only one instance releases the seats.
+ */
+@Service
+public class BookingHoldService {
+
+    private static final Logger log = LoggerFactory.getLogger(BookingHoldService.class);
+
+    private static final long TICK_MILLIS = 1000;
+
+    @Autowired
+    private BookingRepository bookingRepo;
+
+    @Autowired
+    private RideRepository rideRepo;
+
+    @Autowired
+    private RideLegInventory legInventory;
+
+    @Autowired
+    private RideSearchCache searchCache;
+
+    @Autowired
+    private BookingEventHub events;
+
+    @Autowired
+    private AppMetrics metrics;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${booking.hold.minutes:30}")
+    private int holdMinutes;
+
+    @Value("${booking.hold.batch-size:500}")
+    private int batchSize;
+
+    @Value("${booking.hold.catch-up-overlap-ms:60000}")
+    private long catchUpOverlapMillis;
+
+    // bookingId -> deadline (epoch millis); 1s ticks, one turn = 1 hour
+    private final ConcurrentHashMap<Long, Long> deadlines = new ConcurrentHashMap<>();
+    private final TimingWheel<Long> wheel = new TimingWheel<>(3600, TICK_MILLIS);
+
+    // Latest deadline any scan has seen; null until the startup rebuild ran
+    private volatile LocalDateTime scannedUpTo;
+
+    // ---------------- HOLD ----------------
+    public LocalDateTime newDeadline() {
+        return LocalDateTime.now().plusMinutes(holdMinutes);
+    }
+
+    // Starts tracking the hold once the booking is committed (right away without a transaction)
+    public void trackAfterCommit(Booking booking) {
+        Long id = booking.getId();
+        long deadline = toMillis(booking.getHoldExpiresAt());
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    track(id, deadline);
+                }
+            });
+        } else {
+            track(id, deadline);
+        }
+    }
+
+    // The booking was answered or cancelled; its wheel slot is cleaned up when passed
+    public void forget(Long bookingId) {
+        deadlines.remove(bookingId);
+    }
+
+    private void track(Long bookingId, long deadline) {
+        deadlines.put(bookingId, deadline);
+        // Overdue holds (rebuild after downtime, failed batch) go into the next tick
+        wheel.schedule(bookingId, Math.max(deadline, System.currentTimeMillis() + TICK_MILLIS));
+    }
+
+    // ---------------- REBUILD / CATCH-UP ----------------
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        int loaded = scan(LocalDateTime.of(1970, 1, 1, 0, 0));
+        log.info("Booking holds loaded: {}", loaded);
+    }
+
+    // Holds taken on other instances since the last scan
+    @Scheduled(fixedDelayString = "${booking.hold.catch-up-ms:15000}")
+    public void catchUp() {
+        LocalDateTime from = scannedUpTo;
+        if (from == null)
+            return;
+
+        int found = scan(from.minusNanos(catchUpOverlapMillis * 1_000_000));
+        if (found > 0)
+            log.debug("Booking holds picked up from other instances: {}", found);
+    }
+
+    // Tracks the pending holds with a deadline after from that are not tracked yet; returns how many
+    private int scan(LocalDateTime from) {
+        LocalDateTime at = from;
+        Long id = 0L;
+        int tracked = 0;
+
+        List<Object[]> page;
+        do {
+            page = bookingRepo.findHoldPage(at, id, PageRequest.of(0, batchSize));
+            for (Object[] row : page) {
+                id = (Long) row[0];
+                at = (LocalDateTime) row[1];
+                if (!deadlines.containsKey(id)) {
+                    track(id, toMillis(at));
+                    tracked++;
+                }
+            }
+        } while (page.size() == batchSize);
+
+        LocalDateTime seen = scannedUpTo;
+        if (seen == null || at.isAfter(seen))
+            scannedUpTo = at;
+        return tracked;
+    }
+
+    // ---------------- EXPIRY ----------------
+    @Scheduled(fixedRate = TICK_MILLIS)
+    public void expireDueHolds() {
+        long now = System.currentTimeMillis();
+        List<Long> due = new ArrayList<>();
+        wheel.advance(now, id -> {
+            Long deadline = deadlines.get(id);
+            if (deadline == null)
+                return true;
+            if (deadline > now)
+                return false;
+            deadlines.remove(id, deadline);
+            due.add(id);
+            return true;
+        });
+
+        for (int from = 0; from < due.size(); from += batchSize) {
+            List<Long> batch = due.subList(from, Math.min(from + batchSize, due.size()));
+            try {
+                Integer expired = transactionTemplate.execute(tx -> expire(batch));
+                metrics.holdsExpired.increment(expired);
+            } catch (RuntimeException ex) {
+                // Lock timeout or deadlock with a booking on the same ride: try again next tick
+                log.warn("Expiring {} booking holds failed, retrying next tick: {}", batch.size(), ex.getMessage());
+                for (Long id : batch)
+                    track(id, now);
+            }
+        }
+    }
+
+    private int expire(List<Long> ids) {
+        List<Booking> holds = bookingRepo.lockExpiredHolds(ids, LocalDateTime.now());
+        if (holds.isEmpty())
+            return 0;
+
+        // Collected before the bulk updates below clear the persistence context
+        Map<Long, Long> seatsByRide = new HashMap<>();
+        List<Booking> multiStop = new ArrayList<>();
+        Map<Long, Ride> rides = new HashMap<>();
+        for (Booking b : holds) {
+            Ride ride = b.getRide();
+            rides.put(ride.getId(), ride);
+            if (ride.getLegCount() != null)
+                multiStop.add(b);
+            else
+                seatsByRide.merge(ride.getId(), b.getSeatsBooked(), Long::sum);
+        }
+
+        bookingRepo.markExpired(holds.stream().map(Booking::getId).toList());
+
+        seatsByRide.forEach(rideRepo::releaseSeats);
+        for (Booking b : multiStop)
+            legInventory.release(b.getRide().getId(), b.getFromStop(), b.getToStop(), b.getSeatsBooked());
+
+        rides.values().forEach(searchCache::evictAfterCommit);
+        for (Booking b : holds)
+            events.publishAfterCommit(b, "expired", "EXPIRED");
+        return holds.size();
+    }
+
+    private static long toMillis(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
@@ -1,16 +1,26 @@
 package com.example.CarpoolingProject.service;
 
+import com.example.CarpoolingProject.config.AppMetrics;
+import com.example.CarpoolingProject.config.ReadYourWrites;
 import com.example.CarpoolingProject.dto.BookingRequestDTO;
+import com.example.CarpoolingProject.dto.BookingResponseDTO;
+import com.example.CarpoolingProject.dto.CursorPage;
 import com.example.CarpoolingProject.entity.Booking;
+import com.example.CarpoolingProject.entity.MailLane;
 import com.example.CarpoolingProject.entity.Ride;
 import com.example.CarpoolingProject.entity.User;
 import com.example.CarpoolingProject.repository.BookingRepository;
 import com.example.CarpoolingProject.repository.RideRepository;
 import com.example.CarpoolingProject.repository.UserRepository;
+import com.example.CarpoolingProject.util.Cursor;
+import com.example.CarpoolingProject.util.SingleFlight;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 @Service
 public class BookingService {
@@ -25,20 +35,66 @@ public class BookingService {
     private UserRepository userRepo;
 
     @Autowired
-    private EmailService emailService;
+    private EmailOutboxService emailOutboxService;
+
+    @Autowired
+    private EarningsService earningsService;
+
+    @Autowired
+    private RideLegInventory legInventory;
+
+    @Autowired
+    private AppMetrics metrics;
+
+    @Autowired
+    private RideSearchCache searchCache;
+
+    @Autowired
+    private BookingHoldService holdService;
+
+    @Autowired
+    private BookingEventHub events;
+
+    // Both parties read their own change from the primary for a few seconds (replica lag)
+    @Autowired
+    private ReadYourWrites readYourWrites;
+
+    // Identical concurrent "my bookings" refreshes share one query; keyed on the passenger's
+    // write generation like RideService.ridesByDriver
+    private final SingleFlight<String, CursorPage<BookingResponseDTO>> bookingsByPassenger =
+            new SingleFlight<>(() -> metrics.coalescedBookingsByPassenger.increment());
 
 
     // -------------------- BOOK A RIDE --------------------
-    public Booking bookRide(BookingRequestDTO dto, String passengerEmail) {
+    @Transactional
+    public BookingResponseDTO bookRide(BookingRequestDTO dto, String passengerEmail) {
+        long start = System.nanoTime();
+        try {
+            return BookingResponseDTO.from(doBookRide(dto, passengerEmail));
+        } finally {
+            metrics.bookRide.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
 
-        Ride ride = rideRepo.findById(dto.getRideId())
-                .orElseThrow(() -> new RuntimeException("Ride not found"));
+    private Booking doBookRide(BookingRequestDTO dto, String passengerEmail) {
 
-        if (dto.getSeats() <= 0)
+        if (dto.getSeats() == null || dto.getSeats() <= 0)
             throw new RuntimeException("You must book at least 1 seat");
 
-        if (ride.getAvailableSeats() < dto.getSeats())
-            throw new RuntimeException("Not enough seats available");
+        Long seatsToBook = dto.getSeats().longValue();
+        boolean wholeRide = dto.getFromStop() == null && dto.getToStop() == null;
+
+        // 🔥 Reduce available seats in one conditional UPDATE, so two passengers
+        // can never both take the last seat
+        Ride ride;
+        if (wholeRide && rideRepo.reserveSeats(dto.getRideId(), seatsToBook) == 1) {
+            ride = rideRepo.findById(dto.getRideId())
+                    .orElseThrow(() -> new RuntimeException("Ride not found"));
+        } else {
+            // Multi-stop ride (or the simple path failed): reserve per leg, which also
+            // reports "Ride not found" / "Not enough seats available"
+            ride = legInventory.reserve(dto.getRideId(), dto.getFromStop(), dto.getToStop(), seatsToBook);
+        }
 
         User passenger = userRepo.findByEmail(passengerEmail)
                 .orElseThrow(() -> new RuntimeException("Passenger not found"));
@@ -46,56 +102,117 @@ public class BookingService {
         Booking booking = new Booking();
         booking.setRide(ride);
         booking.setPassenger(passenger);
-        booking.setSeatsBooked(dto.getSeats().longValue());
+        booking.setSeatsBooked(seatsToBook);
         booking.setStatus("PENDING");
+        booking.setHoldExpiresAt(holdService.newDeadline());
 
-        Long seatsToBook = booking.getSeatsBooked();
-
-        // 🔥 Reduce available seats immediately
-        ride.setAvailableSeats(ride.getAvailableSeats() - seatsToBook);
+        if (ride.getLegCount() != null) {
+            booking.setFromStop(dto.getFromStop() != null ? dto.getFromStop() : 0);
+            booking.setToStop(dto.getToStop() != null ? dto.getToStop() : ride.getLegCount());
+        }
 
-        rideRepo.save(ride);
-        return bookingRepo.save(booking);
+        searchCache.evictAfterCommit(ride);
+        Booking saved = bookingRepo.save(booking);
+        holdService.trackAfterCommit(saved);
+        events.publishAfterCommit(saved, "created", "PENDING");
+        readYourWrites.markAfterCommit(passengerEmail, ride.getDriver().getEmail());
+        return saved;
     }
 
 
     // -------------------- PASSENGER BOOKINGS --------------------
-    public List<Booking> getBookingsByPassenger(String email) {
-        User passenger = userRepo.findByEmail(email)
-                .orElseThrow(() -> new RuntimeException("Passenger not found"));
-        return bookingRepo.findByPassenger(passenger);
+    // Newest ride first; cursor is the token of the previous page (null for the first one)
+    public CursorPage<BookingResponseDTO> getBookingsByPassenger(String email, String cursor, int size) {
+        int limit = CursorPage.checkSize(size);
+        Cursor after = Cursor.decode(cursor, Cursor.LATEST);
+
+        String key = email + '|' + after.encode() + '|' + limit;
+        return bookingsByPassenger.execute(key + '#' + readYourWrites.generation(email), () -> {
+            User passenger = userRepo.findByEmail(email)
+                    .orElseThrow(() -> new RuntimeException("Passenger not found"));
+
+            List<BookingResponseDTO> rows = bookingRepo.findPassengerPage(passenger.getId(),
+                            after.getDate(), after.getTime(), after.getId(), PageRequest.of(0, limit + 1))
+                    .stream()
+                    .map(BookingResponseDTO::from)
+                    .toList();
+            return CursorPage.of(rows, limit, BookingService::positionOf);
+        });
     }
 
 
     // -------------------- DRIVER BOOKING REQUESTS --------------------
-    public List<Booking> getBookingRequestsForDriver(String driverEmail) {
+    public CursorPage<BookingResponseDTO> getBookingRequestsForDriver(String driverEmail, String cursor, int size) {
+        int limit = CursorPage.checkSize(size);
+        Cursor after = Cursor.decode(cursor, Cursor.LATEST);
+
         User driver = userRepo.findByEmail(driverEmail)
                 .orElseThrow(() -> new RuntimeException("Driver not found"));
-        return bookingRepo.findByRide_DriverAndStatus(driver, "PENDING");
+
+        List<BookingResponseDTO> rows = bookingRepo.findDriverRequestsPage(driver.getId(), "PENDING",
+                        after.getDate(), after.getTime(), after.getId(), PageRequest.of(0, limit + 1))
+                .stream()
+                .map(BookingResponseDTO::from)
+                .toList();
+        return CursorPage.of(rows, limit, BookingService::positionOf);
+    }
+
+    private static Cursor positionOf(BookingResponseDTO booking) {
+        return new Cursor(booking.getRide().getDate(), booking.getRide().getTime(), booking.getId());
     }
 
 
     // -------------------- CANCEL BOOKING --------------------
+    @Transactional
     public void cancelBooking(Long bookingId, String passengerEmail) {
-        Booking booking = bookingRepo.findById(bookingId)
+        Booking booking = bookingRepo.findByIdWithRide(bookingId)
                 .orElseThrow(() -> new RuntimeException("Booking not found"));
 
         if (!booking.getPassenger().getEmail().equals(passengerEmail))
             throw new RuntimeException("Not authorized to cancel this booking");
 
         Ride ride = booking.getRide();
-
-        // Restore seats
-        ride.setAvailableSeats(ride.getAvailableSeats() + booking.getSeatsBooked());
-        rideRepo.save(ride);
-
-        bookingRepo.delete(booking);
+        Long rideId = ride.getId();
+        Long seats = booking.getSeatsBooked();
+        String status = booking.getStatus();
+
+        // Delete only if the driver did not accept/reject it in the meantime
+        if (bookingRepo.deleteByIdAndStatus(bookingId, status) == 0)
+            throw new RuntimeException("Booking status changed, please try again");
+
+        holdService.forget(bookingId);
+        events.publishAfterCommit(booking, "cancelled", null);
+        readYourWrites.markAfterCommit(passengerEmail, ride.getDriver().getEmail());
+        searchCache.evictAfterCommit(ride);
+
+        // Restore seats (a rejected or expired booking already gave its seats back)
+        if ("PENDING".equals(status)) {
+            releaseSeats(ride, booking);
+        } else if ("ACCEPTED".equals(status)) {
+            if (ride.getLegCount() != null) {
+                legInventory.release(rideId, booking.getFromStop(), booking.getToStop(), seats);
+                rideRepo.unconfirmSeats(rideId, seats);
+            } else {
+                rideRepo.releaseConfirmedSeats(rideId, seats);
+            }
+            earningsService.recordCancelled(ride, seats);
+        }
     }
 
 
     // -------------------- ACCEPT BOOKING --------------------
-    public Booking acceptBooking(Long bookingId, String driverEmail) {
-        Booking booking = bookingRepo.findById(bookingId)
+    @Transactional
+    public BookingResponseDTO acceptBooking(Long bookingId, String driverEmail) {
+        long start = System.nanoTime();
+        try {
+            return BookingResponseDTO.from(doAcceptBooking(bookingId, driverEmail));
+        } finally {
+            metrics.acceptBooking.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private Booking doAcceptBooking(Long bookingId, String driverEmail) {
+        Booking booking = bookingRepo.findByIdWithRide(bookingId)
                 .orElseThrow(() -> new RuntimeException("Booking not found"));
 
         Ride ride = booking.getRide();
@@ -103,24 +220,35 @@ public class BookingService {
         if (!ride.getDriver().getEmail().equals(driverEmail))
             throw new RuntimeException("You are not allowed to modify this booking");
 
-        booking.setStatus("ACCEPTED");
+        // Only one accept/reject can win for a pending booking
+        if (bookingRepo.updateStatus(bookingId, "PENDING", "ACCEPTED") == 0)
+            throw new RuntimeException("Booking is no longer pending");
+        holdService.forget(bookingId);
+        events.publishAfterCommit(booking, "accepted", "ACCEPTED");
+        readYourWrites.markAfterCommit(booking.getPassenger().getEmail(), driverEmail);
 
         // Move seats from pending to confirmed
-        ride.setBookedSeats(ride.getBookedSeats() + booking.getSeatsBooked());
+        rideRepo.confirmSeats(ride.getId(), booking.getSeatsBooked());
+        searchCache.evictAfterCommit(ride);
 
-        rideRepo.save(ride);
-        Booking updatedBooking = bookingRepo.save(booking);
+        Booking updatedBooking = bookingRepo.findByIdWithRide(bookingId)
+                .orElseThrow(() -> new RuntimeException("Booking not found"));
+
+        // Add to the driver's earnings ledger
+        earningsService.recordAccepted(updatedBooking.getRide(), updatedBooking.getSeatsBooked());
 
         // Send emails
-        sendBookingEmails(ride.getDriver(), booking.getPassenger(), ride, booking.getSeatsBooked());
+        sendBookingEmails(updatedBooking.getRide().getDriver(), updatedBooking.getPassenger(),
+                updatedBooking.getRide(), updatedBooking.getSeatsBooked());
 
         return updatedBooking; // <-- Return updated booking
     }
 
 
     // -------------------- REJECT BOOKING --------------------
-    public Booking rejectBooking(Long bookingId, String driverEmail) {
-        Booking booking = bookingRepo.findById(bookingId)
+    @Transactional
+    public BookingResponseDTO rejectBooking(Long bookingId, String driverEmail) {
+        Booking booking = bookingRepo.findByIdWithRide(bookingId)
                 .orElseThrow(() -> new RuntimeException("Booking not found"));
 
         Ride ride = booking.getRide();
@@ -128,42 +256,51 @@ public class BookingService {
         if (!ride.getDriver().getEmail().equals(driverEmail))
             throw new RuntimeException("You are not allowed to modify this booking");
 
-        booking.setStatus("REJECTED");
+        // Only one accept/reject can win for a pending booking
+        if (bookingRepo.updateStatus(bookingId, "PENDING", "REJECTED") == 0)
+            throw new RuntimeException("Booking is no longer pending");
+        holdService.forget(bookingId);
+        events.publishAfterCommit(booking, "rejected", "REJECTED");
+        readYourWrites.markAfterCommit(booking.getPassenger().getEmail(), driverEmail);
 
         // Restore seats
-        ride.setAvailableSeats(ride.getAvailableSeats() + booking.getSeatsBooked());
+        releaseSeats(ride, booking);
+        searchCache.evictAfterCommit(ride);
 
-        rideRepo.save(ride);
-        Booking updatedBooking = bookingRepo.save(booking);
+        Booking updatedBooking = bookingRepo.findByIdWithRide(bookingId)
+                .orElseThrow(() -> new RuntimeException("Booking not found"));
 
-        return updatedBooking; // <-- Return updated booking
+        return BookingResponseDTO.from(updatedBooking); // <-- Return updated booking
     }
 
 
-    // -------------------- EMAIL NOTIFICATIONS --------------------
-    private void sendBookingEmails(User driver, User passenger, Ride ride, Long seats) {
-        try {
-            String passengerMsg = "Your booking is confirmed!\n\n" +
-                    "Ride: " + ride.getSource() + " → " + ride.getDestination() + "\n" +
-                    "Driver: " + driver.getName() + "\n" +
-                    "Seats: " + seats + "\n" +
-                    "Date: " + ride.getDate() + " | Time: " + ride.getTime();
+    // Gives back the seats of a pending booking
+    private void releaseSeats(Ride ride, Booking booking) {
+        if (ride.getLegCount() != null) {
+            legInventory.release(ride.getId(), booking.getFromStop(), booking.getToStop(), booking.getSeatsBooked());
+        } else {
+            rideRepo.releaseSeats(ride.getId(), booking.getSeatsBooked());
+        }
+    }
 
-            emailService.sendEmail(passenger.getEmail(), "Booking Confirmed", passengerMsg);
 
-            String driverMsg = "A passenger booked your ride!\n\n" +
-                    "Passenger: " + passenger.getName() + "\n" +
-                    "Seats: " + seats + "\n" +
-                    "Ride: " + ride.getSource() + " → " + ride.getDestination() + "\n" +
-                    "Date: " + ride.getDate() + " | Time: " + ride.getTime();
+    // -------------------- EMAIL NOTIFICATIONS --------------------
+    // Queued in the outbox as part of the accept transaction; sent later by EmailOutboxService
+    private void sendBookingEmails(User driver, User passenger, Ride ride, Long seats) {
+        String passengerMsg = "Your booking is confirmed!\n\n" +
+                "Ride: " + ride.getSource() + " → " + ride.getDestination() + "\n" +
+                "Driver: " + driver.getName() + "\n" +
+                "Seats: " + seats + "\n" +
+                "Date: " + ride.getDate() + " | Time: " + ride.getTime();
 
-            emailService.sendEmail(driver.getEmail(), "New Booking Accepted", driverMsg);
+        emailOutboxService.enqueue(passenger.getEmail(), "Booking Confirmed", passengerMsg, MailLane.BOOKING);
 
-            System.out.println("Emails sent successfully ✅");
+        String driverMsg = "A passenger booked your ride!\n\n" +
+                "Passenger: " + passenger.getName() + "\n" +
+                "Seats: " + seats + "\n" +
+                "Ride: " + ride.getSource() + " → " + ride.getDestination() + "\n" +
+                "Date: " + ride.getDate() + " | Time: " + ride.getTime();
 
-        } catch (Exception ex) {
-            System.out.println("Email sending failed ❌: " + ex.getMessage());
-            ex.printStackTrace();
-        }
+        emailOutboxService.enqueue(driver.getEmail(), "New Booking Accepted", driverMsg, MailLane.BOOKING);
     }
 }
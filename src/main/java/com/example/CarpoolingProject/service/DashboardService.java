@@ -1,16 +1,19 @@
 package com.example.CarpoolingProject.service;
 
+import com.example.CarpoolingProject.dto.CursorPage;
 import com.example.CarpoolingProject.dto.DriverDashboardDTO;
 import com.example.CarpoolingProject.dto.PassengerDashboardDTO;
-import com.example.CarpoolingProject.entity.Booking;
-import com.example.CarpoolingProject.entity.User;
 import com.example.CarpoolingProject.repository.BookingRepository;
-import com.example.CarpoolingProject.repository.UserRepository;
+import com.example.CarpoolingProject.util.Cursor;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDate;
+import java.time.LocalTime;
 import java.util.List;
-import java.util.stream.Collectors;
 
 @Service
 public class DashboardService {
@@ -18,58 +21,44 @@ public class DashboardService {
     @Autowired
     private BookingRepository bookingRepo;
 
-    @Autowired
-    private UserRepository userRepo;
-
     // Passenger Dashboard
-    public List<PassengerDashboardDTO> getPassengerDashboard(String passengerEmail) {
-        User passenger = userRepo.findByEmail(passengerEmail)
-                .orElseThrow(() -> new RuntimeException("Passenger not found"));
-
-        return bookingRepo.findAll().stream()
-                .filter(b -> b.getPassenger().getId().equals(passenger.getId()))
-                .map(b -> {
-                    PassengerDashboardDTO dto = new PassengerDashboardDTO();
-                    dto.setSource(b.getRide().getSource());
-                    dto.setDestination(b.getRide().getDestination());
-                    dto.setDate(b.getRide().getDate());
-                    dto.setTime(b.getRide().getTime());
+    @Transactional(readOnly = true)
+    public CursorPage<PassengerDashboardDTO> getPassengerDashboard(String passengerEmail, boolean upcoming,
+                                                                   String cursor, int size) {
+        LocalDate today = LocalDate.now();
+        int limit = CursorPage.checkSize(size);
+        Cursor after = Cursor.decode(cursor, firstPosition(upcoming, today));
+        Pageable pageable = PageRequest.of(0, limit + 1);
 
-                    // FIX for Line 37: Convert Long to Integer/int for the DTO setter
-                    dto.setSeatsBooked(b.getSeatsBooked().intValue());
+        List<PassengerDashboardDTO> rows = upcoming
+                ? bookingRepo.findUpcomingForPassenger(passengerEmail, today,
+                        after.getDate(), after.getTime(), after.getId(), pageable)
+                : bookingRepo.findPastForPassenger(passengerEmail, today,
+                        after.getDate(), after.getTime(), after.getId(), pageable);
 
-                    dto.setDriverName(b.getRide().getDriver().getName());
-                    dto.setDriverContact(b.getRide().getDriver().getPhone());
-                    dto.setVehicleModel(
-                            b.getRide().getDriver() != null
-                                    ? b.getRide().getDriver().getVehicleModel()
-                                    : "N/A"
-                    );
-                    return dto;
-                }).collect(Collectors.toList());
+        return CursorPage.of(rows, limit, dto -> new Cursor(dto.getDate(), dto.getTime(), dto.getBookingId()));
     }
 
     // Driver Dashboard
-    public List<DriverDashboardDTO> getDriverDashboard(String driverEmail) {
-        User driver = userRepo.findByEmail(driverEmail)
-                .orElseThrow(() -> new RuntimeException("Driver not found"));
+    @Transactional(readOnly = true)
+    public CursorPage<DriverDashboardDTO> getDriverDashboard(String driverEmail, boolean upcoming,
+                                                             String cursor, int size) {
+        LocalDate today = LocalDate.now();
+        int limit = CursorPage.checkSize(size);
+        Cursor after = Cursor.decode(cursor, firstPosition(upcoming, today));
+        Pageable pageable = PageRequest.of(0, limit + 1);
 
-        return bookingRepo.findAll().stream()
-                .filter(b -> b.getRide().getDriver().getId().equals(driver.getId()))
-                .map(b -> {
-                    DriverDashboardDTO dto = new DriverDashboardDTO();
-                    dto.setSource(b.getRide().getSource());
-                    dto.setDestination(b.getRide().getDestination());
-                    dto.setDate(b.getRide().getDate());
-                    dto.setTime(b.getRide().getTime());
+        List<DriverDashboardDTO> rows = upcoming
+                ? bookingRepo.findUpcomingForDriver(driverEmail, today,
+                        after.getDate(), after.getTime(), after.getId(), pageable)
+                : bookingRepo.findPastForDriver(driverEmail, today,
+                        after.getDate(), after.getTime(), after.getId(), pageable);
 
-                    // FIX for Line 57: Convert Long to Integer/int for the DTO setter
-                    dto.setSeatsBooked(b.getSeatsBooked().intValue());
-
-                    dto.setPassengerName(b.getPassenger().getName());
-                    dto.setPassengerContact(b.getPassenger().getPhone());
+        return CursorPage.of(rows, limit, dto -> new Cursor(dto.getDate(), dto.getTime(), dto.getBookingId()));
+    }
 
-                    return dto;
-                }).collect(Collectors.toList());
+    // Upcoming pages go forward from the start of today, past pages backward from the far future
+    private Cursor firstPosition(boolean upcoming, LocalDate today) {
+        return upcoming ? new Cursor(today, LocalTime.MIDNIGHT, 0L) : Cursor.LATEST;
     }
-}
\ No newline at end of file
+}
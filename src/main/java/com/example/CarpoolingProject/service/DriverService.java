@@ -1,17 +1,22 @@
 package com.example.CarpoolingProject.service;
 
+import com.example.CarpoolingProject.config.ReadYourWrites;
+import com.example.CarpoolingProject.dto.CursorPage;
+import com.example.CarpoolingProject.dto.EarningsSummaryDTO;
 import com.example.CarpoolingProject.dto.RideDTO;
-import com.example.CarpoolingProject.entity.Booking;
+import com.example.CarpoolingProject.dto.RideResponseDTO;
+import com.example.CarpoolingProject.entity.EarningsPeriod;
 import com.example.CarpoolingProject.entity.Ride;
 import com.example.CarpoolingProject.entity.User;
 import com.example.CarpoolingProject.entity.Role;
-import com.example.CarpoolingProject.repository.BookingRepository;
 import com.example.CarpoolingProject.repository.RideRepository;
 import com.example.CarpoolingProject.repository.UserRepository;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDate;
 import java.util.List;
 
 @Service
@@ -24,7 +29,25 @@ public class DriverService {
     private RideRepository rideRepository;
 
     @Autowired
-    private BookingRepository bookingRepository;
+    private EarningsService earningsService;
+
+    @Autowired
+    private RideGeoIndex rideGeoIndex;
+
+    @Autowired
+    private LocationIndex locationIndex;
+
+    @Autowired
+    private ReadYourWrites readYourWrites;
+
+    @Autowired
+    private RideLegInventory legInventory;
+
+    @Autowired
+    private RideSearchCache searchCache;
+
+    @Autowired
+    private RideService rideService;
 
     // ---------------- GET DRIVER BY EMAIL ----------------
     public User getDriverByEmail(String email) {
@@ -42,13 +65,18 @@ public class DriverService {
     }
 
     // ---------------- POST NEW RIDE ----------------
-    public Ride postRide(String email, RideDTO dto) {
+    @Transactional
+    public RideResponseDTO postRide(String email, RideDTO dto) {
         User driver = getDriverByEmail(email);
 
         Ride ride = new Ride();
         ride.setDriver(driver);
         ride.setSource(dto.getSource());
         ride.setDestination(dto.getDestination());
+        ride.setSourceLat(dto.getSourceLat());
+        ride.setSourceLng(dto.getSourceLng());
+        ride.setDestinationLat(dto.getDestinationLat());
+        ride.setDestinationLng(dto.getDestinationLng());
         ride.setDate(dto.getDate());
         ride.setTime(dto.getTime());
 
@@ -58,23 +86,38 @@ public class DriverService {
 
         ride.setPrice(dto.getPrice());
 
-        return rideRepository.save(ride);
+        // Multi-stop ride: seats are tracked per leg
+        if (dto.getStops() != null && !dto.getStops().isEmpty()) {
+            ride.setSeatCapacity(ride.getAvailableSeats());
+            ride.setLegCount(dto.getStops().size() + 1);
+        }
+
+        Ride saved = rideRepository.save(ride);
+        legInventory.createLegs(saved, dto.getStops());
+        rideGeoIndex.addAfterCommit(saved);
+        locationIndex.addAfterCommit(saved);
+        searchCache.evictAfterCommit(saved);
+        readYourWrites.markAfterCommit(email);
+        return RideResponseDTO.withBookings(saved);
     }
 
     // ---------------- GET RIDES BY DRIVER ----------------
-    public List<Ride> getRidesByDriver(String email) {
-        User driver = getDriverByEmail(email);
-        return rideRepository.findByDriver(driver);
+    public CursorPage<RideResponseDTO> getRidesByDriver(String email, String cursor, int size) {
+        return rideService.getRidesByDriver(email, cursor, size);
     }
 
     // ---------------- CALCULATE DRIVER EARNINGS ----------------
+    // Accepted bookings only, read from the earnings ledger
+    @Transactional(readOnly = true)
     public Double calculateEarnings(String email) {
         User driver = getDriverByEmail(email);
-        List<Booking> bookings = bookingRepository.findByRide_Driver(driver);
+        return earningsService.getTotal(driver.getId());
+    }
 
-        return bookings.stream()
-                .map(b -> b.getSeatsBooked() * b.getRide().getPrice())
-                .mapToDouble(Double::doubleValue)
-                .sum();
+    // ---------------- DRIVER EARNINGS SUMMARY ----------------
+    @Transactional(readOnly = true)
+    public EarningsSummaryDTO getEarningsSummary(String email, EarningsPeriod period, LocalDate from, LocalDate to) {
+        User driver = getDriverByEmail(email);
+        return earningsService.getSummary(driver.getId(), period, from, to);
     }
 }
@@ -0,0 +1,163 @@
+package com.example.CarpoolingProject.service;
+
+import com.example.CarpoolingProject.dto.EarningsPointDTO;
+import com.example.CarpoolingProject.dto.EarningsSummaryDTO;
+import com.example.CarpoolingProject.entity.EarningsBucket;
+import com.example.CarpoolingProject.entity.EarningsPeriod;
+import com.example.CarpoolingProject.entity.Ride;
+import com.example.CarpoolingProject.repository.BookingRepository;
+import com.example.CarpoolingProject.repository.EarningsBucketRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.TemporalAdjusters;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Driver earnings ledger.
+ *
+ * Every accepted booking adds seats * price to the driver's DAY, WEEK, MONTH and TOTAL
+ * buckets (keyed by ride date); cancelling an accepted booking subtracts it again.
+ * Reads therefore touch one row per bucket instead of every booking the driver ever had.
+ */
+@Service
+public class EarningsService {
+
+    private static final Logger log = LoggerFactory.getLogger(EarningsService.class);
+
+    @Autowired
+    private EarningsBucketRepository bucketRepo;
+
+    @Autowired
+    private BookingRepository bookingRepo;
+
+    // ---------------- LEDGER UPDATES ----------------
+    // Called from BookingService inside the accept/cancel transaction
+    @Transactional
+    public void recordAccepted(Ride ride, Long seats) {
+        apply(ride, seats, 1);
+    }
+
+    @Transactional
+    public void recordCancelled(Ride ride, Long seats) {
+        apply(ride, seats, -1);
+    }
+
+    private void apply(Ride ride, Long seats, int sign) {
+        if (ride.getDriver() == null)
+            return;
+
+        double price = ride.getPrice() != null ? ride.getPrice() : 0.0;
+        add(ride.getDriver().getId(), ride.getDate(), sign * seats * price, sign * seats, sign);
+    }
+
+    private void add(Long driverId, LocalDate date, double amount, long seats, long bookings) {
+        bucketRepo.add(driverId, EarningsPeriod.TOTAL.name(), LocalDate.EPOCH, amount, seats, bookings);
+
+        if (date == null)
+            return;
+
+        for (EarningsPeriod period : List.of(EarningsPeriod.DAY, EarningsPeriod.WEEK, EarningsPeriod.MONTH)) {
+            bucketRepo.add(driverId, period.name(), bucketStart(period, date), amount, seats, bookings);
+        }
+    }
+
+    // ---------------- READS ----------------
+    @Transactional(readOnly = true)
+    public double getTotal(Long driverId) {
+        return bucketRepo.findByDriverIdAndGranularityAndBucketStart(driverId, EarningsPeriod.TOTAL, LocalDate.EPOCH)
+                .map(EarningsBucket::getAmount)
+                .orElse(0.0);
+    }
+
+    @Transactional(readOnly = true)
+    public EarningsSummaryDTO getSummary(Long driverId, EarningsPeriod period, LocalDate from, LocalDate to) {
+        if (period == EarningsPeriod.TOTAL)
+            throw new RuntimeException("Use DAY, WEEK or MONTH for the earnings series");
+
+        LocalDate end = to != null ? to : LocalDate.now();
+        LocalDate start = from != null ? from : defaultFrom(period, end);
+        if (start.isAfter(end))
+            throw new RuntimeException("'from' must not be after 'to'");
+
+        List<EarningsPointDTO> series = bucketRepo
+                .findByDriverIdAndGranularityAndBucketStartBetweenOrderByBucketStartAsc(
+                        driverId, period, bucketStart(period, start), end)
+                .stream()
+                .map(b -> new EarningsPointDTO(b.getBucketStart(), b.getAmount(), b.getSeats(), b.getBookings()))
+                .collect(Collectors.toList());
+
+        EarningsSummaryDTO dto = new EarningsSummaryDTO();
+        dto.setPeriod(period);
+        dto.setFrom(start);
+        dto.setTo(end);
+        dto.setSeries(series);
+
+        bucketRepo.findByDriverIdAndGranularityAndBucketStart(driverId, EarningsPeriod.TOTAL, LocalDate.EPOCH)
+                .ifPresent(total -> {
+                    dto.setTotalEarnings(total.getAmount());
+                    dto.setTotalSeats(total.getSeats());
+                    dto.setTotalBookings(total.getBookings());
+                });
+
+        return dto;
+    }
+
+    // ---------------- ONE-TIME BACKFILL ----------------
+    // Rides accepted before the ledger existed: rebuild it from bookings once, when it is empty
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void backfillIfEmpty() {
+        if (bucketRepo.count() > 0)
+            return;
+
+        List<Object[]> rows = bookingRepo.sumAcceptedByDriverAndDate();
+        for (Object[] row : rows) {
+            Long driverId = (Long) row[0];
+            LocalDate date = (LocalDate) row[1];
+            Double amount = (Double) row[2];
+            Long seats = (Long) row[3];
+            Long bookings = (Long) row[4];
+
+            if (driverId == null)
+                continue;
+
+            add(driverId, date, amount != null ? amount : 0.0, seats, bookings);
+        }
+
+        log.info("Earnings ledger backfilled from {} driver/day groups", rows.size());
+    }
+
+    // ---------------- BUCKET HELPERS ----------------
+    private LocalDate bucketStart(EarningsPeriod period, LocalDate date) {
+        switch (period) {
+            case DAY:
+                return date;
+            case WEEK:
+                return date.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+            case MONTH:
+                return date.withDayOfMonth(1);
+            default:
+                return LocalDate.EPOCH;
+        }
+    }
+
+    private LocalDate defaultFrom(EarningsPeriod period, LocalDate to) {
+        switch (period) {
+            case DAY:
+                return to.minusDays(29);
+            case WEEK:
+                return to.minusWeeks(11);
+            default:
+                return to.minusMonths(11);
+        }
+    }
+}
@@ -0,0 +1,189 @@
+package com.example.CarpoolingProject.service;
+
+import com.example.CarpoolingProject.entity.EmailOutbox;
+import com.example.CarpoolingProject.entity.MailLane;
+import com.example.CarpoolingProject.repository.EmailOutboxRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Transactional outbox for all outgoing mail.
+ *
+ * Callers only insert a row (inside their own transaction), so request latency never
+ * depends on SMTP. Each {@link MailLane} is drained by a thread of its own, not by the shared
+ * @Scheduled pool, so a slow SMTP server holds neither the other lane nor the housekeeping
+ * jobs. Lane threads are virtual when spring.threads.virtual.enabled is set, like the rest
+ * of the application's workers. Workers drain the table in batches, retry failures with exponential backoff and stop
+ * picking up new work once the application starts shutting down.
+ */
+@Service
+public class EmailOutboxService implements SmartLifecycle {
+
+    private static final Logger log = LoggerFactory.getLogger(EmailOutboxService.class);
+
+    @Autowired
+    private EmailOutboxRepository outboxRepo;
+
+    @Autowired
+    private EmailService emailService;
+
+    @Value("${mail.outbox.batch-size:50}")
+    private int batchSize;
+
+    @Value("${mail.outbox.max-attempts:6}")
+    private int maxAttempts;
+
+    @Value("${mail.outbox.backoff-seconds:10}")
+    private long backoffSeconds;
+
+    @Value("${mail.outbox.lease-seconds:120}")
+    private long leaseSeconds;
+
+    @Value("${mail.outbox.otp-poll-ms:1000}")
+    private long otpPollMs;
+
+    @Value("${mail.outbox.booking-poll-ms:5000}")
+    private long bookingPollMs;
+
+    @Value("${mail.outbox.shutdown-wait-seconds:30}")
+    private long shutdownWaitSeconds;
+
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreads;
+
+    private final Map<MailLane, ScheduledExecutorService> workers = new EnumMap<>(MailLane.class);
+    private volatile boolean shuttingDown = false;
+
+    // ---------------- ENQUEUE ----------------
+    // Joins the caller's transaction, so the mail exists only if the booking/OTP change commits
+    @Transactional
+    public void enqueue(String to, String subject, String body, MailLane lane) {
+        LocalDateTime now = LocalDateTime.now();
+
+        EmailOutbox mail = new EmailOutbox();
+        mail.setRecipient(to);
+        mail.setSubject(subject);
+        mail.setBody(body);
+        mail.setLane(lane);
+        mail.setStatus("PENDING");
+        mail.setAttempts(0);
+        mail.setCreatedAt(now);
+        mail.setNextAttemptAt(now);
+
+        outboxRepo.save(mail);
+    }
+
+    // ---------------- WORKERS ----------------
+    @Override
+    public synchronized void start() {
+        shuttingDown = false;
+        for (MailLane lane : MailLane.values()) {
+            String name = "mail-outbox-" + lane.name().toLowerCase(Locale.ROOT);
+            ThreadFactory factory = virtualThreads
+                    ? Thread.ofVirtual().name(name).factory()
+                    : r -> new Thread(r, name);
+            ScheduledExecutorService worker = Executors.newSingleThreadScheduledExecutor(factory);
+            worker.scheduleWithFixedDelay(() -> drainLane(lane), 0, pollMillis(lane), TimeUnit.MILLISECONDS);
+            workers.put(lane, worker);
+        }
+    }
+
+    // Lets the messages in hand finish (see drain), then stops the lane threads
+    @Override
+    public synchronized void stop() {
+        shuttingDown = true;
+        workers.values().forEach(ScheduledExecutorService::shutdown);
+        for (Map.Entry<MailLane, ScheduledExecutorService> e : workers.entrySet()) {
+            try {
+                if (!e.getValue().awaitTermination(shutdownWaitSeconds, TimeUnit.SECONDS))
+                    log.warn("Outbox lane {} still sending after {}s, stopping it", e.getKey(), shutdownWaitSeconds);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+            e.getValue().shutdownNow();
+        }
+        workers.clear();
+    }
+
+    @Override
+    public synchronized boolean isRunning() {
+        return !workers.isEmpty();
+    }
+
+    private void drainLane(MailLane lane) {
+        try {
+            drain(lane);
+        } catch (RuntimeException ex) {
+            // Keep the lane's schedule alive: the next poll retries
+            log.warn("Draining outbox lane {} failed", lane, ex);
+        }
+    }
+
+    private long pollMillis(MailLane lane) {
+        return lane == MailLane.OTP ? otpPollMs : bookingPollMs;
+    }
+
+    private void drain(MailLane lane) {
+        while (!shuttingDown) {
+            LocalDateTime now = LocalDateTime.now();
+            List<EmailOutbox> batch = outboxRepo.findDue(lane, now, PageRequest.of(0, batchSize));
+
+            for (EmailOutbox mail : batch) {
+                // Finish the message in hand, but do not claim new ones while shutting down
+                if (shuttingDown)
+                    return;
+
+                if (outboxRepo.claim(mail.getId(), now, now.plusSeconds(leaseSeconds)) == 0)
+                    continue;
+
+                deliver(mail);
+            }
+
+            if (batch.size() < batchSize)
+                return;
+        }
+    }
+
+    private void deliver(EmailOutbox mail) {
+        mail.setAttempts(mail.getAttempts() + 1);
+
+        try {
+            emailService.sendEmail(mail.getRecipient(), mail.getSubject(), mail.getBody());
+            mail.setStatus("SENT");
+            mail.setSentAt(LocalDateTime.now());
+            mail.setLastError(null);
+        } catch (Exception ex) {
+            String error = String.valueOf(ex.getMessage());
+            mail.setLastError(error.length() > 500 ? error.substring(0, 500) : error);
+
+            if (mail.getAttempts() >= maxAttempts) {
+                mail.setStatus("FAILED");
+                log.error("Email {} to {} failed permanently after {} attempts: {}",
+                        mail.getId(), mail.getRecipient(), mail.getAttempts(), error);
+            } else {
+                // 10s, 20s, 40s, ... between attempts
+                long delay = backoffSeconds << (mail.getAttempts() - 1);
+                mail.setStatus("PENDING");
+                mail.setNextAttemptAt(LocalDateTime.now().plusSeconds(delay));
+            }
+        }
+
+        outboxRepo.save(mail);
+    }
+}
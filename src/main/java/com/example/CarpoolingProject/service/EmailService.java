@@ -1,16 +1,22 @@
 package com.example.CarpoolingProject.service;
 
+import com.example.CarpoolingProject.config.AppMetrics;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.mail.SimpleMailMessage;
 import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.stereotype.Service;
 
+import java.util.concurrent.TimeUnit;
+
 @Service
 public class EmailService {
 
     @Autowired
     private JavaMailSender mailSender;
 
+    @Autowired
+    private AppMetrics metrics;
+
     // ========== EXISTING OTP EMAIL METHOD ==========
     public void sendOtpEmail(String to, String otp, String purpose) {
         SimpleMailMessage msg = new SimpleMailMessage();
@@ -26,6 +32,12 @@ public class EmailService {
         message.setTo(to);
         message.setSubject(subject);
         message.setText(text);
-        mailSender.send(message);
+
+        long start = System.nanoTime();
+        try {
+            mailSender.send(message);
+        } finally {
+            metrics.mailSend.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
     }
 }
@@ -0,0 +1,150 @@
+package com.example.CarpoolingProject.service;
+
+import com.example.CarpoolingProject.dto.LocationSuggestionDTO;
+import com.example.CarpoolingProject.entity.Ride;
+import com.example.CarpoolingProject.repository.RideRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory prefix index of every place name used as a ride source or destination,
+ * for autocomplete. Names are grouped by Ride.locationKey, so "Andheri", "andheri "
+ * and "ANDHERI" are one suggestion; popularity is the number of rides from or to it.
+ *
+ * Each trie node keeps its own best MAX_SUGGESTIONS locations, so a lookup walks the
+ * prefix and copies at most that many entries: the cost depends on the prefix length,
+ * not on how many places match. Writes (a posted ride) are serialized and replace a
+ * node's list, so lookups never lock.
+ */
+@Component
+public class LocationIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(LocationIndex.class);
+
+    public static final int MAX_SUGGESTIONS = 10;
+
+    // Most popular first; equal counts alphabetically so the order is stable
+    private static final Comparator<Location> RANKING =
+            Comparator.comparingLong((Location l) -> -l.rides).thenComparing(l -> l.key);
+
+    private static final class Location {
+        private final String key;
+        private final String name;       // spelling shown to users: the first one seen
+        private volatile long rides;
+
+        private Location(String key, String name) {
+            this.key = key;
+            this.name = name;
+        }
+    }
+
+    private static final class Node {
+        private final Map<Character, Node> children = new ConcurrentHashMap<>();
+        private volatile List<Location> top = List.of();
+    }
+
+    @Autowired
+    private RideRepository rideRepository;
+
+    private final Node root = new Node();
+    private final Map<String, Location> byKey = new HashMap<>();   // guarded by this
+
+    // ---------------- LOAD / SYNC ----------------
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        List<Object[]> rows = new ArrayList<>(rideRepository.countBySourceKey());
+        rows.addAll(rideRepository.countByDestinationKey());
+        for (Object[] row : rows) {
+            add((String) row[0], (String) row[1], (Long) row[2]);
+        }
+        log.info("Location index loaded with {} places", byKey.size());
+    }
+
+    // Called after a ride is saved (postRide, recurring rides): counted once the ride is
+    // committed (right away without a transaction), so a rolled back ride is never suggested
+    public void addAfterCommit(Ride ride) {
+        String sourceKey = ride.getSourceKey();
+        String source = ride.getSource();
+        String destinationKey = ride.getDestinationKey();
+        String destination = ride.getDestination();
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    add(sourceKey, source, 1);
+                    add(destinationKey, destination, 1);
+                }
+            });
+        } else {
+            add(sourceKey, source, 1);
+            add(destinationKey, destination, 1);
+        }
+    }
+
+    private synchronized void add(String key, String name, long rides) {
+        if (key == null || key.isEmpty())
+            return;
+
+        Location location = byKey.computeIfAbsent(key, k -> new Location(k, name.trim()));
+        location.rides += rides;
+
+        // Counts only grow, so a node's best list changes only if this location is already
+        // in it (re-rank) or now beats its weakest entry
+        Node node = root;
+        rank(node, location);
+        for (int i = 0; i < key.length(); i++) {
+            node = node.children.computeIfAbsent(key.charAt(i), c -> new Node());
+            rank(node, location);
+        }
+    }
+
+    private static void rank(Node node, Location location) {
+        List<Location> top = node.top;
+        boolean present = top.contains(location);
+        if (!present && top.size() == MAX_SUGGESTIONS
+                && RANKING.compare(location, top.get(MAX_SUGGESTIONS - 1)) >= 0)
+            return;
+
+        List<Location> next = new ArrayList<>(top);
+        if (!present)
+            next.add(location);
+        next.sort(RANKING);
+        if (next.size() > MAX_SUGGESTIONS)
+            next.remove(MAX_SUGGESTIONS);
+        node.top = List.copyOf(next);
+    }
+
+    // ---------------- QUERY ----------------
+    // Up to limit known places starting with prefix (case and surrounding spaces ignored), most rides first
+    public List<LocationSuggestionDTO> suggest(String prefix, int limit) {
+        String key = Ride.locationKey(prefix == null ? "" : prefix);
+        Node node = root;
+        for (int i = 0; i < key.length() && node != null; i++) {
+            node = node.children.get(key.charAt(i));
+        }
+        if (node == null)
+            return List.of();
+
+        List<Location> top = node.top;
+        List<LocationSuggestionDTO> out = new ArrayList<>(Math.min(limit, top.size()));
+        for (int i = 0; i < top.size() && i < limit; i++) {
+            Location l = top.get(i);
+            out.add(new LocationSuggestionDTO(l.name, l.rides));
+        }
+        return out;
+    }
+}
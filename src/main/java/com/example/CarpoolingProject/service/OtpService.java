@@ -1,44 +1,191 @@
 package com.example.CarpoolingProject.service;
 
+import com.example.CarpoolingProject.entity.MailLane;
 import com.example.CarpoolingProject.entity.Otp;
 import com.example.CarpoolingProject.repository.OtpRepository;
+import com.example.CarpoolingProject.util.TimingWheel;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.security.SecureRandom;
 import java.time.LocalDateTime;
-import java.util.Random;
+import java.time.ZoneId;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
 
+/**
+ * The one place OTPs live.
+ *
+ * The otps table is the source of truth, so any app instance can verify a code issued by
+ * another one. Each instance keeps the latest code per (email, purpose) in a concurrent map
+ * that a timing wheel expires, which saves the SELECT when the same node verifies. Consuming
+ * a code is always a conditional UPDATE on the table, so a code is single use cluster-wide.
+ *
+ * Wrong guesses are counted on the table too: after otp.verify.max-attempts of them the code
+ * is used up, whichever nodes the guesses went to, and the user has to request a new one.
+ */
 @Service
 public class OtpService {
 
+    public static final String LOGIN = "LOGIN";
+    public static final String REGISTER = "REGISTER";
+    public static final String RESET_PASSWORD = "RESET_PASSWORD";
+
+    private static final class CachedOtp {
+        private final Long id;
+        private final String code;
+        private final long expiresAtMillis;
+
+        private CachedOtp(Otp otp) {
+            this.id = otp.getId();
+            this.code = otp.getCode();
+            this.expiresAtMillis = toMillis(otp.getExpiresAt());
+        }
+
+        private boolean isExpired(long now) {
+            return expiresAtMillis <= now;
+        }
+    }
+
     @Autowired
     private OtpRepository otpRepository;
 
-    private final Random random = new Random();
+    @Autowired
+    private EmailOutboxService emailOutboxService;
+
+    @Value("${otp.validity-minutes:10}")
+    private int validityMinutes;
+
+    @Value("${otp.rate-limit.max-requests:5}")
+    private int maxRequests;
+
+    @Value("${otp.rate-limit.window-minutes:15}")
+    private int windowMinutes;
+
+    @Value("${otp.purge.batch-size:1000}")
+    private int purgeBatchSize;
+
+    @Value("${otp.verify.max-attempts:5}")
+    private int maxAttempts;
+
+    private final SecureRandom random = new SecureRandom();
+
+    // Keyed by email|purpose; 1s ticks, one turn = 10 minutes
+    private final ConcurrentHashMap<String, CachedOtp> cache = new ConcurrentHashMap<>();
+    private final TimingWheel<String> expiryWheel = new TimingWheel<>(600, 1000);
 
     public String generateOtpCode() {
         int code = 100000 + random.nextInt(900000);
         return String.valueOf(code);
     }
 
+    // ---------------- ISSUE ----------------
+    @Transactional
     public Otp createOtp(String email, String purpose, int minutesValid) {
-        String code = generateOtpCode();
+        LocalDateTime now = LocalDateTime.now();
+
+        if (otpRepository.countByEmailAndCreatedAtAfter(email, now.minusMinutes(windowMinutes)) >= maxRequests)
+            throw new RuntimeException("Too many OTP requests. Please try again later.");
+
+        otpRepository.invalidateActive(email, purpose);
+
         Otp otp = new Otp();
         otp.setEmail(email);
-        otp.setCode(code);
+        otp.setCode(generateOtpCode());
         otp.setPurpose(purpose);
-        otp.setExpiresAt(LocalDateTime.now().plusMinutes(minutesValid));
+        otp.setCreatedAt(now);
+        otp.setExpiresAt(now.plusMinutes(minutesValid));
         otp.setUsed(false);
-        return otpRepository.save(otp);
+        Otp saved = otpRepository.save(otp);
+
+        remember(key(email, purpose), saved);
+        return saved;
     }
 
+    // Creates the code and queues its mail in the same transaction
+    @Transactional
+    public void sendOtp(String email, String purpose, String subject) {
+        Otp otp = createOtp(email, purpose, validityMinutes);
+
+        String message = "Your OTP is: " + otp.getCode() + "\nIt is valid for " + validityMinutes + " minutes.";
+        emailOutboxService.enqueue(email, subject, message, MailLane.OTP);
+    }
+
+    // ---------------- VERIFY ----------------
+    @Transactional
     public boolean verifyOtp(String email, String code, String purpose) {
-        return otpRepository.findByEmailAndCodeAndPurposeAndUsedFalse(email, code, purpose)
-                .filter(o -> o.getExpiresAt().isAfter(LocalDateTime.now()))
-                .map(o -> {
-                    o.setUsed(true);
-                    otpRepository.save(o);
-                    return true;
-                }).orElse(false);
+        if (code == null)
+            return false;
+
+        String key = key(email, purpose);
+        long now = System.currentTimeMillis();
+
+        CachedOtp cached = cache.get(key);
+        if (cached == null || cached.isExpired(now) || !cached.code.equals(code)) {
+            // Not cached here, or issued again on another node: ask the table
+            Optional<Otp> latest = otpRepository.findTopByEmailAndPurposeAndUsedFalseOrderByExpiresAtDesc(email, purpose);
+            if (latest.isEmpty())
+                return false;
+            cached = remember(key, latest.get());
+        }
+
+        if (cached.isExpired(now))
+            return false;
+        if (!cached.code.equals(code)) {
+            // A code used up by earlier guesses stays cached until it expires, but markUsed
+            // below can no longer consume it; one already gone is dropped here
+            if (otpRepository.recordFailure(cached.id, maxAttempts) == 0)
+                cache.remove(key, cached);
+            return false;
+        }
+
+        cache.remove(key, cached);
+        return otpRepository.markUsed(cached.id) == 1;
+    }
+
+    // ---------------- EXPIRY ----------------
+    @Scheduled(fixedRate = 1000)
+    public void expireCachedOtps() {
+        long now = System.currentTimeMillis();
+        expiryWheel.advance(now, key -> {
+            CachedOtp cached = cache.get(key);
+            if (cached == null)
+                return true;
+            if (!cached.isExpired(now))
+                return false;
+            cache.remove(key, cached);
+            return true;
+        });
+    }
+
+    // A code is deleted once it is expired and older than the rate-limit window: removing it
+    // earlier would drop it from the count and let the address request more codes than allowed.
+    @Scheduled(fixedDelayString = "${otp.purge.interval-ms:600000}")
+    public void purgeExpiredOtps() {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime createdBefore = now.minusMinutes(windowMinutes);
+        int deleted;
+        do {
+            deleted = otpRepository.deleteExpired(now, createdBefore, purgeBatchSize);
+        } while (deleted == purgeBatchSize);
+    }
+
+    // ---------------- HELPERS ----------------
+    private CachedOtp remember(String key, Otp otp) {
+        CachedOtp cached = new CachedOtp(otp);
+        cache.put(key, cached);
+        expiryWheel.schedule(key, cached.expiresAtMillis);
+        return cached;
+    }
+
+    private static String key(String email, String purpose) {
+        return email + "|" + purpose;
+    }
+
+    private static long toMillis(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
     }
 }
@@ -1,9 +1,13 @@
 package com.example.CarpoolingProject.service;
 
+import com.example.CarpoolingProject.dto.CursorPage;
 import com.example.CarpoolingProject.entity.Payment;
 import com.example.CarpoolingProject.repository.PaymentRepository;
+import com.example.CarpoolingProject.util.Cursor;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import java.util.List;
 
 @Service
@@ -12,7 +16,13 @@ public class PaymentService {
     @Autowired
     private PaymentRepository paymentRepo;
 
-    public List<Payment> getPaymentsByEmail(String email) {
-        return paymentRepo.findByUserEmail(email);
+    // Newest first; cursor is the token of the previous page (null for the first one)
+    @Transactional(readOnly = true)
+    public CursorPage<Payment> getPaymentsByEmail(String email, String cursor, int size) {
+        int limit = CursorPage.checkSize(size);
+        Cursor after = Cursor.decode(cursor, Cursor.LATEST);
+
+        List<Payment> rows = paymentRepo.findPage(email, after.getDate(), after.getId(), PageRequest.of(0, limit + 1));
+        return CursorPage.of(rows, limit, p -> new Cursor(p.getDate(), null, p.getId()));
     }
 }
@@ -0,0 +1,182 @@
+package com.example.CarpoolingProject.service;
+
+import com.example.CarpoolingProject.entity.Ride;
+import com.example.CarpoolingProject.repository.RideRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory spatial index of active rides (today and later) for radius search.
+ *
+ * Rides are bucketed by date, then by the fixed lat/lng grid cell of their pickup point
+ * (a geohash-style grid of CELL_DEG degrees). A query only scans the cells of one date
+ * that overlap the search circle, then checks exact haversine distances for pickup and
+ * drop-off, so the cost depends on local density, not on the total number of rides.
+ */
+@Component
+public class RideGeoIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(RideGeoIndex.class);
+
+    // ~1.1 km of latitude per cell
+    private static final double CELL_DEG = 0.01;
+    private static final double EARTH_RADIUS_KM = 6371.0;
+    private static final double KM_PER_DEG_LAT = 111.32;
+    public static final double MAX_RADIUS_KM = 25.0;
+
+    public static final class Match {
+        private final Long rideId;
+        private final double pickupKm;
+        private final double dropKm;
+
+        private Match(Long rideId, double pickupKm, double dropKm) {
+            this.rideId = rideId;
+            this.pickupKm = pickupKm;
+            this.dropKm = dropKm;
+        }
+
+        public Long getRideId() { return rideId; }
+        public double getPickupKm() { return pickupKm; }
+        public double getDropKm() { return dropKm; }
+        public double getTotalKm() { return pickupKm + dropKm; }
+    }
+
+    private static final class Entry {
+        private final Long rideId;
+        private final double srcLat, srcLng, dstLat, dstLng;
+
+        private Entry(Long rideId, double srcLat, double srcLng, double dstLat, double dstLng) {
+            this.rideId = rideId;
+            this.srcLat = srcLat;
+            this.srcLng = srcLng;
+            this.dstLat = dstLat;
+            this.dstLng = dstLng;
+        }
+    }
+
+    @Autowired
+    private RideRepository rideRepository;
+
+    private final Map<LocalDate, Map<Long, Set<Entry>>> byDate = new ConcurrentHashMap<>();
+
+    // ---------------- LOAD / SYNC ----------------
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        List<Object[]> rows = rideRepository.findActiveCoordinates(LocalDate.now());
+        for (Object[] row : rows) {
+            add((Long) row[0], (LocalDate) row[1],
+                    (Double) row[2], (Double) row[3], (Double) row[4], (Double) row[5]);
+        }
+        log.info("Ride geo index loaded with {} rides", rows.size());
+    }
+
+    // Called after a ride is saved (postRide, recurring rides): indexed once the ride is
+    // committed (right away without a transaction), so searches never find a rolled back ride
+    public void addAfterCommit(Ride ride) {
+        Long rideId = ride.getId();
+        LocalDate date = ride.getDate();
+        Double srcLat = ride.getSourceLat();
+        Double srcLng = ride.getSourceLng();
+        Double dstLat = ride.getDestinationLat();
+        Double dstLng = ride.getDestinationLng();
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    add(rideId, date, srcLat, srcLng, dstLat, dstLng);
+                }
+            });
+        } else {
+            add(rideId, date, srcLat, srcLng, dstLat, dstLng);
+        }
+    }
+
+    private void add(Long rideId, LocalDate date, Double srcLat, Double srcLng, Double dstLat, Double dstLng) {
+        if (rideId == null || date == null || srcLat == null || srcLng == null || dstLat == null || dstLng == null)
+            return;
+        if (date.isBefore(LocalDate.now()))
+            return;
+
+        byDate.computeIfAbsent(date, d -> new ConcurrentHashMap<>())
+                .computeIfAbsent(cellKey(cellOf(srcLat), cellOf(srcLng)), c -> ConcurrentHashMap.newKeySet())
+                .add(new Entry(rideId, srcLat, srcLng, dstLat, dstLng));
+    }
+
+    // Past dates can never match a search again
+    @Scheduled(cron = "0 5 0 * * *")
+    public void dropPastDates() {
+        LocalDate today = LocalDate.now();
+        byDate.keySet().removeIf(date -> date.isBefore(today));
+    }
+
+    // ---------------- QUERY ----------------
+    // Rides on the given date whose pickup and drop-off are both within radiusKm, nearest first
+    public List<Match> findNearby(LocalDate date, double srcLat, double srcLng,
+                                  double dstLat, double dstLng, double radiusKm) {
+        List<Match> matches = new ArrayList<>();
+        Map<Long, Set<Entry>> cells = byDate.get(date);
+        if (cells == null)
+            return matches;
+
+        double latSpan = radiusKm / KM_PER_DEG_LAT;
+        double lngSpan = radiusKm / (KM_PER_DEG_LAT * Math.max(Math.cos(Math.toRadians(srcLat)), 0.01));
+
+        long minLat = cellOf(srcLat - latSpan), maxLat = cellOf(srcLat + latSpan);
+        long minLng = cellOf(srcLng - lngSpan), maxLng = cellOf(srcLng + lngSpan);
+
+        for (long la = minLat; la <= maxLat; la++) {
+            for (long ln = minLng; ln <= maxLng; ln++) {
+                Set<Entry> cell = cells.get(cellKey(la, ln));
+                if (cell == null)
+                    continue;
+
+                for (Entry e : cell) {
+                    double pickupKm = distanceKm(srcLat, srcLng, e.srcLat, e.srcLng);
+                    if (pickupKm > radiusKm)
+                        continue;
+                    double dropKm = distanceKm(dstLat, dstLng, e.dstLat, e.dstLng);
+                    if (dropKm > radiusKm)
+                        continue;
+                    matches.add(new Match(e.rideId, pickupKm, dropKm));
+                }
+            }
+        }
+
+        matches.sort(Comparator.comparingDouble(Match::getTotalKm));
+        return matches;
+    }
+
+    // ---------------- GEOMETRY ----------------
+    public static double distanceKm(double lat1, double lng1, double lat2, double lng2) {
+        double dLat = Math.toRadians(lat2 - lat1);
+        double dLng = Math.toRadians(lng2 - lng1);
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2))
+                * Math.sin(dLng / 2) * Math.sin(dLng / 2);
+        return 2 * EARTH_RADIUS_KM * Math.asin(Math.sqrt(a));
+    }
+
+    private static long cellOf(double degrees) {
+        return (long) Math.floor(degrees / CELL_DEG);
+    }
+
+    private static long cellKey(long latCell, long lngCell) {
+        return (latCell << 32) ^ (lngCell & 0xffffffffL);
+    }
+}
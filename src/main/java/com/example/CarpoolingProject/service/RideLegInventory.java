@@ -0,0 +1,269 @@
+package com.example.CarpoolingProject.service;
+
+import com.example.CarpoolingProject.config.AppMetrics;
+import com.example.CarpoolingProject.dto.RideResponseDTO;
+import com.example.CarpoolingProject.entity.Ride;
+import com.example.CarpoolingProject.entity.RideLeg;
+import com.example.CarpoolingProject.repository.RideLegRepository;
+import com.example.CarpoolingProject.repository.RideRepository;
+import com.example.CarpoolingProject.util.LegSeatTree;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Seat inventory of multi-stop rides.
+ *
+ * ride_legs holds the reserved seats of every leg and is the source of truth; changes to one
+ * ride are serialized by a row lock on the ride. Each node keeps a {@link LegSeatTree} per
+ * ride, tagged with the ride's legVersion, so availability checks are O(log stops). A tree
+ * whose version does not match the row (changed by another node) is simply rebuilt from
+ * ride_legs.
+ *
+ * Cached trees are never changed in place: a booking works on a copy and publishes it only
+ * after its transaction commits, so a rolled back booking leaves nothing behind. Readers only
+ * ever see committed trees, and never put one back themselves.
+ *
+ * Route search uses the same trees to report the seats free on the legs a rider asked for.
+ */
+@Service
+public class RideLegInventory {
+
+    private static final class CachedTree {
+        private final LegSeatTree tree;
+        private final long version;
+
+        private CachedTree(LegSeatTree tree, long version) {
+            this.tree = tree;
+            this.version = version;
+        }
+    }
+
+    @Autowired
+    private RideRepository rideRepo;
+
+    @Autowired
+    private RideLegRepository legRepo;
+
+    @Autowired
+    private AppMetrics metrics;
+
+    private final ConcurrentHashMap<Long, CachedTree> trees = new ConcurrentHashMap<>();
+
+    // Normalized stop names per ride, in route order. Stops never change once a ride is posted.
+    private final ConcurrentHashMap<Long, List<String>> stopKeys = new ConcurrentHashMap<>();
+
+    // ---------------- CREATE ----------------
+    // Creates one leg per consecutive pair of [source, stops..., destination]; no-op without stops
+    @Transactional
+    public void createLegs(Ride ride, List<String> stops) {
+        if (ride.getLegCount() == null || stops == null || stops.isEmpty())
+            return;
+
+        List<String> route = new ArrayList<>();
+        route.add(ride.getSource());
+        route.addAll(stops);
+        route.add(ride.getDestination());
+
+        for (int i = 0; i < route.size() - 1; i++) {
+            RideLeg leg = new RideLeg();
+            leg.setRideId(ride.getId());
+            leg.setLegIndex(i);
+            leg.setFromStop(route.get(i));
+            leg.setToStop(route.get(i + 1));
+            leg.setReservedSeats(0L);
+            legRepo.save(leg);
+        }
+
+        publishAfterCommit(ride.getId(), new LegSeatTree(new long[route.size() - 1]), version(ride));
+        stopKeys.put(ride.getId(), route.stream().map(Ride::locationKey).toList());
+    }
+
+    // ---------------- RESERVE / RELEASE ----------------
+    // Reserves seats on legs [fromStop, toStop) (whole route when both are null)
+    @Transactional
+    public Ride reserve(Long rideId, Integer fromStop, Integer toStop, Long seats) {
+        Ride ride = rideRepo.findByIdForUpdate(rideId)
+                .orElseThrow(() -> new RuntimeException("Ride not found"));
+
+        if (ride.getLegCount() == null) {
+            if (fromStop != null || toStop != null)
+                throw new RuntimeException("This ride has no intermediate stops");
+            metrics.oversellRejected.increment();
+            throw new RuntimeException("Not enough seats available");
+        }
+
+        int from = fromStop != null ? fromStop : 0;
+        int to = toStop != null ? toStop : ride.getLegCount();
+        checkRange(ride, from, to);
+
+        LegSeatTree tree = checkout(ride);
+        if (ride.getSeatCapacity() - tree.max(from, to) < seats) {
+            metrics.oversellRejected.increment();
+            throw new RuntimeException("Not enough seats available");
+        }
+
+        apply(ride, tree, from, to, seats);
+        return ride;
+    }
+
+    @Transactional
+    public void release(Long rideId, Integer fromStop, Integer toStop, Long seats) {
+        Ride ride = rideRepo.findByIdForUpdate(rideId)
+                .orElseThrow(() -> new RuntimeException("Ride not found"));
+
+        int from = fromStop != null ? fromStop : 0;
+        int to = toStop != null ? toStop : ride.getLegCount();
+        checkRange(ride, from, to);
+
+        apply(ride, checkout(ride), from, to, -seats);
+    }
+
+    // ---------------- QUERIES ----------------
+    @Transactional(readOnly = true)
+    public long availableSeats(Long rideId, Integer fromStop, Integer toStop) {
+        Ride ride = rideRepo.findById(rideId)
+                .orElseThrow(() -> new RuntimeException("Ride not found"));
+
+        if (ride.getLegCount() == null)
+            return ride.getAvailableSeats();
+
+        int from = fromStop != null ? fromStop : 0;
+        int to = toStop != null ? toStop : ride.getLegCount();
+        checkRange(ride, from, to);
+
+        CachedTree cached = trees.get(rideId);
+        LegSeatTree tree = cached != null && cached.version == version(ride) ? cached.tree : load(rideId);
+        return ride.getSeatCapacity() - tree.max(from, to);
+    }
+
+    // Sets availableSeats of search matches on stops (fromStop != null) to the seats free on
+    // their legs. Trees cached at the version the row was read at are used as they are; the
+    // others are loaded together in one query and dropped afterwards. ride_legs can only be at
+    // that version or newer.
+    public void fillFreeSeats(List<RideResponseDTO> matches) {
+        Map<Long, LegSeatTree> found = new HashMap<>();
+        Set<Long> missing = new HashSet<>();
+        for (RideResponseDTO m : matches) {
+            if (m.getFromStop() == null)
+                continue;
+            CachedTree cached = trees.get(m.getId());
+            if (cached != null && cached.version == m.getLegVersion())
+                found.put(m.getId(), cached.tree);
+            else
+                missing.add(m.getId());
+        }
+
+        if (!missing.isEmpty()) {
+            Map<Long, List<RideLeg>> legsByRide = new HashMap<>();
+            for (RideLeg leg : legRepo.findByRideIdInOrderByRideIdAscLegIndexAsc(missing)) {
+                legsByRide.computeIfAbsent(leg.getRideId(), id -> new ArrayList<>()).add(leg);
+            }
+            legsByRide.forEach((rideId, legs) -> found.put(rideId, build(rideId, legs)));
+        }
+
+        for (RideResponseDTO m : matches) {
+            LegSeatTree tree = found.get(m.getId());
+            if (m.getFromStop() != null && tree != null)
+                m.setAvailableSeats(m.getSeatCapacity() - tree.max(m.getFromStop(), m.getToStop()));
+        }
+    }
+
+    // Normalized stop names in route order; empty for rides without stops
+    public List<String> stopKeys(Long rideId) {
+        List<String> keys = stopKeys.get(rideId);
+        if (keys != null)
+            return keys;
+        build(rideId, legRepo.findByRideIdOrderByLegIndexAsc(rideId));
+        return stopKeys.getOrDefault(rideId, List.of());
+    }
+
+    // Stop names in route order: [source, stops..., destination]
+    @Transactional(readOnly = true)
+    public List<String> stops(Long rideId) {
+        List<String> stops = new ArrayList<>();
+        List<RideLeg> legs = legRepo.findByRideIdOrderByLegIndexAsc(rideId);
+
+        if (legs.isEmpty()) {
+            Ride ride = rideRepo.findById(rideId)
+                    .orElseThrow(() -> new RuntimeException("Ride not found"));
+            stops.add(ride.getSource());
+            stops.add(ride.getDestination());
+            return stops;
+        }
+
+        stops.add(legs.get(0).getFromStop());
+        legs.forEach(leg -> stops.add(leg.getToStop()));
+        return stops;
+    }
+
+    // ---------------- HELPERS ----------------
+    private void apply(Ride ride, LegSeatTree tree, int from, int to, long delta) {
+        tree.add(from, to, delta);
+        legRepo.addSeats(ride.getId(), from, to, delta);
+
+        long version = version(ride) + 1;
+        ride.setLegVersion(version);
+        ride.setAvailableSeats(ride.getSeatCapacity() - tree.max(0, tree.size()));
+
+        publishAfterCommit(ride.getId(), tree, version);
+    }
+
+    // Publishes the tree only once the leg rows are committed. Commits of one ride can finish
+    // out of lock order, so an older version never replaces a newer one.
+    private void publishAfterCommit(Long rideId, LegSeatTree tree, long version) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                trees.merge(rideId, new CachedTree(tree, version),
+                        (old, fresh) -> old.version > fresh.version ? old : fresh);
+            }
+        });
+    }
+
+    // Private copy of the ride's tree to change while the ride row is locked
+    private LegSeatTree checkout(Ride ride) {
+        CachedTree cached = trees.get(ride.getId());
+        if (cached != null && cached.version == version(ride))
+            return cached.tree.copy();
+        return load(ride.getId());
+    }
+
+    private LegSeatTree load(Long rideId) {
+        return build(rideId, legRepo.findByRideIdOrderByLegIndexAsc(rideId));
+    }
+
+    // Seat tree of one ride from its legs in leg order; remembers its stops on the way
+    private LegSeatTree build(Long rideId, List<RideLeg> legs) {
+        long[] reserved = new long[legs.size()];
+        for (RideLeg leg : legs) {
+            reserved[leg.getLegIndex()] = leg.getReservedSeats();
+        }
+        if (!legs.isEmpty() && !stopKeys.containsKey(rideId)) {
+            List<String> keys = new ArrayList<>();
+            keys.add(Ride.locationKey(legs.get(0).getFromStop()));
+            legs.forEach(leg -> keys.add(Ride.locationKey(leg.getToStop())));
+            stopKeys.put(rideId, keys);
+        }
+        return new LegSeatTree(reserved);
+    }
+
+    private void checkRange(Ride ride, int from, int to) {
+        if (from < 0 || to > ride.getLegCount() || from >= to)
+            throw new RuntimeException("Invalid stops: board before you leave, within the ride's route");
+    }
+
+    private static long version(Ride ride) {
+        return ride.getLegVersion() != null ? ride.getLegVersion() : 0L;
+    }
+}
@@ -0,0 +1,226 @@
+package com.example.CarpoolingProject.service;
+
+import com.example.CarpoolingProject.config.AppMetrics;
+import com.example.CarpoolingProject.config.ReadYourWrites;
+import com.example.CarpoolingProject.dto.RideResponseDTO;
+import com.example.CarpoolingProject.entity.Ride;
+import com.example.CarpoolingProject.repository.RideLegRepository;
+import com.example.CarpoolingProject.repository.RideRepository;
+import com.example.CarpoolingProject.util.SingleFlight;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Results of the exact-match ride search, keyed on (source, destination, date)
+ * normalized the way the query compares them (see Ride.locationKey).
+ *
+ * An entry holds the rides running source -> destination and the multi-stop rides passing
+ * source and later destination, with the seats free on those legs (see RideLegInventory).
+ *
+ * Entries are dropped after a commit that changes a ride of their key: posting a ride
+ * or any seat change (see {@link #evictAfterCommit(Ride)}). A multi-stop ride belongs to the
+ * key of every pair of its stops. The TTL is only a safety net.
+ *
+ * A load that overlaps such a commit must not put its (possibly older) result back.
+ * Every key hashes to a generation counter that eviction bumps; a loader reads the
+ * counter before querying and drops its own entry if the counter moved by the time
+ * the entry is in the map.
+ */
+@Service
+public class RideSearchCache {
+
+    private static final Logger log = LoggerFactory.getLogger(RideSearchCache.class);
+
+    private static final int STRIPES = 1024;
+
+    private static final class Entry {
+        private final List<RideResponseDTO> rides;
+        private final long expiresAtMillis;
+
+        private Entry(List<RideResponseDTO> rides, long expiresAtMillis) {
+            this.rides = rides;
+            this.expiresAtMillis = expiresAtMillis;
+        }
+    }
+
+    @Autowired
+    private RideRepository rideRepository;
+
+    @Autowired
+    private RideLegRepository legRepository;
+
+    @Autowired
+    private RideLegInventory legInventory;
+
+    @Autowired
+    private AppMetrics metrics;
+
+    @Value("${search.cache.max-entries:5000}")
+    private int maxEntries;
+
+    @Value("${search.cache.ttl-seconds:300}")
+    private long ttlSeconds;
+
+    @Value("${search.cache.warm-corridors:200}")
+    private int warmCorridors;
+
+    private final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<>();
+    private final AtomicLongArray generations = new AtomicLongArray(STRIPES);
+
+    // Concurrent misses on one key share a query. The generation is part of the flight key,
+    // so a search that starts after a commit never joins a read that started before it.
+    private final SingleFlight<String, List<RideResponseDTO>> loads =
+            new SingleFlight<>(() -> metrics.coalescedSearch.increment());
+
+    public static String key(String source, String destination, LocalDate date) {
+        return normalize(source) + '|' + normalize(destination) + '|' + date;
+    }
+
+    private static String normalize(String place) {
+        return Ride.locationKey(place);
+    }
+
+    private static int stripe(String key) {
+        return (key.hashCode() & 0x7fffffff) % STRIPES;
+    }
+
+    // ---------------- LOOKUP ----------------
+    public List<RideResponseDTO> get(String source, String destination, LocalDate date) {
+        String key = key(source, destination, date);
+
+        Entry entry = entries.get(key);
+        if (entry != null && entry.expiresAtMillis > System.currentTimeMillis()) {
+            metrics.searchCacheHit.increment();
+            return entry.rides;
+        }
+
+        metrics.searchCacheMiss.increment();
+        return load(key, source, destination, date);
+    }
+
+    private List<RideResponseDTO> load(String key, String source, String destination, LocalDate date) {
+        int stripe = stripe(key);
+        long generation = generations.get(stripe);
+
+        return loads.execute(key + '#' + generation,
+                () -> loadAndStore(key, stripe, generation, source, destination, date));
+    }
+
+    private List<RideResponseDTO> loadAndStore(String key, int stripe, long generation,
+                                               String source, String destination, LocalDate date) {
+        // Read on the primary: the eviction that led here ran right after a commit the replica
+        // may not have yet, and a lagging answer would sit in the cache until the next eviction
+        List<RideResponseDTO> rides = ReadYourWrites.onPrimary(() -> query(source, destination, date));
+
+        if (entries.size() >= maxEntries) {
+            purgeExpired();
+            if (entries.size() >= maxEntries)
+                return rides; // full: serve uncached
+        }
+
+        Entry entry = new Entry(rides, System.currentTimeMillis() + ttlSeconds * 1000);
+        entries.put(key, entry);
+
+        // A seat change committed while we were reading: keep the answer out of the cache
+        if (generations.get(stripe) != generation)
+            entries.remove(key, entry);
+
+        return rides;
+    }
+
+    private List<RideResponseDTO> query(String source, String destination, LocalDate date) {
+        // Constructor projection: rows go straight into DTOs, no entities or persistence context
+        List<RideResponseDTO> rides = rideRepository.findForSearch(normalize(source), normalize(destination), date);
+        List<RideResponseDTO> onStops = legRepository.findSegments(normalize(source), normalize(destination), date);
+        if (onStops.isEmpty())
+            return rides;
+        legInventory.fillFreeSeats(onStops);
+        return merge(rides, onStops);
+    }
+
+    // A ride passing the same two stops twice is listed once, on its first match
+    public static List<RideResponseDTO> merge(List<RideResponseDTO> rides, List<RideResponseDTO> onStops) {
+        List<RideResponseDTO> merged = new ArrayList<>(rides);
+        Set<Long> seen = new HashSet<>();
+        rides.forEach(r -> seen.add(r.getId()));
+        for (RideResponseDTO r : onStops) {
+            if (seen.add(r.getId()))
+                merged.add(r);
+        }
+        return merged;
+    }
+
+    // ---------------- INVALIDATION ----------------
+    // Drops the ride's keys once the current transaction commits (right away without one)
+    public void evictAfterCommit(Ride ride) {
+        if (ride.getSource() == null || ride.getDestination() == null || ride.getDate() == null)
+            return;
+
+        List<String> keys = new ArrayList<>();
+        keys.add(key(ride.getSource(), ride.getDestination(), ride.getDate()));
+        if (ride.getLegCount() != null) {
+            // Every (earlier stop, later stop) pair; the whole route is among them
+            List<String> stops = legInventory.stopKeys(ride.getId());
+            for (int i = 0; i < stops.size(); i++) {
+                for (int j = i + 1; j < stops.size(); j++) {
+                    keys.add(key(stops.get(i), stops.get(j), ride.getDate()));
+                }
+            }
+        }
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    keys.forEach(RideSearchCache.this::evict);
+                }
+            });
+        } else {
+            keys.forEach(this::evict);
+        }
+    }
+
+    private void evict(String key) {
+        // Bump first, so a concurrent loader either sees the bump or gets removed here
+        generations.incrementAndGet(stripe(key));
+        entries.remove(key);
+    }
+
+    // ---------------- WARM-UP / HOUSEKEEPING ----------------
+    // Busiest corridors of today and tomorrow, so the first searches after a deploy hit the cache
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        LocalDate today = LocalDate.now();
+        List<Object[]> corridors = rideRepository.findBusiestCorridors(
+                today, today.plusDays(1), PageRequest.of(0, warmCorridors));
+
+        for (Object[] row : corridors) {
+            get((String) row[0], (String) row[1], (LocalDate) row[2]);
+        }
+
+        log.info("Ride search cache warmed with {} corridors", entries.size());
+    }
+
+    @Scheduled(fixedDelayString = "${search.cache.purge-ms:60000}")
+    public void purgeExpired() {
+        long now = System.currentTimeMillis();
+        entries.values().removeIf(e -> e.expiresAtMillis <= now);
+    }
+}
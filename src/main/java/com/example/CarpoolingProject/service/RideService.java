@@ -1,16 +1,36 @@
 package com.example.CarpoolingProject.service;
 
+import com.example.CarpoolingProject.config.AppMetrics;
+import com.example.CarpoolingProject.config.ReadYourWrites;
+import com.example.CarpoolingProject.dto.CursorPage;
+import com.example.CarpoolingProject.dto.RideResponseDTO;
 import com.example.CarpoolingProject.dto.RideRequestDTO;
+import com.example.CarpoolingProject.dto.RideSearchDTO;
+import com.example.CarpoolingProject.dto.RideSort;
 import com.example.CarpoolingProject.entity.Ride;
 import com.example.CarpoolingProject.entity.User;
+import com.example.CarpoolingProject.repository.RideLegRepository;
 import com.example.CarpoolingProject.repository.RideRepository;
 import com.example.CarpoolingProject.repository.UserRepository;
+import com.example.CarpoolingProject.util.Cursor;
+import com.example.CarpoolingProject.util.SingleFlight;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
 
 @Service
 public class RideService {
@@ -21,14 +41,48 @@ public class RideService {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private RideGeoIndex rideGeoIndex;
+
+    @Autowired
+    private LocationIndex locationIndex;
+
+    @Autowired
+    private ReadYourWrites readYourWrites;
+
+    @Autowired
+    private RideLegInventory legInventory;
+
+    @Autowired
+    private RideLegRepository legRepository;
+
+    @Autowired
+    private AppMetrics metrics;
+
+    @Autowired
+    private RideSearchCache searchCache;
+
+    @Autowired
+    private RideTemplateService rideTemplates;
+
+    // Identical concurrent "my rides" refreshes share one query. The driver's write generation
+    // is part of the key, so a refresh after posting a ride or a booking change starts its own.
+    private final SingleFlight<String, CursorPage<RideResponseDTO>> ridesByDriver =
+            new SingleFlight<>(() -> metrics.coalescedRidesByDriver.increment());
+
     // ---------------- DRIVER POSTS A RIDE ----------------
-    public Ride postRide(RideRequestDTO dto, String driverEmail){
+    @Transactional
+    public RideResponseDTO postRide(RideRequestDTO dto, String driverEmail){
         User driver = userRepository.findByEmail(driverEmail)
                 .orElseThrow(() -> new RuntimeException("Driver not found"));
 
         Ride ride = new Ride();
         ride.setSource(dto.getSource());
         ride.setDestination(dto.getDestination());
+        ride.setSourceLat(dto.getSourceLat());
+        ride.setSourceLng(dto.getSourceLng());
+        ride.setDestinationLat(dto.getDestinationLat());
+        ride.setDestinationLng(dto.getDestinationLng());
         ride.setDate(dto.getDate());
         ride.setTime(dto.getTime());
 
@@ -38,37 +92,200 @@ public class RideService {
 
         ride.setDriver(driver);
 
-        return rideRepository.save(ride);
+        // Multi-stop ride: seats are tracked per leg
+        if (dto.getStops() != null && !dto.getStops().isEmpty()) {
+            ride.setSeatCapacity(ride.getAvailableSeats());
+            ride.setLegCount(dto.getStops().size() + 1);
+        }
+
+        Ride saved = rideRepository.save(ride);
+        legInventory.createLegs(saved, dto.getStops());
+        rideGeoIndex.addAfterCommit(saved);
+        locationIndex.addAfterCommit(saved);
+        searchCache.evictAfterCommit(saved);
+        readYourWrites.markAfterCommit(driverEmail);
+        return RideResponseDTO.withBookings(saved);
     }
 
     // ---------------- SEARCH RIDES ----------------
-    public List<Ride> search(String src, String dest, LocalDate date){
-        return rideRepository.findBySourceIgnoreCaseAndDestinationIgnoreCaseAndDate(
-                src.trim(),
-                dest.trim(),
-                date
-        );
+    public List<RideResponseDTO> search(String src, String dest, LocalDate date){
+        long start = System.nanoTime();
+        try {
+            // Recurring rides this far ahead are only generated once somebody searches for them.
+            // The cache loads from the primary, so it sees them right away.
+            rideTemplates.materializeForSearch(Ride.locationKey(src), Ride.locationKey(dest), date, date);
+            return searchCache.get(src, dest, date);
+        } finally {
+            metrics.rideSearch.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    // ---------------- FILTERED SEARCH ----------------
+    // Departure window, minimum seats and price cap, best `limit` results in the requested order.
+    // Goes to the database every time: the combinations are too varied to cache usefully.
+    public static final int DEFAULT_SEARCH_LIMIT = 20;
+    public static final int MAX_SEARCH_LIMIT = 50;
+    public static final int MAX_WINDOW_DAYS = 3;
+
+    private static final Sort BY_DEPARTURE = Sort.by("date", "time", "id");
+
+    @Transactional(readOnly = true)
+    public List<RideResponseDTO> searchFiltered(RideSearchDTO dto) {
+        long start = System.nanoTime();
+        try {
+            if (dto.getSource() == null || dto.getDestination() == null)
+                throw new RuntimeException("Source and destination are required");
+
+            LocalDateTime from = dto.getDepartFrom();
+            LocalDateTime to = dto.getDepartTo();
+            if (from == null) {
+                if (dto.getDate() == null)
+                    throw new RuntimeException("Date or departFrom is required");
+                from = dto.getDate().atStartOfDay();
+            }
+            // Whole seconds: TIME columns hold no fraction, and LocalTime.MAX never compares <= them
+            if (to == null)
+                to = from.toLocalDate().atTime(23, 59, 59);
+            if (to.isBefore(from))
+                throw new RuntimeException("departTo must not be before departFrom");
+            if (from.plusDays(MAX_WINDOW_DAYS).isBefore(to))
+                throw new RuntimeException("Departure window can span at most " + MAX_WINDOW_DAYS + " days");
+
+            int seats = dto.getSeatsRequested() != null ? dto.getSeatsRequested() : 1;
+            if (seats <= 0)
+                throw new RuntimeException("Seats requested must be positive");
+
+            int limit = dto.getLimit() != null ? dto.getLimit() : DEFAULT_SEARCH_LIMIT;
+            if (limit <= 0 || limit > MAX_SEARCH_LIMIT)
+                throw new RuntimeException("Limit must be between 1 and " + MAX_SEARCH_LIMIT);
+
+            String sourceKey = Ride.locationKey(dto.getSource());
+            String destinationKey = Ride.locationKey(dto.getDestination());
+            LocalDateTime windowFrom = from;
+            LocalDateTime windowTo = to;
+            PageRequest page = PageRequest.of(0, limit, sortFor(dto.getSort()));
+            Supplier<List<RideResponseDTO>> query = () -> {
+                List<RideResponseDTO> rides = rideRepository.findInWindow(sourceKey, destinationKey,
+                        windowFrom.toLocalDate(), windowFrom.toLocalTime(), windowTo.toLocalDate(), windowTo.toLocalTime(),
+                        (long) seats, dto.getMaxPrice(), page);
+                // Multi-stop rides passing both places: the best `limit` of each, merged
+                List<RideResponseDTO> onStops = legRepository.findSegmentsInWindow(sourceKey, destinationKey,
+                        windowFrom.toLocalDate(), windowFrom.toLocalTime(), windowTo.toLocalDate(), windowTo.toLocalTime(),
+                        (long) seats, dto.getMaxPrice(), page);
+                if (onStops.isEmpty())
+                    return rides;
+                legInventory.fillFreeSeats(onStops);
+                return RideSearchCache.merge(rides, onStops).stream()
+                        .sorted(comparatorFor(dto.getSort()))
+                        .limit(limit)
+                        .toList();
+            };
+
+            // Far-ahead recurring rides are generated in a write transaction of their own; with a
+            // replica, this read-only one has not picked its connection yet and can still use the primary
+            if (rideTemplates.materializeForSearch(sourceKey, destinationKey, from.toLocalDate(), to.toLocalDate()) > 0)
+                return ReadYourWrites.onPrimary(query);
+            return query.get();
+        } finally {
+            metrics.rideSearchFiltered.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    // Ties (same price, same rating) go to the earliest departure
+    private static Sort sortFor(RideSort sort) {
+        if (sort == null)
+            return BY_DEPARTURE;
+        switch (sort) {
+            case PRICE:
+                return Sort.by("price").and(BY_DEPARTURE);
+            case RATING:
+                return Sort.by(Sort.Order.desc("rating").nullsLast()).and(BY_DEPARTURE);
+            default:
+                return BY_DEPARTURE;
+        }
+    }
+
+    // Same order as sortFor, for merging result lists in memory
+    private static Comparator<RideResponseDTO> comparatorFor(RideSort sort) {
+        Comparator<RideResponseDTO> byDeparture = Comparator.comparing(RideResponseDTO::getDate)
+                .thenComparing(RideResponseDTO::getTime)
+                .thenComparing(RideResponseDTO::getId);
+        if (sort == RideSort.PRICE)
+            return Comparator.comparing(RideResponseDTO::getPrice, Comparator.nullsLast(Comparator.naturalOrder()))
+                    .thenComparing(byDeparture);
+        if (sort == RideSort.RATING)
+            return Comparator.comparing(RideResponseDTO::getRating, Comparator.nullsLast(Comparator.reverseOrder()))
+                    .thenComparing(byDeparture);
+        return byDeparture;
+    }
+
+    // ---------------- SEARCH RIDES BY RADIUS ----------------
+    // Pickup and drop-off both within radiusKm of the passenger's points, nearest first
+    @Transactional(readOnly = true)
+    public List<RideResponseDTO> searchNearby(LocalDate date, double srcLat, double srcLng,
+                                   double dstLat, double dstLng, double radiusKm) {
+        if (date == null)
+            throw new RuntimeException("Date is required");
+        if (radiusKm <= 0 || radiusKm > RideGeoIndex.MAX_RADIUS_KM)
+            throw new RuntimeException("Radius must be between 0 and " + RideGeoIndex.MAX_RADIUS_KM + " km");
+
+        List<Long> rankedIds = rideGeoIndex.findNearby(date, srcLat, srcLng, dstLat, dstLng, radiusKm)
+                .stream()
+                .map(RideGeoIndex.Match::getRideId)
+                .collect(Collectors.toList());
+
+        if (rankedIds.isEmpty())
+            return List.of();
+
+        Map<Long, Ride> byId = rideRepository.findByIdInWithDriver(rankedIds).stream()
+                .collect(Collectors.toMap(Ride::getId, r -> r));
+
+        return rankedIds.stream()
+                .map(byId::get)
+                .filter(Objects::nonNull)
+                .map(RideResponseDTO::from)
+                .collect(Collectors.toList());
     }
 
     // ---------------- DRIVER DASHBOARD METHOD ----------------
-    public List<Ride> getRidesByDriver(String driverEmail) {
-        User driver = userRepository.findByEmail(driverEmail)
-                .orElseThrow(() -> new RuntimeException("Driver not found"));
+    // Newest first; cursor is the token of the previous page (null for the first one)
+    @Transactional(readOnly = true)
+    public CursorPage<RideResponseDTO> getRidesByDriver(String driverEmail, String cursor, int size) {
+        int limit = CursorPage.checkSize(size);
+        Cursor after = Cursor.decode(cursor, Cursor.LATEST);
+
+        String key = driverEmail + '|' + after.encode() + '|' + limit;
+        return ridesByDriver.execute(key + '#' + readYourWrites.generation(driverEmail), () -> {
+            User driver = userRepository.findByEmail(driverEmail)
+                    .orElseThrow(() -> new RuntimeException("Driver not found"));
+
+            List<Long> ids = rideRepository.findDriverPage(driver.getId(),
+                    after.getDate(), after.getTime(), after.getId(), PageRequest.of(0, limit + 1));
+            if (ids.isEmpty())
+                return new CursorPage<>(List.of(), null);
 
-        return rideRepository.findByDriver(driver);
+            List<RideResponseDTO> rides = CursorPage.inOrder(ids, rideRepository.findByIdInWithBookings(ids), Ride::getId)
+                    .stream()
+                    .map(RideResponseDTO::withBookings)
+                    .toList();
+            return CursorPage.of(rides, limit, r -> new Cursor(r.getDate(), r.getTime(), r.getId()));
+        });
     }
+
+    @Transactional
     public Ride updateRideSeats(Long rideId, Long newlyBooked) {
 
+        // Increase booked seats and decrease available seats in one conditional UPDATE
+        if (rideRepository.bookSeats(rideId, newlyBooked) == 0) {
+            if (!rideRepository.existsById(rideId))
+                throw new RuntimeException("Ride not found");
+            throw new RuntimeException("Not enough seats available");
+        }
+
         Ride ride = rideRepository.findById(rideId)
                 .orElseThrow(() -> new RuntimeException("Ride not found"));
-
-        // Increase booked seats
-        ride.setBookedSeats(ride.getBookedSeats() + newlyBooked);
-
-        // Decrease available seats
-        ride.setAvailableSeats(ride.getAvailableSeats() - newlyBooked);
-
-        return rideRepository.save(ride);
+        searchCache.evictAfterCommit(ride);
+        return ride;
     }
 
 }
\ No newline at end of file
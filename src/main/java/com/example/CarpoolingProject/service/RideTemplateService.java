@@ -0,0 +1,269 @@
+package com.example.CarpoolingProject.service;
+
+import com.example.CarpoolingProject.config.ReadYourWrites;
+import com.example.CarpoolingProject.dto.RideTemplateDTO;
+import com.example.CarpoolingProject.entity.Ride;
+import com.example.CarpoolingProject.entity.RideTemplate;
+import com.example.CarpoolingProject.entity.User;
+import com.example.CarpoolingProject.repository.RideRepository;
+import com.example.CarpoolingProject.repository.RideTemplateRepository;
+import com.example.CarpoolingProject.repository.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Recurring rides. A driver posts a template (route, weekdays, time, seats, price) once instead
+ * of one ride per day; bookings and search keep working on plain Ride rows generated from it:
+ *
+ * - up to horizon-days ahead, by a job that moves the horizon along as days pass;
+ * - further ahead only when a route search asks for such a date, so no months of rows are
+ *   created up front.
+ *
+ * Rides of a run are saved together and go out as JDBC insert batches (see the id generator
+ * on Ride and hibernate.jdbc.batch_size). Generation locks the template rows first and skips
+ * days that already have their ride, so nodes racing on a template do not duplicate rides;
+ * the unique key on (template_id, date) is the backstop.
+ */
+@Service
+public class RideTemplateService {
+
+    private static final Logger log = LoggerFactory.getLogger(RideTemplateService.class);
+
+    @Autowired
+    private RideTemplateRepository templateRepo;
+
+    @Autowired
+    private RideRepository rideRepo;
+
+    @Autowired
+    private UserRepository userRepo;
+
+    @Autowired
+    private RideGeoIndex rideGeoIndex;
+
+    @Autowired
+    private LocationIndex locationIndex;
+
+    @Autowired
+    private RideSearchCache searchCache;
+
+    @Autowired
+    private ReadYourWrites readYourWrites;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${ride.templates.horizon-days:14}")
+    private int horizonDays;
+
+    @Value("${ride.templates.batch-size:100}")
+    private int batchSize;
+
+    // Searches further out than this do not generate rides (nobody books a year ahead)
+    @Value("${ride.templates.max-days-ahead:180}")
+    private int maxDaysAhead;
+
+    // ---------------- CREATE / LIST / STOP ----------------
+    // Saves the template and generates its rides up to the horizon in the same transaction
+    @Transactional
+    public RideTemplateDTO create(String email, RideTemplateDTO dto) {
+        User driver = userRepo.findByEmail(email)
+                .orElseThrow(() -> new RuntimeException("Driver not found"));
+
+        if (dto.getSource() == null || dto.getDestination() == null)
+            throw new RuntimeException("Source and destination are required");
+        if (dto.getDaysOfWeek() == null || dto.getDaysOfWeek().isEmpty())
+            throw new RuntimeException("At least one day of the week is required");
+        if (dto.getTime() == null)
+            throw new RuntimeException("Time is required");
+        if (dto.getAvailableSeats() == null || dto.getAvailableSeats() <= 0)
+            throw new RuntimeException("Available seats must be positive");
+
+        LocalDate today = LocalDate.now();
+        LocalDate start = dto.getStartDate() != null ? dto.getStartDate() : today;
+        if (start.isBefore(today))
+            throw new RuntimeException("Start date must not be in the past");
+        if (dto.getEndDate() != null && dto.getEndDate().isBefore(start))
+            throw new RuntimeException("End date must not be before the start date");
+
+        RideTemplate t = new RideTemplate();
+        t.setDriver(driver);
+        t.setSource(dto.getSource());
+        t.setDestination(dto.getDestination());
+        t.setSourceLat(dto.getSourceLat());
+        t.setSourceLng(dto.getSourceLng());
+        t.setDestinationLat(dto.getDestinationLat());
+        t.setDestinationLng(dto.getDestinationLng());
+        t.setDaysOfWeek(RideTemplate.daysMask(dto.getDaysOfWeek()));
+        t.setTime(dto.getTime());
+        t.setSeats(dto.getAvailableSeats().longValue());
+        t.setPrice(dto.getPrice());
+        t.setStartDate(start);
+        t.setEndDate(dto.getEndDate());
+
+        RideTemplate saved = templateRepo.save(t);
+        LocalDate until = today.plusDays(horizonDays);
+        materialize(List.of(saved), today, until);
+        saved.setMaterializedUntil(until);
+
+        readYourWrites.markAfterCommit(email);
+        return RideTemplateDTO.from(saved);
+    }
+
+    @Transactional(readOnly = true)
+    public List<RideTemplateDTO> getTemplates(String email) {
+        User driver = userRepo.findByEmail(email)
+                .orElseThrow(() -> new RuntimeException("Driver not found"));
+        return templateRepo.findByDriverId(driver.getId()).stream()
+                .map(RideTemplateDTO::from)
+                .toList();
+    }
+
+    // Stops generating rides; the ones already generated stay bookable
+    @Transactional
+    public RideTemplateDTO deactivate(Long templateId, String email) {
+        RideTemplate t = templateRepo.findById(templateId)
+                .orElseThrow(() -> new RuntimeException("Ride template not found"));
+        if (!t.getDriver().getEmail().equals(email))
+            throw new RuntimeException("Not your ride template");
+
+        t.setActive(false);
+        return RideTemplateDTO.from(t);
+    }
+
+    // ---------------- ROLLING HORIZON ----------------
+    // Hourly rather than at midnight only: a node that was down, or just started, catches up
+    // within the hour. Templates already generated far enough are not even read.
+    @Scheduled(initialDelayString = "${ride.templates.initial-delay-ms:60000}",
+            fixedDelayString = "${ride.templates.extend-ms:3600000}")
+    public void extendHorizon() {
+        LocalDate today = LocalDate.now();
+        LocalDate until = today.plusDays(horizonDays);
+        Long after = 0L;
+        int created = 0;
+
+        List<Long> page;
+        do {
+            page = templateRepo.findBehindHorizon(until, today, after, PageRequest.of(0, batchSize));
+            if (page.isEmpty())
+                break;
+            after = page.get(page.size() - 1);
+
+            List<Long> batch = page;
+            try {
+                created += transactionTemplate.execute(tx -> extend(batch, today, until));
+            } catch (RuntimeException ex) {
+                // Lock timeout or a concurrent run on another node: the next run picks these up
+                log.warn("Extending {} ride templates failed, the next run retries: {}", batch.size(), ex.getMessage());
+            }
+        } while (page.size() == batchSize);
+
+        if (created > 0)
+            log.info("Ride templates extended to {}, {} rides created", until, created);
+    }
+
+    private int extend(List<Long> ids, LocalDate today, LocalDate until) {
+        List<RideTemplate> templates = templateRepo.lockActive(ids);
+        int created = materialize(templates, today, until).size();
+        for (RideTemplate t : templates) {
+            t.setMaterializedUntil(until);
+        }
+        return created;
+    }
+
+    // ---------------- ON DEMAND (SEARCH) ----------------
+    // Generates the rides of this route's templates for days in [from, to] from the horizon day
+    // on (it may not be generated yet right after midnight), in a transaction of its own.
+    // Returns how many were created: when > 0 the caller has to read them from the primary.
+    // Nearer days are left to the horizon job, so everyday searches pay nothing for this.
+    public int materializeForSearch(String sourceKey, String destinationKey, LocalDate from, LocalDate to) {
+        if (sourceKey == null || destinationKey == null || from == null || to == null)
+            return 0;
+
+        LocalDate today = LocalDate.now();
+        LocalDate first = max(from, today.plusDays(horizonDays));
+        LocalDate last = to.isAfter(today.plusDays(maxDaysAhead)) ? today.plusDays(maxDaysAhead) : to;
+        if (first.isAfter(last))
+            return 0;
+
+        // Plain reads first: most routes have no template, and the rest usually have their rides already
+        List<Long> ids = new ArrayList<>();
+        int expected = 0;
+        for (RideTemplate t : templateRepo.findForRoute(sourceKey, destinationKey, first, last)) {
+            int days = serviceDays(t, first, last);
+            if (days > 0) {
+                ids.add(t.getId());
+                expected += days;
+            }
+        }
+        if (ids.isEmpty() || rideRepo.findTemplateDates(ids, first, last).size() >= expected)
+            return 0;
+
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        tx.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        return tx.execute(status -> materialize(templateRepo.lockActive(ids), first, last).size());
+    }
+
+    private static int serviceDays(RideTemplate t, LocalDate from, LocalDate to) {
+        int days = 0;
+        for (LocalDate d = from; !d.isAfter(to); d = d.plusDays(1)) {
+            if (t.runsOn(d))
+                days++;
+        }
+        return days;
+    }
+
+    // ---------------- GENERATION ----------------
+    // Saves the missing rides of these (locked or just created) templates for days in [from, to]
+    private List<Ride> materialize(List<RideTemplate> templates, LocalDate from, LocalDate to) {
+        if (templates.isEmpty())
+            return List.of();
+
+        List<Long> ids = templates.stream().map(RideTemplate::getId).toList();
+        Set<String> existing = new HashSet<>();
+        for (Object[] row : rideRepo.findTemplateDates(ids, from, to)) {
+            existing.add(row[0] + "|" + row[1]);
+        }
+
+        List<Ride> rides = new ArrayList<>();
+        for (RideTemplate t : templates) {
+            for (LocalDate d = from; !d.isAfter(to); d = d.plusDays(1)) {
+                if (t.runsOn(d) && !existing.contains(t.getId() + "|" + d))
+                    rides.add(t.occurrence(d));
+            }
+        }
+        if (rides.isEmpty())
+            return rides;
+
+        // Ids are assigned here; the inserts are sent in batches at flush
+        List<Ride> saved = rideRepo.saveAll(rides);
+        for (Ride ride : saved) {
+            rideGeoIndex.addAfterCommit(ride);
+            locationIndex.addAfterCommit(ride);
+            searchCache.evictAfterCommit(ride);
+        }
+        return saved;
+    }
+
+    private static LocalDate max(LocalDate a, LocalDate b) {
+        return a.isAfter(b) ? a : b;
+    }
+}
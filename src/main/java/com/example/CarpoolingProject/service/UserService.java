@@ -1,5 +1,7 @@
 package com.example.CarpoolingProject.service;
 
+import com.example.CarpoolingProject.config.AppMetrics;
+import com.example.CarpoolingProject.config.JwtPrincipalCache;
 import com.example.CarpoolingProject.dto.RegisterDTO;
 import com.example.CarpoolingProject.entity.Role;
 import com.example.CarpoolingProject.entity.User;
@@ -12,9 +14,8 @@ import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.util.HashMap;
-import java.util.Map;
-import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
 
 @Service("userDetailsService")
 public class UserService implements UserDetailsService {
@@ -26,10 +27,13 @@ public class UserService implements UserDetailsService {
     private PasswordEncoder encoder;
 
     @Autowired
-    private EmailService emailService;
+    private OtpService otpService;
 
-    // Temporary OTP store
-    private Map<String, String> otpMap = new HashMap<>();
+    @Autowired
+    private JwtPrincipalCache principalCache;
+
+    @Autowired
+    private AppMetrics metrics;
 
     // ---------------- REGISTER USER ----------------
     @Transactional
@@ -60,16 +64,21 @@ public class UserService implements UserDetailsService {
     // ---------------- LOAD USER FOR SECURITY ----------------
     @Override
     public UserDetails loadUserByUsername(String email) throws UsernameNotFoundException {
-        email = email.trim().toLowerCase();
-        User user = repo.findByEmail(email)
-                .orElseThrow(() -> new UsernameNotFoundException("User not found"));
-
-        return org.springframework.security.core.userdetails.User
-                .builder()
-                .username(user.getEmail())
-                .password(user.getPassword())
-                .roles(user.getRole().name())
-                .build();
+        long start = System.nanoTime();
+        try {
+            String normalized = email.trim().toLowerCase();
+            User user = repo.findByEmail(normalized)
+                    .orElseThrow(() -> new UsernameNotFoundException("User not found"));
+
+            return org.springframework.security.core.userdetails.User
+                    .builder()
+                    .username(user.getEmail())
+                    .password(user.getPassword())
+                    .roles(user.getRole().name())
+                    .build();
+        } finally {
+            metrics.loadUser.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
     }
 
     // ---------------- HELPER METHODS ----------------
@@ -83,42 +92,40 @@ public class UserService implements UserDetailsService {
                 .orElseThrow(() -> new RuntimeException("User not found"));
     }
 
-    // ---------------- OTP FOR LOGIN ----------------
+    // ---------------- OTP FOR PASSWORD RESET ----------------
     public String sendOtp(String email) {
         email = email.trim().toLowerCase();
         User user = findByEmail(email);
 
-        String otp = String.valueOf(100000 + new Random().nextInt(900000));
-        otpMap.put(email, otp);
-
-        String message = "Your OTP is: " + otp + "\nIt is valid for 10 minutes.";
-        emailService.sendEmail(email, "OTP Verification", message);
+        otpService.sendOtp(email, OtpService.RESET_PASSWORD, "OTP Verification");
 
         return "OTP sent to your email!";
     }
 
     public String verifyOtp(String email, String otp) {
         email = email.trim().toLowerCase();
-        if (!otpMap.containsKey(email) || !otpMap.get(email).equals(otp)) {
+        if (!otpService.verifyOtp(email, otp, OtpService.RESET_PASSWORD)) {
             throw new RuntimeException("Invalid or expired OTP");
         }
 
-        otpMap.remove(email);
         return "OTP verified successfully!";
     }
 
     // ---------------- RESET PASSWORD ----------------
+    @Transactional
     public String resetPassword(String email, String otp, String newPassword) {
         email = email.trim().toLowerCase();
         User user = findByEmail(email);
 
-        if (!otpMap.containsKey(email) || !otpMap.get(email).equals(otp)) {
+        if (!otpService.verifyOtp(email, otp, OtpService.RESET_PASSWORD)) {
             throw new RuntimeException("Invalid or expired OTP");
         }
 
         user.setPassword(encoder.encode(newPassword));
         repo.save(user);
-        otpMap.remove(email);
+
+        // Cached principals still carry the old password hash
+        principalCache.evictUserAfterCommit(email);
 
         return "Password reset successfully!";
     }
@@ -0,0 +1,63 @@
+package com.example.CarpoolingProject.util;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.Base64;
+
+/**
+ * Position in a list ordered by (date, time, id), handed to clients as an opaque token.
+ *
+ * Repositories compare rows against it with a keyset predicate ("strictly after this
+ * position") instead of an OFFSET, so every page is an index seek plus LIMIT and costs
+ * the same however deep the client goes. time is null for lists ordered by (date, id).
+ */
+public final class Cursor {
+
+    // Sorts after every real row, used as the start of newest-first lists
+    public static final Cursor LATEST = new Cursor(LocalDate.of(9999, 12, 31), LocalTime.of(23, 59, 59), Long.MAX_VALUE);
+
+    private final LocalDate date;
+    private final LocalTime time;
+    private final long id;
+
+    public Cursor(LocalDate date, LocalTime time, long id) {
+        this.date = date;
+        this.time = time;
+        this.id = id;
+    }
+
+    public LocalDate getDate() {
+        return date;
+    }
+
+    public LocalTime getTime() {
+        return time;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public String encode() {
+        String raw = date + "|" + (time != null ? time : "") + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    // No token means the first page, which starts at `first`
+    public static Cursor decode(String token, Cursor first) {
+        if (token == null || token.isBlank())
+            return first;
+
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\|", -1);
+            return new Cursor(
+                    LocalDate.parse(parts[0]),
+                    parts[1].isEmpty() ? null : LocalTime.parse(parts[1]),
+                    Long.parseLong(parts[2]));
+        } catch (RuntimeException e) {
+            throw new RuntimeException("Invalid cursor");
+        }
+    }
+}
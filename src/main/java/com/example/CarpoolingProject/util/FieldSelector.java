@@ -0,0 +1,106 @@
+package com.example.CarpoolingProject.util;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonStreamContext;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.FilterProvider;
+import com.fasterxml.jackson.databind.ser.PropertyWriter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleBeanPropertyFilter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
+import org.springframework.http.converter.json.MappingJacksonValue;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Sparse fieldsets for response DTOs: "?fields=id,source,driver.name" keeps only those
+ * properties. A name selects the whole value below it ("driver" keeps every driver field),
+ * a dotted path descends into nested DTOs, and "all" turns the filter off.
+ *
+ * Filtering happens while Jackson writes the DTO, so nothing is copied or re-read.
+ * Only classes annotated with @JsonFilter(FieldSelector.FILTER) are filtered; everything
+ * else, and any response not wrapped by {@link #select}, is written in full.
+ */
+public final class FieldSelector {
+
+    public static final String FILTER = "fields";
+    public static final String ALL = "all";
+
+    // Installed on the application ObjectMapper (see AppConfig)
+    public static final FilterProvider SERIALIZE_ALL =
+            new SimpleFilterProvider().addFilter(FILTER, SimpleBeanPropertyFilter.serializeAll());
+
+    // Parsed default views; caller-supplied selections are parsed per request and not kept
+    private static final ConcurrentHashMap<String, FilterProvider> VIEWS = new ConcurrentHashMap<>();
+
+    private FieldSelector() {
+    }
+
+    // fields = what the caller asked for (may be null), defaultView = the endpoint's lean view
+    public static MappingJacksonValue select(Object body, String fields, String defaultView) {
+        MappingJacksonValue value = new MappingJacksonValue(body);
+        if (fields == null || fields.isBlank())
+            value.setFilters(VIEWS.computeIfAbsent(defaultView, FieldSelector::provider));
+        else
+            value.setFilters(provider(fields));
+        return value;
+    }
+
+    public static FilterProvider provider(String fields) {
+        if (ALL.equalsIgnoreCase(fields.trim()))
+            return SERIALIZE_ALL;
+        return new SimpleFilterProvider().addFilter(FILTER, new PathFilter(fields));
+    }
+
+    private static final class PathFilter extends SimpleBeanPropertyFilter {
+
+        // Selected paths, and every proper prefix of them (objects we must descend into)
+        private final Set<String> selected = new HashSet<>();
+        private final Set<String> parents = new HashSet<>();
+
+        private PathFilter(String fields) {
+            for (String field : fields.split(",")) {
+                String path = field.trim();
+                if (path.isEmpty())
+                    continue;
+                selected.add(path);
+                for (int dot = path.indexOf('.'); dot > 0; dot = path.indexOf('.', dot + 1))
+                    parents.add(path.substring(0, dot));
+            }
+        }
+
+        @Override
+        public void serializeAsField(Object pojo, JsonGenerator gen, SerializerProvider provider,
+                                     PropertyWriter writer) throws Exception {
+            if (includes(pathOf(gen, writer.getName())))
+                writer.serializeAsField(pojo, gen, provider);
+            else if (!gen.canOmitFields())
+                writer.serializeAsOmittedField(pojo, gen, provider);
+        }
+
+        private boolean includes(String path) {
+            if (selected.contains(path) || parents.contains(path))
+                return true;
+            for (int dot = path.lastIndexOf('.'); dot > 0; dot = path.lastIndexOf('.', dot - 1)) {
+                if (selected.contains(path.substring(0, dot)))
+                    return true;
+            }
+            return false;
+        }
+
+        // Property names from the response root down to this property; list elements share a path
+        private static String pathOf(JsonGenerator gen, String name) {
+            JsonStreamContext ctx = gen.getOutputContext().getParent();
+            if (ctx == null || ctx.inRoot() || (ctx.inArray() && ctx.getParent().inRoot()))
+                return name;
+
+            StringBuilder path = new StringBuilder(name);
+            for (; ctx != null; ctx = ctx.getParent()) {
+                if (ctx.inObject())
+                    path.insert(0, '.').insert(0, ctx.getCurrentName());
+            }
+            return path.toString();
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package com.example.CarpoolingProject.util;
+
+/**
+ * Segment tree over the legs of a multi-stop ride.
+ *
+ * Holds the reserved seats of every leg and supports "add seats to legs [from, to)" and
+ * "max reserved seats over legs [from, to)" in O(log legs), which is all a booking needs:
+ * free seats for a leg range = capacity - max(from, to).
+ */
+public class LegSeatTree {
+
+    private final int size;
+    private final long[] max;
+    private final long[] pending;
+
+    public LegSeatTree(long[] reserved) {
+        this.size = reserved.length;
+        this.max = new long[4 * Math.max(size, 1)];
+        this.pending = new long[4 * Math.max(size, 1)];
+        if (size > 0) {
+            build(1, 0, size - 1, reserved);
+        }
+    }
+
+    private LegSeatTree(LegSeatTree other) {
+        this.size = other.size;
+        this.max = other.max.clone();
+        this.pending = other.pending.clone();
+    }
+
+    // Independent copy, so a booking can change it without touching the one other threads read
+    public synchronized LegSeatTree copy() {
+        return new LegSeatTree(this);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    // Adds delta to every leg in [from, to)
+    public synchronized void add(int from, int to, long delta) {
+        check(from, to);
+        add(1, 0, size - 1, from, to - 1, delta);
+    }
+
+    // Highest reservation on any leg in [from, to)
+    public synchronized long max(int from, int to) {
+        check(from, to);
+        return max(1, 0, size - 1, from, to - 1);
+    }
+
+    private void build(int node, int lo, int hi, long[] reserved) {
+        if (lo == hi) {
+            max[node] = reserved[lo];
+            return;
+        }
+        int mid = (lo + hi) >>> 1;
+        build(2 * node, lo, mid, reserved);
+        build(2 * node + 1, mid + 1, hi, reserved);
+        max[node] = Math.max(max[2 * node], max[2 * node + 1]);
+    }
+
+    private void add(int node, int lo, int hi, int from, int to, long delta) {
+        if (to < lo || hi < from)
+            return;
+        if (from <= lo && hi <= to) {
+            max[node] += delta;
+            pending[node] += delta;
+            return;
+        }
+        push(node);
+        int mid = (lo + hi) >>> 1;
+        add(2 * node, lo, mid, from, to, delta);
+        add(2 * node + 1, mid + 1, hi, from, to, delta);
+        max[node] = Math.max(max[2 * node], max[2 * node + 1]);
+    }
+
+    private long max(int node, int lo, int hi, int from, int to) {
+        if (to < lo || hi < from)
+            return Long.MIN_VALUE;
+        if (from <= lo && hi <= to)
+            return max[node];
+        push(node);
+        int mid = (lo + hi) >>> 1;
+        return Math.max(max(2 * node, lo, mid, from, to), max(2 * node + 1, mid + 1, hi, from, to));
+    }
+
+    private void push(int node) {
+        if (pending[node] != 0) {
+            for (int child = 2 * node; child <= 2 * node + 1; child++) {
+                max[child] += pending[node];
+                pending[child] += pending[node];
+            }
+            pending[node] = 0;
+        }
+    }
+
+    private void check(int from, int to) {
+        if (from < 0 || to > size || from >= to)
+            throw new IllegalArgumentException("Invalid leg range [" + from + ", " + to + ")");
+    }
+}
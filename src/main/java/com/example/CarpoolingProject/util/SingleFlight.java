@@ -0,0 +1,58 @@
+package com.example.CarpoolingProject.util;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Request coalescing: while a call for a key is running, identical calls wait for it
+ * and share its result (or its exception) instead of running their own.
+ *
+ * Only in-flight calls are shared; nothing is kept once the leader finishes. Results
+ * are handed to several callers at once, so they must not be mutated or lazily loaded
+ * afterwards.
+ */
+public class SingleFlight<K, V> {
+
+    private final ConcurrentHashMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+    private final Runnable onShared;
+
+    // onShared runs once for every caller that got a result without running the call itself
+    public SingleFlight(Runnable onShared) {
+        this.onShared = onShared;
+    }
+
+    public V execute(K key, Supplier<V> call) {
+        CompletableFuture<V> mine = new CompletableFuture<>();
+        CompletableFuture<V> running = inFlight.putIfAbsent(key, mine);
+
+        if (running != null) {
+            onShared.run();
+            return await(running);
+        }
+
+        try {
+            V result = call.get();
+            mine.complete(result);
+            return result;
+        } catch (RuntimeException | Error e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, mine);
+        }
+    }
+
+    private static <V> V await(CompletableFuture<V> running) {
+        try {
+            return running.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException re)
+                throw re;
+            if (e.getCause() instanceof Error err)
+                throw err;
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.CarpoolingProject.util;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+
+/**
+ * Hashed timing wheel: keys are dropped into the slot of their deadline tick, and each
+ * {@link #advance(long, Predicate)} only visits the slots that passed since the last call.
+ *
+ * The wheel does not own the data. The handler passed to advance looks the key up in the
+ * caller's own map and returns true once the key is gone or has been expired; returning
+ * false keeps the key for the next revolution (deadline further away than one turn, or
+ * the entry was replaced with a later deadline).
+ */
+public class TimingWheel<K> {
+
+    private final long tickMillis;
+    private final Set<K>[] slots;
+    private long lastTick;
+
+    @SuppressWarnings("unchecked")
+    public TimingWheel(int wheelSize, long tickMillis) {
+        this.tickMillis = tickMillis;
+        this.slots = new Set[wheelSize];
+        for (int i = 0; i < wheelSize; i++) {
+            slots[i] = ConcurrentHashMap.newKeySet();
+        }
+        this.lastTick = System.currentTimeMillis() / tickMillis;
+    }
+
+    public void schedule(K key, long deadlineMillis) {
+        long tick = Math.floorDiv(deadlineMillis + tickMillis - 1, tickMillis);
+        slots[slotOf(tick)].add(key);
+    }
+
+    // Not thread-safe against itself: call from a single scheduler thread
+    public void advance(long nowMillis, Predicate<K> expireIfDue) {
+        long nowTick = nowMillis / tickMillis;
+
+        // After a long pause one full turn is enough to visit every slot
+        long from = Math.max(lastTick + 1, nowTick - slots.length + 1);
+        for (long tick = from; tick <= nowTick; tick++) {
+            slots[slotOf(tick)].removeIf(expireIfDue);
+        }
+        lastTick = nowTick;
+    }
+
+    private int slotOf(long tick) {
+        return (int) Math.floorMod(tick, (long) slots.length);
+    }
+}
@@ -0,0 +1,120 @@
+-- Schema as Hibernate's ddl-auto=update left it before migrations took over.
+-- Existing databases are baselined at this version (spring.flyway.baseline-on-migrate)
+-- and skip it; fresh databases, including the test and benchmark H2 ones, run it.
+
+CREATE TABLE users (
+    id             BIGINT       NOT NULL AUTO_INCREMENT,
+    name           VARCHAR(255),
+    email          VARCHAR(255),
+    phone          VARCHAR(255),
+    password       VARCHAR(255),
+    role           VARCHAR(20),
+    vehicle_model  VARCHAR(255),
+    license_plate  VARCHAR(255),
+    capacity       INTEGER,
+    PRIMARY KEY (id)
+);
+
+CREATE TABLE rides (
+    id               BIGINT       NOT NULL AUTO_INCREMENT,
+    source           VARCHAR(255),
+    destination      VARCHAR(255),
+    source_lat       DOUBLE,
+    source_lng       DOUBLE,
+    destination_lat  DOUBLE,
+    destination_lng  DOUBLE,
+    date             DATE,
+    time             TIME,
+    booked_seats     BIGINT       NOT NULL,
+    available_seats  BIGINT       NOT NULL,
+    price            DOUBLE,
+    rating           DOUBLE,
+    seat_capacity    BIGINT,
+    leg_count        INTEGER,
+    leg_version      BIGINT,
+    driver_id        BIGINT,
+    PRIMARY KEY (id),
+    CONSTRAINT fk_ride_driver FOREIGN KEY (driver_id) REFERENCES users (id)
+);
+CREATE INDEX idx_ride_driver_date_time ON rides (driver_id, date, time);
+CREATE INDEX idx_ride_route_date_time ON rides (source, destination, date, time);
+
+CREATE TABLE ride_legs (
+    id              BIGINT       NOT NULL AUTO_INCREMENT,
+    ride_id         BIGINT       NOT NULL,
+    leg_index       INTEGER      NOT NULL,
+    from_stop       VARCHAR(255),
+    to_stop         VARCHAR(255),
+    reserved_seats  BIGINT       NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT uk_ride_leg UNIQUE (ride_id, leg_index)
+);
+
+CREATE TABLE bookings (
+    id            BIGINT       NOT NULL AUTO_INCREMENT,
+    ride_id       BIGINT,
+    passenger_id  BIGINT,
+    seats_booked  BIGINT       NOT NULL,
+    from_stop     INTEGER,
+    to_stop       INTEGER,
+    status        VARCHAR(255) NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT fk_booking_ride FOREIGN KEY (ride_id) REFERENCES rides (id),
+    CONSTRAINT fk_booking_passenger FOREIGN KEY (passenger_id) REFERENCES users (id)
+);
+CREATE INDEX idx_booking_passenger ON bookings (passenger_id);
+CREATE INDEX idx_booking_ride ON bookings (ride_id);
+
+CREATE TABLE payment (
+    id          BIGINT       NOT NULL AUTO_INCREMENT,
+    user_email  VARCHAR(255),
+    ride_info   VARCHAR(255),
+    amount      DOUBLE       NOT NULL,
+    method      VARCHAR(255),
+    status      VARCHAR(255),
+    date        DATE,
+    PRIMARY KEY (id)
+);
+CREATE INDEX idx_payment_user_date ON payment (user_email, date);
+
+CREATE TABLE driver_earnings_buckets (
+    id            BIGINT       NOT NULL AUTO_INCREMENT,
+    driver_id     BIGINT       NOT NULL,
+    granularity   VARCHAR(10)  NOT NULL,
+    bucket_start  DATE         NOT NULL,
+    amount        DOUBLE       NOT NULL,
+    seats         BIGINT       NOT NULL,
+    bookings      BIGINT       NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT uk_earnings_driver_bucket UNIQUE (driver_id, granularity, bucket_start)
+);
+
+CREATE TABLE email_outbox (
+    id               BIGINT        NOT NULL AUTO_INCREMENT,
+    recipient        VARCHAR(255)  NOT NULL,
+    subject          VARCHAR(255)  NOT NULL,
+    body             VARCHAR(2000) NOT NULL,
+    lane             VARCHAR(20)   NOT NULL,
+    status           VARCHAR(255)  NOT NULL,
+    attempts         INTEGER       NOT NULL,
+    next_attempt_at  DATETIME(6)   NOT NULL,
+    created_at       DATETIME(6),
+    sent_at          DATETIME(6),
+    last_error       VARCHAR(500),
+    PRIMARY KEY (id)
+);
+CREATE INDEX idx_outbox_lane_status_due ON email_outbox (lane, status, next_attempt_at);
+
+CREATE TABLE otps (
+    id          BIGINT       NOT NULL AUTO_INCREMENT,
+    email       VARCHAR(255),
+    code        VARCHAR(255),
+    purpose     VARCHAR(255),
+    created_at  DATETIME(6),
+    expires_at  DATETIME(6),
+    used        BOOLEAN      NOT NULL,
+    PRIMARY KEY (id)
+);
+CREATE INDEX idx_otp_email_purpose ON otps (email, purpose, used);
+CREATE INDEX idx_otp_email_created ON otps (email, created_at);
+CREATE INDEX idx_otp_expires ON otps (expires_at);
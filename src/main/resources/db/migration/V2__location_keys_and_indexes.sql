@@ -0,0 +1,18 @@
+-- Route search compares normalized keys (trimmed, lower-case; see Ride.locationKey) with plain
+-- equality, so it can use an index instead of wrapping source/destination in a function.
+ALTER TABLE rides ADD COLUMN source_key VARCHAR(255);
+ALTER TABLE rides ADD COLUMN destination_key VARCHAR(255);
+
+UPDATE rides SET source_key = LOWER(TRIM(source)), destination_key = LOWER(TRIM(destination));
+
+CREATE INDEX idx_ride_route_key_date_time ON rides (source_key, destination_key, date, time);
+DROP INDEX idx_ride_route_date_time ON rides;
+
+-- Pending requests of a ride (accept/reject, driver lists) filter on status as well.
+-- Created before the old index is dropped, so fk_booking_ride always has an index to use.
+CREATE INDEX idx_booking_ride_status ON bookings (ride_id, status);
+DROP INDEX idx_booking_ride ON bookings;
+
+-- Login, OTP and every authenticated request look users up by email.
+-- Fails on databases that already hold duplicate emails; those have to be merged first.
+ALTER TABLE users ADD CONSTRAINT uk_users_email UNIQUE (email);
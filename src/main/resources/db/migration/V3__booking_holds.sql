@@ -0,0 +1,8 @@
+-- PENDING bookings become time-limited seat holds (see BookingHoldService)
+ALTER TABLE bookings ADD COLUMN hold_expires_at DATETIME(6);
+
+-- Bookings already pending get one full hold period from now
+UPDATE bookings SET hold_expires_at = TIMESTAMPADD(MINUTE, 30, CURRENT_TIMESTAMP) WHERE status = 'PENDING';
+
+-- Startup rebuild reads pending holds in (hold_expires_at, id) order
+CREATE INDEX idx_booking_status_hold ON bookings (status, hold_expires_at);
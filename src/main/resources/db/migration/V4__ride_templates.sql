@@ -0,0 +1,42 @@
+-- Recurring rides (see RideTemplateService): a template per driver route and schedule,
+-- and the concrete rides generated from it.
+CREATE TABLE ride_templates (
+    id                  BIGINT       NOT NULL AUTO_INCREMENT,
+    driver_id           BIGINT       NOT NULL,
+    source              VARCHAR(255),
+    destination         VARCHAR(255),
+    source_key          VARCHAR(255),
+    destination_key     VARCHAR(255),
+    source_lat          DOUBLE,
+    source_lng          DOUBLE,
+    destination_lat     DOUBLE,
+    destination_lng     DOUBLE,
+    days_of_week        INTEGER      NOT NULL,
+    time                TIME         NOT NULL,
+    seats               BIGINT       NOT NULL,
+    price               DOUBLE,
+    start_date          DATE         NOT NULL,
+    end_date            DATE,
+    active              BOOLEAN      NOT NULL,
+    materialized_until  DATE,
+    PRIMARY KEY (id),
+    CONSTRAINT fk_ride_template_driver FOREIGN KEY (driver_id) REFERENCES users (id)
+);
+-- Lazy generation looks templates up by route; the daily job by how far they are generated
+CREATE INDEX idx_ride_template_route ON ride_templates (source_key, destination_key);
+CREATE INDEX idx_ride_template_horizon ON ride_templates (active, materialized_until);
+
+-- One ride per template and day; also serves the "which days exist already" lookup
+ALTER TABLE rides ADD COLUMN template_id BIGINT;
+ALTER TABLE rides ADD CONSTRAINT uk_ride_template_date UNIQUE (template_id, date);
+ALTER TABLE rides ADD CONSTRAINT fk_ride_template FOREIGN KEY (template_id) REFERENCES ride_templates (id);
+
+-- Ride ids are now handed out by Hibernate in blocks of 50 from this row (see Ride.id),
+-- so inserts can be batched. The first block starts right after the existing rides.
+-- rides.id keeps its AUTO_INCREMENT; explicit ids are accepted.
+CREATE TABLE id_generators (
+    name      VARCHAR(64)  NOT NULL,
+    next_val  BIGINT       NOT NULL,
+    PRIMARY KEY (name)
+);
+INSERT INTO id_generators (name, next_val) SELECT 'rides', COALESCE(MAX(id), 0) + 50 FROM rides;
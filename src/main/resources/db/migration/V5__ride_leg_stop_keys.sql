@@ -0,0 +1,10 @@
+-- Route search also finds multi-stop rides by their intermediate stops: a rider going from
+-- stop A to stop B matches a ride with a leg leaving A and a later (or the same) leg reaching B.
+-- Same normalized keys as rides.source_key / destination_key (see Ride.locationKey).
+ALTER TABLE ride_legs ADD COLUMN from_stop_key VARCHAR(255);
+ALTER TABLE ride_legs ADD COLUMN to_stop_key VARCHAR(255);
+
+UPDATE ride_legs SET from_stop_key = LOWER(TRIM(from_stop)), to_stop_key = LOWER(TRIM(to_stop));
+
+CREATE INDEX idx_ride_leg_from_key ON ride_legs (from_stop_key, ride_id);
+CREATE INDEX idx_ride_leg_to_key ON ride_legs (to_stop_key, ride_id);
@@ -0,0 +1,17 @@
+-- Booking events for SSE, written in the transaction of the change. Every node polls the rows
+-- other nodes wrote, so a user's streams get the event whichever node they are connected to.
+-- Rows are only needed for a few polls and are purged after the replay window.
+CREATE TABLE booking_events (
+    id            BIGINT       NOT NULL AUTO_INCREMENT,
+    node_id       VARCHAR(64)  NOT NULL,
+    booking_id    BIGINT       NOT NULL,
+    ride_id       BIGINT       NOT NULL,
+    type          VARCHAR(20)  NOT NULL,
+    status        VARCHAR(20),
+    seats         BIGINT,
+    passenger_id  BIGINT,
+    driver_id     BIGINT,
+    created_at    DATETIME(6)  NOT NULL,
+    PRIMARY KEY (id)
+);
+CREATE INDEX idx_booking_event_created ON booking_events (created_at, id);
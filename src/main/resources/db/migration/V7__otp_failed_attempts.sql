@@ -0,0 +1,2 @@
+-- Wrong guesses against a code, counted across nodes; the code is used up at otp.verify.max-attempts
+ALTER TABLE otps ADD COLUMN failed_attempts INTEGER NOT NULL DEFAULT 0;
@@ -0,0 +1,131 @@
+package com.example.CarpoolingProject.config;
+
+import com.example.CarpoolingProject.entity.Payment;
+import com.example.CarpoolingProject.entity.Ride;
+import com.example.CarpoolingProject.entity.Role;
+import com.example.CarpoolingProject.repository.BookingRepository;
+import com.example.CarpoolingProject.repository.PaymentRepository;
+import com.example.CarpoolingProject.repository.RideRepository;
+import com.example.CarpoolingProject.repository.UserRepository;
+import com.example.CarpoolingProject.service.RideService;
+import com.example.CarpoolingProject.support.TestData;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import javax.sql.DataSource;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+import static org.hamcrest.Matchers.hasSize;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Read/write split against two embedded databases. Nothing copies rows between them, so
+ * which one a request read from shows in what it returns.
+ */
+@SpringBootTest(properties = {
+        "app.datasource.replica.jdbc-url=jdbc:h2:mem:carpooling_replica;MODE=MySQL;DB_CLOSE_DELAY=-1",
+        "app.datasource.replica.username=sa",
+        "app.datasource.replica.driver-class-name=org.h2.Driver"
+})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class ReplicaRoutingTest {
+
+    @Autowired
+    private MockMvc mvc;
+
+    @Autowired
+    private PaymentRepository paymentRepo;
+
+    @Autowired
+    private UserRepository userRepo;
+
+    @Autowired
+    private RideRepository rideRepo;
+
+    @Autowired
+    private BookingRepository bookingRepo;
+
+    @Autowired
+    private RideService rideService;
+
+    @Autowired
+    private ReadYourWrites readYourWrites;
+
+    @Autowired
+    @Qualifier("replicaDataSource")
+    private DataSource replica;
+
+    @BeforeEach
+    void migrateReplica() {
+        // Flyway only runs on the primary; a real replica gets its schema through replication
+        Flyway.configure().dataSource(replica).load().migrate();
+    }
+
+    @Test
+    void readOnlyPathsUseTheReplica() throws Exception {
+        String email = TestData.unique("payer") + "@test.com";
+        savePayment(email);
+
+        // Written to the primary only: the read-only list does not see it
+        mvc.perform(get("/payment/my").with(user(email)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(0)));
+
+        new JdbcTemplate(replica).update(
+                "INSERT INTO payment (user_email, ride_info, amount, method, status, date) VALUES (?, ?, ?, ?, ?, ?)",
+                email, "replicated", 100.0, "UPI", "success", Date.valueOf(LocalDate.now()));
+
+        mvc.perform(get("/payment/my").with(user(email)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].rideInfo").value("replicated"));
+    }
+
+    @Test
+    void recentWriterReadsThePrimary() throws Exception {
+        String email = TestData.unique("payer") + "@test.com";
+        savePayment(email);
+        readYourWrites.mark(email);
+
+        mvc.perform(get("/payment/my").with(user(email)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].rideInfo").value("primary"));
+    }
+
+    @Test
+    void searchCacheLoadsFromThePrimary() {
+        TestData data = new TestData(userRepo, rideRepo, bookingRepo, paymentRepo);
+        Ride ride = data.ride(data.user(Role.DRIVER), TestData.unique("from"), TestData.unique("to"),
+                LocalDate.now().plusDays(1), LocalTime.of(9, 0), 3L);
+
+        // Only on the primary: a replica read would cache an empty answer
+        assertEquals(1, rideService.search(ride.getSource(), ride.getDestination(), ride.getDate()).size());
+    }
+
+    private void savePayment(String email) {
+        Payment payment = new Payment();
+        payment.setUserEmail(email);
+        payment.setRideInfo("primary");
+        payment.setAmount(100.0);
+        payment.setMethod("UPI");
+        payment.setStatus("success");
+        payment.setDate(LocalDate.now());
+        paymentRepo.save(payment);
+    }
+}
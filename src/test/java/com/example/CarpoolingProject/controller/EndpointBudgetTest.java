@@ -0,0 +1,366 @@
+package com.example.CarpoolingProject.controller;
+
+import com.example.CarpoolingProject.dto.RideTemplateDTO;
+import com.example.CarpoolingProject.entity.Booking;
+import com.example.CarpoolingProject.entity.Ride;
+import com.example.CarpoolingProject.entity.Role;
+import com.example.CarpoolingProject.entity.User;
+import com.example.CarpoolingProject.repository.BookingRepository;
+import com.example.CarpoolingProject.repository.PaymentRepository;
+import com.example.CarpoolingProject.repository.RideRepository;
+import com.example.CarpoolingProject.repository.UserRepository;
+import com.example.CarpoolingProject.service.OtpService;
+import com.example.CarpoolingProject.service.RideTemplateService;
+import com.example.CarpoolingProject.support.StatementCounter;
+import com.example.CarpoolingProject.support.TestData;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.DynamicTest;
+import org.junit.jupiter.api.TestFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.io.InputStream;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Query-count and latency budget for every controller endpoint.
+ *
+ * Each endpoint runs WARMUP + RUNS times through MockMvc on the H2 test profile; every run
+ * gets fresh rows from its setup step, which is not measured. The test fails when any run
+ * issues more SQL statements than the budget in endpoint-budgets.properties, or when the
+ * median run is slower than its millisecond budget.
+ *
+ * After an intended change, re-record with
+ *     ./mvnw test -Dtest=EndpointBudgetTest -Dbudgets.record=true
+ * and copy target/endpoint-budgets.properties over src/test/resources/endpoint-budgets.properties.
+ * Recording never fails on a budget; the millisecond budget it writes is 5x the measured median.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class EndpointBudgetTest {
+
+    private static final int WARMUP = 2;
+    private static final int RUNS = 5;
+
+    private static final String BUDGETS = "/endpoint-budgets.properties";
+    private static final boolean RECORD = Boolean.getBoolean("budgets.record");
+    private static final Map<String, String> recorded = new TreeMap<>();
+
+    private static final String PASSWORD = "password123";
+
+    @Autowired
+    private MockMvc mvc;
+
+    @Autowired
+    private ObjectMapper json;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @Autowired
+    private OtpService otpService;
+
+    @Autowired
+    private RideTemplateService rideTemplateService;
+
+    @Autowired
+    private UserRepository userRepo;
+
+    @Autowired
+    private RideRepository rideRepo;
+
+    @Autowired
+    private BookingRepository bookingRepo;
+
+    @Autowired
+    private PaymentRepository paymentRepo;
+
+    // Queued OTP and booking mails must not reach a real SMTP server. The concrete type keeps
+    // the actuator mail health indicator, which only picks up JavaMailSenderImpl beans, working.
+    @MockitoBean
+    private JavaMailSenderImpl mailSender;
+
+    private TestData data;
+
+    private record Endpoint(String name, Supplier<MockHttpServletRequestBuilder> request) {
+    }
+
+    @TestFactory
+    List<DynamicTest> endpointsStayWithinBudget() throws Exception {
+        data = new TestData(userRepo, rideRepo, bookingRepo, paymentRepo);
+        Properties budgets = loadBudgets();
+
+        List<DynamicTest> tests = new ArrayList<>();
+        for (Endpoint endpoint : endpoints()) {
+            tests.add(DynamicTest.dynamicTest(endpoint.name(), () -> measure(endpoint, budgets)));
+        }
+        return tests;
+    }
+
+    // ---------------- ENDPOINTS ----------------
+    private List<Endpoint> endpoints() {
+        LocalDate tomorrow = LocalDate.now().plusDays(1);
+        // Past the recurring-ride horizon, so its rides only exist once searched for
+        LocalDate farAhead = LocalDate.now().plusDays(60);
+
+        User driver = data.user(Role.DRIVER);
+        User passenger = data.user(Role.PASSENGER);
+        User loginUser = data.user(Role.PASSENGER, passwordEncoder.encode(PASSWORD));
+        String corridorFrom = TestData.unique("From");
+        String corridorTo = TestData.unique("To");
+
+        // Enough history that the list endpoints return full pages
+        Ride hotRide = data.ride(driver, corridorFrom, corridorTo, tomorrow, LocalTime.of(7, 0), 1_000);
+        for (int i = 0; i < 20; i++) {
+            Ride ride = data.ride(driver, corridorFrom, corridorTo, tomorrow, LocalTime.of(8, 0).plusMinutes(i), 4);
+            data.booking(ride, passenger, i % 2 == 0 ? "PENDING" : "ACCEPTED");
+            data.payment(passenger.getEmail(), tomorrow.minusDays(i));
+        }
+
+        String driverEmail = driver.getEmail();
+        String passengerEmail = passenger.getEmail();
+        int[] vehicle = {0};
+
+        return List.of(
+                // ---- AuthController
+                new Endpoint("auth.register", () -> body(post("/auth/register"), Map.of(
+                        "name", "New User",
+                        "email", TestData.unique("register") + "@test.com",
+                        "phone", "9999999999",
+                        "password", PASSWORD,
+                        "role", "PASSENGER"))),
+                new Endpoint("auth.login", () -> body(post("/auth/login"),
+                        Map.of("email", loginUser.getEmail(), "password", PASSWORD))),
+                new Endpoint("auth.send-otp", () -> body(post("/auth/send-otp"),
+                        Map.of("email", data.user(Role.PASSENGER).getEmail()))),
+                new Endpoint("auth.verify-otp", () -> {
+                    String email = data.user(Role.PASSENGER).getEmail();
+                    String code = otpService.createOtp(email, OtpService.LOGIN, 10).getCode();
+                    return body(post("/auth/verify-otp"), Map.of("email", email, "otp", code));
+                }),
+                new Endpoint("auth.logout", () -> post("/auth/logout").with(user(passengerEmail))),
+
+                // ---- UserController
+                new Endpoint("user.forgot-password", () -> body(post("/user/forgot-password"),
+                        Map.of("email", data.user(Role.PASSENGER).getEmail()))),
+                new Endpoint("user.reset-password", () -> {
+                    String email = data.user(Role.PASSENGER).getEmail();
+                    String code = otpService.createOtp(email, OtpService.RESET_PASSWORD, 10).getCode();
+                    return body(post("/user/reset-password"),
+                            Map.of("email", email, "otp", code, "newPassword", "newPassword123"));
+                }),
+                new Endpoint("user.profile", () -> get("/user/profile").with(user(passengerEmail))),
+
+                // ---- RideController
+                new Endpoint("ride.post", () -> body(post("/ride/post").with(user(driverEmail)), Map.of(
+                        "source", corridorFrom, "destination", corridorTo,
+                        "date", tomorrow.toString(), "time", "09:30",
+                        "availableSeats", 3, "price", 150.0))),
+                new Endpoint("ride.search", () -> {
+                    // A fresh corridor per run, so every run is a cache miss
+                    String from = TestData.unique("From");
+                    String to = TestData.unique("To");
+                    for (int i = 0; i < 10; i++)
+                        data.ride(driver, from, to, tomorrow, LocalTime.of(9, 0).plusMinutes(i), 4);
+                    return body(post("/ride/search"),
+                            Map.of("source", from, "destination", to, "date", tomorrow.toString()));
+                }),
+                new Endpoint("ride.search.window", () -> {
+                    String from = TestData.unique("From");
+                    String to = TestData.unique("To");
+                    for (int i = 0; i < 10; i++)
+                        data.ride(driver, from, to, tomorrow, LocalTime.of(7, 0).plusMinutes(15 * i), 4);
+                    return body(post("/ride/search"), Map.of("source", from, "destination", to,
+                            "departFrom", tomorrow.atTime(7, 30).toString(),
+                            "departTo", tomorrow.atTime(9, 0).toString(),
+                            "seatsRequested", 2, "sort", "PRICE", "limit", 5));
+                }),
+                new Endpoint("ride.search.recurring", () -> {
+                    String from = TestData.unique("From");
+                    String to = TestData.unique("To");
+                    rideTemplateService.create(driverEmail, template(from, to));
+                    return body(post("/ride/search"),
+                            Map.of("source", from, "destination", to, "date", farAhead.toString()));
+                }),
+                new Endpoint("ride.locations.suggest", () -> get("/ride/locations/suggest").param("q", "fr")),
+                new Endpoint("ride.booking-requests", () -> get("/ride/booking-requests").with(user(driverEmail))),
+                new Endpoint("ride.stops", () -> get("/ride/" + hotRide.getId() + "/stops").with(user(passengerEmail))),
+                new Endpoint("ride.availability",
+                        () -> get("/ride/" + hotRide.getId() + "/availability").with(user(passengerEmail))),
+
+                // ---- BookingController
+                new Endpoint("booking.book", () -> body(post("/booking/book").with(user(passengerEmail)),
+                        Map.of("rideId", hotRide.getId(), "seats", 1))),
+                new Endpoint("booking.events", () -> get("/booking/events").with(user(passengerEmail))),
+                new Endpoint("booking.my-book", () -> get("/booking/my-book").with(user(passengerEmail))),
+                new Endpoint("booking.cancel", () -> {
+                    Booking booking = data.booking(hotRide, passenger, "PENDING");
+                    return delete("/booking/cancel/" + booking.getId()).with(user(passengerEmail));
+                }),
+                new Endpoint("booking.accept", () -> {
+                    Booking booking = data.booking(hotRide, passenger, "PENDING");
+                    return post("/booking/bookings/" + booking.getId() + "/accept").with(user(driverEmail));
+                }),
+                new Endpoint("booking.reject", () -> {
+                    Booking booking = data.booking(hotRide, passenger, "PENDING");
+                    return post("/booking/bookings/" + booking.getId() + "/reject").with(user(driverEmail));
+                }),
+
+                // ---- DriverController
+                new Endpoint("driver.vehicle.get", () -> get("/driver/vehicle").with(user(driverEmail))),
+                new Endpoint("driver.vehicle.put", () -> body(put("/driver/vehicle").with(user(driverEmail)),
+                        Map.of("vehicleModel", "Model " + (++vehicle[0]), "licensePlate", "MH01AB1234",
+                                "capacity", 4))),
+                new Endpoint("driver.ride", () -> body(post("/driver/ride").with(user(driverEmail)), Map.of(
+                        "source", corridorFrom, "destination", corridorTo,
+                        "date", tomorrow.toString(), "time", "10:30",
+                        "availableSeats", 3, "price", 150.0))),
+                new Endpoint("driver.ride-templates.post", () -> body(post("/driver/ride-templates").with(user(driverEmail)),
+                        Map.of("source", TestData.unique("From"), "destination", TestData.unique("To"),
+                                "daysOfWeek", List.of("MONDAY", "TUESDAY", "WEDNESDAY", "THURSDAY", "FRIDAY"),
+                                "time", "08:15", "availableSeats", 3, "price", 120.0))),
+                new Endpoint("driver.ride-templates.get", () -> get("/driver/ride-templates").with(user(driverEmail))),
+                new Endpoint("driver.ride-templates.delete", () -> {
+                    RideTemplateDTO t = rideTemplateService.create(driverEmail,
+                            template(TestData.unique("From"), TestData.unique("To")));
+                    return delete("/driver/ride-templates/" + t.getId()).with(user(driverEmail));
+                }),
+                new Endpoint("driver.rides", () -> get("/driver/rides").with(user(driverEmail))),
+                new Endpoint("driver.earnings", () -> get("/driver/earnings").with(user(driverEmail))),
+                new Endpoint("driver.earnings.summary", () -> get("/driver/earnings/summary").with(user(driverEmail))),
+
+                // ---- PassengerController / PaymentController / DashboardController
+                new Endpoint("passenger.history", () -> get("/passenger/history").with(user(passengerEmail))),
+                new Endpoint("passenger.dashboard", () -> get("/passenger/dashboard").with(user(passengerEmail))),
+                new Endpoint("payment.my", () -> get("/payment/my").with(user(passengerEmail))),
+                new Endpoint("dashboard.passenger", () -> get("/dashboard/passenger").with(user(passengerEmail))),
+                new Endpoint("dashboard.driver", () -> get("/dashboard/driver").with(user(driverEmail)))
+        );
+    }
+
+    // ---------------- MEASUREMENT ----------------
+    private void measure(Endpoint endpoint, Properties budgets) throws Exception {
+        for (int i = 0; i < WARMUP; i++)
+            run(endpoint.request().get(), new long[1]);
+
+        int maxStatements = 0;
+        long[] nanos = new long[RUNS];
+        for (int i = 0; i < RUNS; i++) {
+            long[] elapsed = new long[1];
+            maxStatements = Math.max(maxStatements, run(endpoint.request().get(), elapsed));
+            nanos[i] = elapsed[0];
+        }
+        Arrays.sort(nanos);
+        long medianMillis = Math.max(1, nanos[RUNS / 2] / 1_000_000);
+
+        System.out.printf("Endpoint budget %-26s %3d statements, median %4d ms%n",
+                endpoint.name(), maxStatements, medianMillis);
+
+        if (RECORD) {
+            recorded.put(endpoint.name(), maxStatements + "," + Math.max(50, medianMillis * 5));
+            return;
+        }
+
+        String budget = budgets.getProperty(endpoint.name());
+        assertNotNull(budget, "No budget recorded for " + endpoint.name() + ", run with -Dbudgets.record=true");
+
+        String[] parts = budget.split(",");
+        int statementBudget = Integer.parseInt(parts[0].trim());
+        long millisBudget = Long.parseLong(parts[1].trim());
+
+        assertTrue(maxStatements <= statementBudget, endpoint.name() + " issued " + maxStatements
+                + " SQL statements, budget is " + statementBudget);
+        assertTrue(medianMillis <= millisBudget, endpoint.name() + " took " + medianMillis
+                + " ms (median), budget is " + millisBudget + " ms");
+    }
+
+    // Returns the statement count of one request; elapsed[0] gets its wall time in nanoseconds
+    private int run(MockHttpServletRequestBuilder request, long[] elapsed) throws Exception {
+        StatementCounter.start();
+        try {
+            long start = System.nanoTime();
+            mvc.perform(request).andExpect(status().isOk());
+            elapsed[0] = System.nanoTime() - start;
+            return StatementCounter.current();
+        } finally {
+            StatementCounter.stop();
+        }
+    }
+
+    // Every day at 07:45, starting today
+    private static RideTemplateDTO template(String from, String to) {
+        RideTemplateDTO dto = new RideTemplateDTO();
+        dto.setSource(from);
+        dto.setDestination(to);
+        dto.setDaysOfWeek(EnumSet.allOf(DayOfWeek.class));
+        dto.setTime(LocalTime.of(7, 45));
+        dto.setAvailableSeats(3);
+        dto.setPrice(120.0);
+        return dto;
+    }
+
+    private MockHttpServletRequestBuilder body(MockHttpServletRequestBuilder request, Object body) {
+        try {
+            return request.contentType(MediaType.APPLICATION_JSON).content(json.writeValueAsString(body));
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    // ---------------- BUDGET FILE ----------------
+    private static Properties loadBudgets() throws Exception {
+        Properties budgets = new Properties();
+        try (InputStream in = EndpointBudgetTest.class.getResourceAsStream(BUDGETS)) {
+            if (in != null)
+                budgets.load(in);
+        }
+        return budgets;
+    }
+
+    @AfterAll
+    static void writeRecordedBudgets() throws Exception {
+        if (!RECORD || recorded.isEmpty())
+            return;
+
+        Path out = Path.of("target", "endpoint-budgets.properties");
+        Files.createDirectories(out.getParent());
+        try (Writer writer = Files.newBufferedWriter(out)) {
+            writer.write("# <endpoint> = <max SQL statements per request>,<max median milliseconds>\n");
+            for (Map.Entry<String, String> e : recorded.entrySet())
+                writer.write(e.getKey() + "=" + e.getValue() + "\n");
+        }
+        System.out.println("Endpoint budgets recorded to " + out.toAbsolutePath());
+    }
+}
@@ -0,0 +1,167 @@
+package com.example.CarpoolingProject.controller;
+
+import com.example.CarpoolingProject.entity.Ride;
+import com.example.CarpoolingProject.entity.Role;
+import com.example.CarpoolingProject.entity.User;
+import com.example.CarpoolingProject.repository.BookingRepository;
+import com.example.CarpoolingProject.repository.PaymentRepository;
+import com.example.CarpoolingProject.repository.RideRepository;
+import com.example.CarpoolingProject.repository.UserRepository;
+import com.example.CarpoolingProject.support.StatementCounter;
+import com.example.CarpoolingProject.support.TestData;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.RequestBuilder;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Guards against N+1 selects: every list endpoint must issue the same number of SQL statements
+ * whether the caller has 2 rows or 20. Statements are counted per request thread, so the
+ * background outbox pollers running in the same context do not skew the numbers.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class EndpointStatementCountTest {
+
+    private static final int SMALL = 2;
+    private static final int LARGE = 20;
+
+    @Autowired
+    private MockMvc mvc;
+
+    @Autowired
+    private UserRepository userRepo;
+
+    @Autowired
+    private RideRepository rideRepo;
+
+    @Autowired
+    private BookingRepository bookingRepo;
+
+    @Autowired
+    private PaymentRepository paymentRepo;
+
+    private TestData data;
+    private Fixture small;
+    private Fixture large;
+
+    @BeforeEach
+    void seed() {
+        data = new TestData(userRepo, rideRepo, bookingRepo, paymentRepo);
+        small = seed(SMALL);
+        large = seed(LARGE);
+    }
+
+    @Test
+    void driverRides() throws Exception {
+        assertSameCount(get("/driver/rides").with(user(small.driver)),
+                get("/driver/rides").with(user(large.driver)));
+    }
+
+    @Test
+    void driverBookingRequests() throws Exception {
+        assertSameCount(get("/ride/booking-requests").with(user(small.driver)),
+                get("/ride/booking-requests").with(user(large.driver)));
+    }
+
+    @Test
+    void passengerBookings() throws Exception {
+        assertSameCount(get("/booking/my-book").with(user(small.passenger)),
+                get("/booking/my-book").with(user(large.passenger)));
+    }
+
+    @Test
+    void passengerHistory() throws Exception {
+        assertSameCount(get("/passenger/history").with(user(small.passenger)),
+                get("/passenger/history").with(user(large.passenger)));
+    }
+
+    @Test
+    void payments() throws Exception {
+        assertSameCount(get("/payment/my").with(user(small.passenger)),
+                get("/payment/my").with(user(large.passenger)));
+    }
+
+    @Test
+    void passengerDashboard() throws Exception {
+        assertSameCount(get("/dashboard/passenger").with(user(small.passenger)),
+                get("/dashboard/passenger").with(user(large.passenger)));
+    }
+
+    @Test
+    void driverDashboard() throws Exception {
+        assertSameCount(get("/dashboard/driver").with(user(small.driver)),
+                get("/dashboard/driver").with(user(large.driver)));
+    }
+
+    @Test
+    void rideSearch() throws Exception {
+        assertSameCount(search(small), search(large));
+    }
+
+    // ---------------- HELPERS ----------------
+
+    private void assertSameCount(RequestBuilder smallRequest, RequestBuilder largeRequest) throws Exception {
+        int smallCount = count(smallRequest);
+        int largeCount = count(largeRequest);
+        assertEquals(smallCount, largeCount,
+                "statements for " + SMALL + " rows vs " + LARGE + " rows");
+    }
+
+    private int count(RequestBuilder request) throws Exception {
+        StatementCounter.start();
+        try {
+            mvc.perform(request).andExpect(status().isOk());
+            return StatementCounter.current();
+        } finally {
+            StatementCounter.stop();
+        }
+    }
+
+    private RequestBuilder search(Fixture f) {
+        String body = "{\"source\":\"" + f.source + "\",\"destination\":\"" + f.destination
+                + "\",\"date\":\"" + f.date + "\"}";
+        return post("/ride/search").contentType(MediaType.APPLICATION_JSON).content(body);
+    }
+
+    private Fixture seed(int rows) {
+        Fixture f = new Fixture();
+        User driver = data.user(Role.DRIVER);
+        User passenger = data.user(Role.PASSENGER);
+        f.driver = driver.getEmail();
+        f.passenger = passenger.getEmail();
+        f.source = TestData.unique("From");
+        f.destination = TestData.unique("To");
+        f.date = LocalDate.now().plusDays(1);
+
+        for (int i = 0; i < rows; i++) {
+            Ride ride = data.ride(driver, f.source, f.destination, f.date, LocalTime.of(6, 0).plusMinutes(i), 4);
+            data.booking(ride, passenger, i % 2 == 0 ? "PENDING" : "ACCEPTED");
+            data.payment(f.passenger, f.date.minusDays(i));
+        }
+        return f;
+    }
+
+    private static class Fixture {
+        String driver;
+        String passenger;
+        String source;
+        String destination;
+        LocalDate date;
+    }
+}
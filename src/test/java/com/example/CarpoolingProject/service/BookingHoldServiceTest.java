@@ -0,0 +1,94 @@
+package com.example.CarpoolingProject.service;
+
+import com.example.CarpoolingProject.dto.BookingRequestDTO;
+import com.example.CarpoolingProject.dto.BookingResponseDTO;
+import com.example.CarpoolingProject.entity.Booking;
+import com.example.CarpoolingProject.entity.Ride;
+import com.example.CarpoolingProject.entity.Role;
+import com.example.CarpoolingProject.entity.User;
+import com.example.CarpoolingProject.repository.BookingRepository;
+import com.example.CarpoolingProject.repository.PaymentRepository;
+import com.example.CarpoolingProject.repository.RideRepository;
+import com.example.CarpoolingProject.repository.UserRepository;
+import com.example.CarpoolingProject.support.TestData;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+// Holds of zero minutes run out at the next tick of the expiry scheduler
+@SpringBootTest(properties = {"booking.hold.minutes=0", "booking.hold.catch-up-ms=500"})
+@ActiveProfiles("test")
+class BookingHoldServiceTest {
+
+    private static final long WAIT_MILLIS = 10_000;
+
+    @Autowired
+    private BookingService bookingService;
+
+    @Autowired
+    private UserRepository userRepo;
+
+    @Autowired
+    private RideRepository rideRepo;
+
+    @Autowired
+    private BookingRepository bookingRepo;
+
+    @Autowired
+    private PaymentRepository paymentRepo;
+
+    @Test
+    void unansweredHoldExpiresAndGivesSeatsBack() throws Exception {
+        TestData data = new TestData(userRepo, rideRepo, bookingRepo, paymentRepo);
+        User driver = data.user(Role.DRIVER);
+        User passenger = data.user(Role.PASSENGER);
+        Ride ride = data.ride(driver, TestData.unique("From"), TestData.unique("To"),
+                LocalDate.now().plusDays(1), LocalTime.of(8, 0), 4);
+
+        BookingRequestDTO request = new BookingRequestDTO();
+        request.setRideId(ride.getId());
+        request.setSeats(3);
+        BookingResponseDTO booked = bookingService.bookRide(request, passenger.getEmail());
+        assertEquals(1L, rideRepo.findById(ride.getId()).orElseThrow().getAvailableSeats());
+
+        String status = awaitStatus(booked.getId(), "EXPIRED");
+
+        assertEquals("EXPIRED", status);
+        assertEquals(4L, rideRepo.findById(ride.getId()).orElseThrow().getAvailableSeats());
+        assertThrows(RuntimeException.class, () -> bookingService.acceptBooking(booked.getId(), driver.getEmail()));
+    }
+
+    @Test
+    void holdTakenOnAnotherInstanceIsPickedUp() throws Exception {
+        TestData data = new TestData(userRepo, rideRepo, bookingRepo, paymentRepo);
+        User driver = data.user(Role.DRIVER);
+        Ride ride = data.ride(driver, TestData.unique("From"), TestData.unique("To"),
+                LocalDate.now().plusDays(1), LocalTime.of(8, 0), 3);
+
+        // Written straight to the table, so only the catch-up scan can find it
+        Booking hold = data.booking(ride, data.user(Role.PASSENGER), "PENDING");
+        hold.setHoldExpiresAt(LocalDateTime.now());
+        bookingRepo.save(hold);
+
+        assertEquals("EXPIRED", awaitStatus(hold.getId(), "EXPIRED"));
+        assertEquals(4L, rideRepo.findById(ride.getId()).orElseThrow().getAvailableSeats());
+    }
+
+    private String awaitStatus(Long bookingId, String expected) throws InterruptedException {
+        long until = System.currentTimeMillis() + WAIT_MILLIS;
+        String status;
+        do {
+            Thread.sleep(100);
+            status = bookingRepo.findById(bookingId).map(Booking::getStatus).orElse(null);
+        } while (!expected.equals(status) && System.currentTimeMillis() < until);
+        return status;
+    }
+}
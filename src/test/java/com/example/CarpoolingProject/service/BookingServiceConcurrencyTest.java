@@ -0,0 +1,126 @@
+package com.example.CarpoolingProject.service;
+
+import com.example.CarpoolingProject.dto.BookingRequestDTO;
+import com.example.CarpoolingProject.entity.Ride;
+import com.example.CarpoolingProject.entity.Role;
+import com.example.CarpoolingProject.entity.User;
+import com.example.CarpoolingProject.repository.BookingRepository;
+import com.example.CarpoolingProject.repository.RideRepository;
+import com.example.CarpoolingProject.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class BookingServiceConcurrencyTest {
+
+    private static final int SEATS = 40;
+    private static final int THREADS = 16;
+    private static final int ATTEMPTS_PER_THREAD = 25;
+
+    @Autowired
+    private BookingService bookingService;
+
+    @Autowired
+    private RideRepository rideRepo;
+
+    @Autowired
+    private BookingRepository bookingRepo;
+
+    @Autowired
+    private UserRepository userRepo;
+
+    @Test
+    void concurrentBookingsOnHotRideNeverOversell() throws Exception {
+        String run = String.valueOf(System.nanoTime());
+
+        User driver = saveUser("driver-" + run + "@test.com", Role.DRIVER);
+
+        Ride ride = new Ride();
+        ride.setSource("Andheri");
+        ride.setDestination("Powai");
+        ride.setDate(LocalDate.now().plusDays(1));
+        ride.setTime(LocalTime.of(8, 30));
+        ride.setAvailableSeats((long) SEATS);
+        ride.setBookedSeats(0L);
+        ride.setPrice(120.0);
+        ride.setDriver(driver);
+        Long rideId = rideRepo.save(ride).getId();
+
+        List<String> passengers = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            passengers.add(saveUser("passenger-" + i + "-" + run + "@test.com", Role.PASSENGER).getEmail());
+        }
+
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger booked = new AtomicInteger();
+        AtomicInteger soldOut = new AtomicInteger();
+
+        List<Future<?>> futures = new ArrayList<>();
+        for (String email : passengers) {
+            futures.add(pool.submit(() -> {
+                start.await();
+                for (int a = 0; a < ATTEMPTS_PER_THREAD; a++) {
+                    BookingRequestDTO dto = new BookingRequestDTO();
+                    dto.setRideId(rideId);
+                    dto.setSeats(1);
+                    try {
+                        bookingService.bookRide(dto, email);
+                        booked.incrementAndGet();
+                    } catch (RuntimeException e) {
+                        assertEquals("Not enough seats available", e.getMessage());
+                        soldOut.incrementAndGet();
+                    }
+                }
+                return null;
+            }));
+        }
+
+        long startedAt = System.nanoTime();
+        start.countDown();
+        for (Future<?> f : futures) {
+            f.get();
+        }
+        long elapsedNanos = System.nanoTime() - startedAt;
+        pool.shutdown();
+
+        int attempts = THREADS * ATTEMPTS_PER_THREAD;
+        System.out.printf("Hot ride: %d threads, %d attempts, %d booked, %d sold out, %.0f bookings/sec%n",
+                THREADS, attempts, booked.get(), soldOut.get(), attempts / (elapsedNanos / 1_000_000_000.0));
+
+        Ride after = rideRepo.findById(rideId).orElseThrow();
+        long bookingRows = bookingRepo.findAll().stream()
+                .filter(b -> b.getRide().getId().equals(rideId))
+                .count();
+
+        assertEquals(SEATS, booked.get());
+        assertEquals(attempts - SEATS, soldOut.get());
+        assertEquals(0L, after.getAvailableSeats());
+        assertEquals(SEATS, bookingRows);
+    }
+
+    private User saveUser(String email, Role role) {
+        User u = new User();
+        u.setName(email);
+        u.setEmail(email);
+        u.setPhone("9999999999");
+        u.setPassword("x");
+        u.setRole(role);
+        return userRepo.save(u);
+    }
+}
@@ -0,0 +1,161 @@
+package com.example.CarpoolingProject.service;
+
+import com.example.CarpoolingProject.dto.BookingRequestDTO;
+import com.example.CarpoolingProject.dto.RideRequestDTO;
+import com.example.CarpoolingProject.dto.RideResponseDTO;
+import com.example.CarpoolingProject.dto.RideSearchDTO;
+import com.example.CarpoolingProject.dto.RideSort;
+import com.example.CarpoolingProject.entity.Role;
+import com.example.CarpoolingProject.entity.User;
+import com.example.CarpoolingProject.repository.BookingRepository;
+import com.example.CarpoolingProject.repository.PaymentRepository;
+import com.example.CarpoolingProject.repository.RideRepository;
+import com.example.CarpoolingProject.repository.UserRepository;
+import com.example.CarpoolingProject.support.TestData;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// A ride A -> B -> C -> D with 4 seats, searched by its stops
+@SpringBootTest
+@ActiveProfiles("test")
+class MultiStopSearchTest {
+
+    @Autowired
+    private RideService rideService;
+
+    @Autowired
+    private BookingService bookingService;
+
+    @Autowired
+    private RideLegInventory legInventory;
+
+    @Autowired
+    private UserRepository userRepo;
+
+    @Autowired
+    private RideRepository rideRepo;
+
+    @Autowired
+    private BookingRepository bookingRepo;
+
+    @Autowired
+    private PaymentRepository paymentRepo;
+
+    private final LocalDate date = LocalDate.now().plusDays(2);
+    private String a, b, c, d;
+    private RideResponseDTO ride;
+    private User passenger;
+
+    @BeforeEach
+    void setUp() {
+        TestData data = new TestData(userRepo, rideRepo, bookingRepo, paymentRepo);
+        User driver = data.user(Role.DRIVER);
+        passenger = data.user(Role.PASSENGER);
+        a = TestData.unique("A");
+        b = TestData.unique("B");
+        c = TestData.unique("C");
+        d = TestData.unique("D");
+
+        RideRequestDTO dto = new RideRequestDTO();
+        dto.setSource(a);
+        dto.setDestination(d);
+        dto.setStops(List.of(b, c));
+        dto.setDate(date);
+        dto.setTime(LocalTime.of(9, 0));
+        dto.setAvailableSeats(4L);
+        dto.setPrice(200.0);
+        ride = rideService.postRide(dto, driver.getEmail());
+    }
+
+    @Test
+    void searchFindsRideByStopsWithSeatsOfThoseLegs() {
+        // Cached before the booking: the booking has to evict the B -> C entry
+        assertEquals(4L, only(rideService.search(b, c, date)).getAvailableSeats());
+
+        book(1, 2, 3); // B -> C
+
+        RideResponseDTO bc = only(rideService.search(b, c, date));
+        assertEquals(ride.getId(), bc.getId());
+        assertEquals(1, bc.getFromStop());
+        assertEquals(2, bc.getToStop());
+        assertEquals(1L, bc.getAvailableSeats());
+
+        assertEquals(4L, only(rideService.search(a, b, date)).getAvailableSeats());
+        assertEquals(4L, only(rideService.search(c, d, date)).getAvailableSeats());
+        assertEquals(1L, only(rideService.search(a, c, date)).getAvailableSeats());
+
+        // Whole route: found as a plain match, no stop indexes
+        RideResponseDTO ad = only(rideService.search(a, d, date));
+        assertNull(ad.getFromStop());
+        assertEquals(1L, ad.getAvailableSeats());
+
+        // Wrong direction
+        assertTrue(rideService.search(c, b, date).isEmpty());
+    }
+
+    @Test
+    void filteredSearchChecksSeatsOnRequestedLegs() {
+        book(1, 2, 3); // B -> C
+
+        assertTrue(rideService.searchFiltered(filtered(b, c, 2)).isEmpty());
+
+        RideResponseDTO cd = only(rideService.searchFiltered(filtered(c, d, 2)));
+        assertEquals(2, cd.getFromStop());
+        assertEquals(3, cd.getToStop());
+        assertEquals(4L, cd.getAvailableSeats());
+    }
+
+    @Test
+    void rolledBackBookingLeavesSeatsUntouched() {
+        assertEquals(4L, only(rideService.search(b, c, date)).getAvailableSeats());
+
+        // Seats are reserved before the passenger lookup fails and rolls everything back
+        assertThrows(RuntimeException.class, () -> book(1, 2, 3, TestData.unique("nobody") + "@test.com"));
+
+        assertEquals(4L, legInventory.availableSeats(ride.getId(), 1, 2));
+        assertEquals(4L, only(rideService.search(b, c, date)).getAvailableSeats());
+
+        book(1, 2, 4);
+        assertEquals(0L, legInventory.availableSeats(ride.getId(), 1, 2));
+    }
+
+    private void book(int fromStop, int toStop, int seats) {
+        book(fromStop, toStop, seats, passenger.getEmail());
+    }
+
+    private void book(int fromStop, int toStop, int seats, String email) {
+        BookingRequestDTO request = new BookingRequestDTO();
+        request.setRideId(ride.getId());
+        request.setFromStop(fromStop);
+        request.setToStop(toStop);
+        request.setSeats(seats);
+        bookingService.bookRide(request, email);
+    }
+
+    private RideSearchDTO filtered(String from, String to, int seats) {
+        RideSearchDTO dto = new RideSearchDTO();
+        dto.setSource(from);
+        dto.setDestination(to);
+        dto.setDate(date);
+        dto.setSeatsRequested(seats);
+        dto.setSort(RideSort.DEPARTURE);
+        return dto;
+    }
+
+    private static RideResponseDTO only(List<RideResponseDTO> rides) {
+        assertEquals(1, rides.size());
+        return rides.get(0);
+    }
+}
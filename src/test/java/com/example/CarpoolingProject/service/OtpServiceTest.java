@@ -0,0 +1,97 @@
+package com.example.CarpoolingProject.service;
+
+import com.example.CarpoolingProject.entity.Otp;
+import com.example.CarpoolingProject.repository.OtpRepository;
+import com.example.CarpoolingProject.support.TestData;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Uses the defaults of application.properties: 5 codes per 15 minutes, valid for 10 minutes,
+// 5 wrong guesses per code
+@SpringBootTest
+@ActiveProfiles("test")
+class OtpServiceTest {
+
+    private static final int MAX_REQUESTS = 5;
+    private static final int MAX_ATTEMPTS = 5;
+
+    @Autowired
+    private OtpService otpService;
+
+    @Autowired
+    private OtpRepository otpRepository;
+
+    @Test
+    void rateLimitHoldsAcrossPurge() {
+        String email = TestData.unique("otp") + "@test.local";
+        for (int i = 0; i < MAX_REQUESTS; i++) {
+            otpService.createOtp(email, OtpService.LOGIN, 10);
+        }
+
+        // 12 minutes later: all codes expired, but still inside the 15 minute window
+        shiftBack(email, 12);
+        otpService.purgeExpiredOtps();
+
+        assertEquals(MAX_REQUESTS, otpRepository.countByEmailAndCreatedAtAfter(email, LocalDateTime.now().minusMinutes(15)));
+        assertThrows(RuntimeException.class, () -> otpService.createOtp(email, OtpService.LOGIN, 10));
+    }
+
+    @Test
+    void purgeRemovesCodesOutsideTheWindow() {
+        String email = TestData.unique("otp") + "@test.local";
+        for (int i = 0; i < MAX_REQUESTS; i++) {
+            otpService.createOtp(email, OtpService.LOGIN, 10);
+        }
+
+        shiftBack(email, 16);
+        otpService.purgeExpiredOtps();
+
+        assertEquals(0, otpRepository.countByEmailAndCreatedAtAfter(email, LocalDateTime.now().minusDays(1)));
+        assertDoesNotThrow(() -> otpService.createOtp(email, OtpService.LOGIN, 10));
+    }
+
+    @Test
+    void codeIsUsedUpAfterTooManyWrongGuesses() {
+        String email = TestData.unique("otp") + "@test.local";
+        Otp otp = otpService.createOtp(email, OtpService.LOGIN, 10);
+
+        for (int i = 0; i < MAX_ATTEMPTS; i++) {
+            assertFalse(otpService.verifyOtp(email, "000000", OtpService.LOGIN));
+        }
+
+        assertFalse(otpService.verifyOtp(email, otp.getCode(), OtpService.LOGIN));
+    }
+
+    @Test
+    void correctCodeStillWorksAfterFewerWrongGuesses() {
+        String email = TestData.unique("otp") + "@test.local";
+        Otp otp = otpService.createOtp(email, OtpService.LOGIN, 10);
+
+        for (int i = 0; i < MAX_ATTEMPTS - 1; i++) {
+            assertFalse(otpService.verifyOtp(email, "000000", OtpService.LOGIN));
+        }
+
+        assertTrue(otpService.verifyOtp(email, otp.getCode(), OtpService.LOGIN));
+    }
+
+    // Moves every code of this address the given number of minutes into the past
+    private void shiftBack(String email, int minutes) {
+        for (Otp otp : otpRepository.findAll()) {
+            if (!otp.getEmail().equals(email))
+                continue;
+            otp.setCreatedAt(otp.getCreatedAt().minusMinutes(minutes));
+            otp.setExpiresAt(otp.getExpiresAt().minusMinutes(minutes));
+            otpRepository.save(otp);
+        }
+    }
+}
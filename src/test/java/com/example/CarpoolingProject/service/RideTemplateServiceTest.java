@@ -0,0 +1,123 @@
+package com.example.CarpoolingProject.service;
+
+import com.example.CarpoolingProject.dto.RideResponseDTO;
+import com.example.CarpoolingProject.dto.RideTemplateDTO;
+import com.example.CarpoolingProject.entity.Ride;
+import com.example.CarpoolingProject.entity.Role;
+import com.example.CarpoolingProject.entity.User;
+import com.example.CarpoolingProject.repository.BookingRepository;
+import com.example.CarpoolingProject.repository.PaymentRepository;
+import com.example.CarpoolingProject.repository.RideRepository;
+import com.example.CarpoolingProject.repository.UserRepository;
+import com.example.CarpoolingProject.support.TestData;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Uses the default horizon of application.properties (ride.templates.horizon-days=14)
+@SpringBootTest
+@ActiveProfiles("test")
+class RideTemplateServiceTest {
+
+    @Autowired
+    private RideTemplateService templateService;
+
+    @Autowired
+    private RideService rideService;
+
+    @Autowired
+    private UserRepository userRepo;
+
+    @Autowired
+    private RideRepository rideRepo;
+
+    @Autowired
+    private BookingRepository bookingRepo;
+
+    @Autowired
+    private PaymentRepository paymentRepo;
+
+    private User driver;
+
+    @BeforeEach
+    void setUp() {
+        driver = new TestData(userRepo, rideRepo, bookingRepo, paymentRepo).user(Role.DRIVER);
+    }
+
+    @Test
+    void createGeneratesServiceDaysUpToHorizon() {
+        String from = TestData.unique("From");
+        String to = TestData.unique("To");
+        Set<DayOfWeek> weekdays = EnumSet.range(DayOfWeek.MONDAY, DayOfWeek.FRIDAY);
+        RideTemplateDTO t = templateService.create(driver.getEmail(), template(from, to, weekdays));
+
+        LocalDate today = LocalDate.now();
+        int expected = 0;
+        for (LocalDate d = today; !d.isAfter(today.plusDays(14)); d = d.plusDays(1)) {
+            if (weekdays.contains(d.getDayOfWeek()))
+                expected++;
+        }
+
+        List<Object[]> days = rideRepo.findTemplateDates(List.of(t.getId()), today, today.plusDays(180));
+        assertEquals(expected, days.size());
+        assertEquals(today.plusDays(14), t.getMaterializedUntil());
+
+        // Running the horizon job again adds nothing
+        templateService.extendHorizon();
+        assertEquals(expected, rideRepo.findTemplateDates(List.of(t.getId()), today, today.plusDays(180)).size());
+    }
+
+    @Test
+    void searchPastHorizonGeneratesThatDayOnce() {
+        String from = TestData.unique("From");
+        String to = TestData.unique("To");
+        RideTemplateDTO t = templateService.create(driver.getEmail(),
+                template(from, to, EnumSet.allOf(DayOfWeek.class)));
+        LocalDate farAhead = LocalDate.now().plusDays(45);
+
+        List<RideResponseDTO> first = rideService.search(from, to, farAhead);
+        List<RideResponseDTO> second = rideService.search(from, to, farAhead);
+
+        assertEquals(1, first.size());
+        assertEquals(LocalTime.of(7, 45), first.get(0).getTime());
+        assertEquals(first.get(0).getId(), second.get(0).getId());
+
+        Ride ride = rideRepo.findById(first.get(0).getId()).orElseThrow();
+        assertEquals(t.getId(), ride.getTemplateId());
+        assertEquals(3L, ride.getAvailableSeats());
+    }
+
+    @Test
+    void deactivatedTemplateGeneratesNothingMore() {
+        String from = TestData.unique("From");
+        String to = TestData.unique("To");
+        RideTemplateDTO t = templateService.create(driver.getEmail(),
+                template(from, to, EnumSet.allOf(DayOfWeek.class)));
+        templateService.deactivate(t.getId(), driver.getEmail());
+
+        assertTrue(rideService.search(from, to, LocalDate.now().plusDays(45)).isEmpty());
+    }
+
+    private static RideTemplateDTO template(String from, String to, Set<DayOfWeek> days) {
+        RideTemplateDTO dto = new RideTemplateDTO();
+        dto.setSource(from);
+        dto.setDestination(to);
+        dto.setDaysOfWeek(days);
+        dto.setTime(LocalTime.of(7, 45));
+        dto.setAvailableSeats(3);
+        dto.setPrice(120.0);
+        return dto;
+    }
+}
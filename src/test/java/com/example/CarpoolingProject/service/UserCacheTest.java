@@ -0,0 +1,105 @@
+package com.example.CarpoolingProject.service;
+
+import com.example.CarpoolingProject.entity.Role;
+import com.example.CarpoolingProject.entity.User;
+import com.example.CarpoolingProject.repository.BookingRepository;
+import com.example.CarpoolingProject.repository.PaymentRepository;
+import com.example.CarpoolingProject.repository.RideRepository;
+import com.example.CarpoolingProject.repository.UserRepository;
+import com.example.CarpoolingProject.support.StatementCounter;
+import com.example.CarpoolingProject.support.TestData;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Second-level / query cache on User: repeated lookups cost no SQL, writes are never hidden by it
+@SpringBootTest
+@ActiveProfiles("test")
+class UserCacheTest {
+
+    @Autowired
+    private DriverService driverService;
+
+    @Autowired
+    private UserRepository userRepo;
+
+    @Autowired
+    private RideRepository rideRepo;
+
+    @Autowired
+    private BookingRepository bookingRepo;
+
+    @Autowired
+    private PaymentRepository paymentRepo;
+
+    private TestData data;
+
+    @BeforeEach
+    void setUp() {
+        data = new TestData(userRepo, rideRepo, bookingRepo, paymentRepo);
+    }
+
+    @Test
+    void repeatedLookupByEmailIssuesNoSql() {
+        User user = data.user(Role.PASSENGER);
+        userRepo.findByEmail(user.getEmail()).orElseThrow();
+        userRepo.existsByEmail(user.getEmail());
+
+        StatementCounter.start();
+        try {
+            assertEquals(user.getId(), userRepo.findByEmail(user.getEmail()).orElseThrow().getId());
+            assertTrue(userRepo.existsByEmail(user.getEmail()));
+            assertEquals(0, StatementCounter.current());
+        } finally {
+            StatementCounter.stop();
+        }
+    }
+
+    @Test
+    void updateVehicleIsSeenByCachedLookups() {
+        User driver = data.user(Role.DRIVER);
+        userRepo.findByEmail(driver.getEmail()).orElseThrow();
+
+        driverService.updateVehicle(driver.getEmail(), "Nexon", "MH02AB1234", 5);
+
+        User reloaded = userRepo.findByEmail(driver.getEmail()).orElseThrow();
+        assertEquals("Nexon", reloaded.getVehicleModel());
+        assertEquals("MH02AB1234", reloaded.getLicensePlate());
+        assertEquals(5, reloaded.getCapacity());
+    }
+
+    @Test
+    void passwordChangeIsSeenByCachedLookups() {
+        // The write UserService.resetPassword makes once the OTP checks out
+        User user = data.user(Role.PASSENGER, "old-hash");
+        userRepo.findByEmail(user.getEmail()).orElseThrow();
+
+        User toUpdate = userRepo.findByEmail(user.getEmail()).orElseThrow();
+        toUpdate.setPassword("new-hash");
+        userRepo.save(toUpdate);
+
+        assertEquals("new-hash", userRepo.findByEmail(user.getEmail()).orElseThrow().getPassword());
+    }
+
+    @Test
+    void newUserInvalidatesCachedExists() {
+        String email = TestData.unique("signup") + "@test.com";
+        assertFalse(userRepo.existsByEmail(email));
+
+        User u = new User();
+        u.setName(email);
+        u.setEmail(email);
+        u.setPhone("9999999999");
+        u.setPassword("x");
+        u.setRole(Role.PASSENGER);
+        userRepo.save(u);
+
+        assertTrue(userRepo.existsByEmail(email));
+    }
+}
@@ -0,0 +1,34 @@
+package com.example.CarpoolingProject.support;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * Counts the SQL statements Hibernate prepares on the current thread between start() and stop().
+ * Registered for the test profile in application-test.properties; threads that never call
+ * start() (schedulers, outbox workers) are not counted.
+ */
+public class StatementCounter implements StatementInspector {
+
+    private static final ThreadLocal<int[]> COUNT = new ThreadLocal<>();
+
+    public static void start() {
+        COUNT.set(new int[1]);
+    }
+
+    public static int current() {
+        return COUNT.get()[0];
+    }
+
+    public static void stop() {
+        COUNT.remove();
+    }
+
+    @Override
+    public String inspect(String sql) {
+        int[] count = COUNT.get();
+        if (count != null) {
+            count[0]++;
+        }
+        return sql;
+    }
+}
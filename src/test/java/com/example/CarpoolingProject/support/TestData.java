@@ -0,0 +1,90 @@
+package com.example.CarpoolingProject.support;
+
+import com.example.CarpoolingProject.entity.Booking;
+import com.example.CarpoolingProject.entity.Payment;
+import com.example.CarpoolingProject.entity.Ride;
+import com.example.CarpoolingProject.entity.Role;
+import com.example.CarpoolingProject.entity.User;
+import com.example.CarpoolingProject.repository.BookingRepository;
+import com.example.CarpoolingProject.repository.PaymentRepository;
+import com.example.CarpoolingProject.repository.RideRepository;
+import com.example.CarpoolingProject.repository.UserRepository;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Saves rows straight through the repositories for controller tests. Every email and place
+ * name is unique, so tests sharing the cached application context never see each other's data.
+ */
+public class TestData {
+
+    private static final AtomicLong SEQ = new AtomicLong();
+
+    private final UserRepository userRepo;
+    private final RideRepository rideRepo;
+    private final BookingRepository bookingRepo;
+    private final PaymentRepository paymentRepo;
+
+    public TestData(UserRepository userRepo, RideRepository rideRepo,
+                    BookingRepository bookingRepo, PaymentRepository paymentRepo) {
+        this.userRepo = userRepo;
+        this.rideRepo = rideRepo;
+        this.bookingRepo = bookingRepo;
+        this.paymentRepo = paymentRepo;
+    }
+
+    public static String unique(String prefix) {
+        return prefix + "-" + System.nanoTime() + "-" + SEQ.incrementAndGet();
+    }
+
+    public User user(Role role) {
+        return user(role, "x");
+    }
+
+    // password is stored as given, so pass an encoded one for users that log in
+    public User user(Role role, String password) {
+        String email = unique(role.name().toLowerCase()) + "@test.com";
+        User u = new User();
+        u.setName(email);
+        u.setEmail(email);
+        u.setPhone("9999999999");
+        u.setPassword(password);
+        u.setRole(role);
+        return userRepo.save(u);
+    }
+
+    public Ride ride(User driver, String source, String destination, LocalDate date, LocalTime time, long seats) {
+        Ride ride = new Ride();
+        ride.setSource(source);
+        ride.setDestination(destination);
+        ride.setDate(date);
+        ride.setTime(time);
+        ride.setAvailableSeats(seats);
+        ride.setBookedSeats(0L);
+        ride.setPrice(100.0);
+        ride.setDriver(driver);
+        return rideRepo.save(ride);
+    }
+
+    public Booking booking(Ride ride, User passenger, String status) {
+        Booking booking = new Booking();
+        booking.setRide(ride);
+        booking.setPassenger(passenger);
+        booking.setSeatsBooked(1L);
+        booking.setStatus(status);
+        return bookingRepo.save(booking);
+    }
+
+    public Payment payment(String email, LocalDate date) {
+        Payment payment = new Payment();
+        payment.setUserEmail(email);
+        payment.setRideInfo("test ride");
+        payment.setAmount(100.0);
+        payment.setMethod("UPI");
+        payment.setStatus("success");
+        payment.setDate(date);
+        return paymentRepo.save(payment);
+    }
+}